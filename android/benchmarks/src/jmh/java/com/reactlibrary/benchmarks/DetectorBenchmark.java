@@ -0,0 +1,61 @@
+package com.reactlibrary.benchmarks;
+
+import com.reactlibrary.fequency_tools.DetectorWorkspace;
+import com.reactlibrary.fequency_tools.FFTFrequencyDetector;
+import com.reactlibrary.fequency_tools.fft_utils.FFTRealCooleyTukey;
+import com.reactlibrary.fequency_tools.fft_utils.FloatFFTRealCooleyTukey;
+import com.reactlibrary.fequency_tools.windows.HammingWindow;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+public class DetectorBenchmark {
+    @Param({"1024", "4096", "16384", "32768"})
+    public int size;
+
+    @Param({"sine", "harmonic", "noise"})
+    public String signal;
+
+    private double[] input;
+    private short[] pcmInput;
+
+    private final FFTFrequencyDetector detector = new FFTFrequencyDetector();
+    private final FFTRealCooleyTukey fft = new FFTRealCooleyTukey();
+    private final FloatFFTRealCooleyTukey floatFFT = new FloatFFTRealCooleyTukey();
+    private final HammingWindow window = new HammingWindow();
+    private DetectorWorkspace workspace;
+    private DetectorWorkspace floatWorkspace;
+
+    @Setup
+    public void setUp() {
+        input = Signals.generate(signal, size);
+        pcmInput = Signals.toPcm16(input);
+        workspace = new DetectorWorkspace(size, fft);
+        floatWorkspace = new DetectorWorkspace(size, floatFFT);
+    }
+
+    // the deprecated double precision variants stay as the baseline of the PCM path
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public double fftDetectorAllocating() {
+        return detector.findFrequency(input, Signals.SAMPLE_RATE,
+                FFTFrequencyDetector.MIN_FREQUENCY, FFTFrequencyDetector.MAX_FREQUENCY, fft, window);
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public double fftDetectorWorkspace() {
+        return detector.findFrequency(input, size, Signals.SAMPLE_RATE,
+                FFTFrequencyDetector.MIN_FREQUENCY, FFTFrequencyDetector.MAX_FREQUENCY, fft, window, workspace);
+    }
+
+    @Benchmark
+    public double fftDetectorPcm() {
+        return detector.findFrequency(pcmInput, size, Signals.SAMPLE_RATE,
+                FFTFrequencyDetector.MIN_FREQUENCY, FFTFrequencyDetector.MAX_FREQUENCY, floatFFT, window, floatWorkspace);
+    }
+}
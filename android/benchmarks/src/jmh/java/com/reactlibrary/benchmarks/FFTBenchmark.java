@@ -0,0 +1,77 @@
+package com.reactlibrary.benchmarks;
+
+import com.reactlibrary.fequency_tools.fft_utils.FFTCooleyTukey;
+import com.reactlibrary.fequency_tools.fft_utils.FFTRealCooleyTukey;
+import com.reactlibrary.fequency_tools.fft_utils.FFTRealMixedRadix;
+import com.reactlibrary.fequency_tools.fft_utils.FloatFFTRealCooleyTukey;
+import com.reactlibrary.fequency_tools.fft_utils.FloatFFTRealMixedRadix;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+public class FFTBenchmark {
+    // 1620 is a decimated frame, 10007 a prime transformed by Bluestein's algorithm
+    @Param({"1024", "1620", "4096", "10007", "16384", "32768"})
+    public int size;
+
+    @Param({"sine", "harmonic", "noise"})
+    public String signal;
+
+    private double[] input;
+    private float[] floatInput;
+    private double[] spectrogram;
+    private float[] floatSpectrogram;
+
+    private final FFTCooleyTukey complexFFT = new FFTCooleyTukey();
+    private final FFTRealCooleyTukey realFFT = new FFTRealCooleyTukey();
+    private final FloatFFTRealCooleyTukey floatRealFFT = new FloatFFTRealCooleyTukey();
+    private final FFTRealMixedRadix mixedRadixFFT = new FFTRealMixedRadix();
+    private final FloatFFTRealMixedRadix floatMixedRadixFFT = new FloatFFTRealMixedRadix();
+
+    @Setup
+    public void setUp() {
+        input = Signals.generate(signal, size);
+        floatInput = Signals.toFloat(input);
+        spectrogram = new double[complexFFT.getSpectrogramLength(size)];
+        floatSpectrogram = new float[floatRealFFT.getSpectrogramLength(size)];
+    }
+
+    @Benchmark
+    public double[] complexAllocating() {
+        return complexFFT.calculateSpectrogram(input);
+    }
+
+    @Benchmark
+    public double[] complexInto() {
+        complexFFT.calculateSpectrogram(input, size, spectrogram);
+        return spectrogram;
+    }
+
+    @Benchmark
+    public double[] realInto() {
+        realFFT.calculateSpectrogram(input, size, spectrogram);
+        return spectrogram;
+    }
+
+    @Benchmark
+    public float[] realFloatInto() {
+        floatRealFFT.calculateSpectrogram(floatInput, size, floatSpectrogram);
+        return floatSpectrogram;
+    }
+
+    @Benchmark
+    public double[] mixedRadixInto() {
+        mixedRadixFFT.calculateSpectrogram(input, size, spectrogram);
+        return spectrogram;
+    }
+
+    @Benchmark
+    public float[] mixedRadixFloatInto() {
+        floatMixedRadixFFT.calculateSpectrogram(floatInput, size, floatSpectrogram);
+        return floatSpectrogram;
+    }
+}
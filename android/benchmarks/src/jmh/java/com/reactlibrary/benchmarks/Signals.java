@@ -0,0 +1,53 @@
+package com.reactlibrary.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Synthetic test signals, normalised to [-1.0, 1.0].
+ */
+final class Signals {
+    static final int SAMPLE_RATE = 22050;
+    static final double FUNDAMENTAL = 196.0;
+
+    private Signals() {
+    }
+
+    static double[] generate(String type, int length) {
+        double[] signal = new double[length];
+        Random random = new Random(42);
+        for (int i = 0; i < length; i++) {
+            double phase = 2 * Math.PI * FUNDAMENTAL * i / SAMPLE_RATE;
+            switch (type) {
+                case "sine":
+                    signal[i] = 0.8 * Math.sin(phase);
+                    break;
+                case "harmonic":
+                    signal[i] = 0.4 * Math.sin(phase) + 0.25 * Math.sin(2 * phase)
+                            + 0.15 * Math.sin(3 * phase) + 0.1 * Math.sin(4 * phase);
+                    break;
+                case "noise":
+                    signal[i] = Math.max(-1, Math.min(1, 0.3 * random.nextGaussian()));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown signal type " + type);
+            }
+        }
+        return signal;
+    }
+
+    static float[] toFloat(double[] signal) {
+        float[] result = new float[signal.length];
+        for (int i = 0; i < signal.length; i++) {
+            result[i] = (float) signal[i];
+        }
+        return result;
+    }
+
+    static short[] toPcm16(double[] signal) {
+        short[] result = new short[signal.length];
+        for (int i = 0; i < signal.length; i++) {
+            result[i] = (short) Math.round(signal[i] * 32767);
+        }
+        return result;
+    }
+}
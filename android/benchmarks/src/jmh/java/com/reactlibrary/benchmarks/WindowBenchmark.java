@@ -0,0 +1,71 @@
+package com.reactlibrary.benchmarks;
+
+import com.reactlibrary.fequency_tools.windows.BlackmanHarrisWindow;
+import com.reactlibrary.fequency_tools.windows.CoefficientWindow;
+import com.reactlibrary.fequency_tools.windows.GaussianWindow;
+import com.reactlibrary.fequency_tools.windows.HammingWindow;
+import com.reactlibrary.fequency_tools.windows.HannWindow;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+public class WindowBenchmark {
+    @Param({"1024", "4096", "16384", "32768"})
+    public int size;
+
+    @Param({"hamming", "hann", "blackmanHarris", "gaussian"})
+    public String windowName;
+
+    private double[] input;
+    private float[] floatInput;
+    private short[] pcmInput;
+    private double[] output;
+    private float[] floatOutput;
+
+    private CoefficientWindow window;
+
+    @Setup
+    public void setUp() {
+        if ("hann".equals(windowName)) {
+            window = new HannWindow();
+        } else if ("blackmanHarris".equals(windowName)) {
+            window = new BlackmanHarrisWindow();
+        } else if ("gaussian".equals(windowName)) {
+            window = new GaussianWindow();
+        } else {
+            window = new HammingWindow();
+        }
+        input = Signals.generate("harmonic", size);
+        floatInput = Signals.toFloat(input);
+        pcmInput = Signals.toPcm16(input);
+        output = new double[size];
+        floatOutput = new float[size];
+    }
+
+    @Benchmark
+    public double[] allocating() {
+        return window.applyWindow(input);
+    }
+
+    @Benchmark
+    public double[] into() {
+        window.applyWindow(input, output, size);
+        return output;
+    }
+
+    @Benchmark
+    public float[] floatInto() {
+        window.applyWindow(floatInput, floatOutput, size);
+        return floatOutput;
+    }
+
+    @Benchmark
+    public float[] pcmInto() {
+        window.applyWindow(pcmInput, floatOutput, size);
+        return floatOutput;
+    }
+}
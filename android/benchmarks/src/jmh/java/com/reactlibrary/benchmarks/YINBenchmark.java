@@ -0,0 +1,77 @@
+package com.reactlibrary.benchmarks;
+
+import com.reactlibrary.fequency_tools.YINFrequencyDetector;
+import com.reactlibrary.fequency_tools.YINStreamingFrequencyDetector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+public class YINBenchmark {
+    // the brute-force difference function is O(N^2), larger frames take seconds per operation
+    @Param({"1024", "2048", "4096"})
+    public int size;
+
+    @Param({"sine", "harmonic", "noise"})
+    public String signal;
+
+    @Param({"256"})
+    public int hop;
+
+    private float[] input;
+    private float[] stream;
+    private int streamPosition;
+
+    private YINFrequencyDetector bruteForce;
+    private YINFrequencyDetector fft;
+    private YINStreamingFrequencyDetector streaming;
+
+    @Setup
+    public void setUp() {
+        input = Signals.toFloat(Signals.generate(signal, size));
+
+        bruteForce = createDetector(YINFrequencyDetector.DifferenceFunction.BRUTE_FORCE);
+        fft = createDetector(YINFrequencyDetector.DifferenceFunction.FFT);
+
+        stream = Signals.toFloat(Signals.generate(signal, size * 16));
+        streaming = new YINStreamingFrequencyDetector(size, hop);
+        streaming.setSampleRate(Signals.SAMPLE_RATE);
+        streaming.setThreshold(YINFrequencyDetector.DEFAULT_THRESHOLD);
+        streaming.addSamples(stream, 0, size);
+        streamPosition = size;
+    }
+
+    private static YINFrequencyDetector createDetector(YINFrequencyDetector.DifferenceFunction function) {
+        YINFrequencyDetector detector = new YINFrequencyDetector();
+        detector.setSampleRate(Signals.SAMPLE_RATE);
+        detector.setThreshold(YINFrequencyDetector.DEFAULT_THRESHOLD);
+        detector.setDifferenceFunction(function);
+        return detector;
+    }
+
+    @Benchmark
+    public float yinBruteForce() {
+        return bruteForce.findFrequency(input, size);
+    }
+
+    @Benchmark
+    public float yinFFT() {
+        return fft.findFrequency(input, size);
+    }
+
+    /**
+     * One hop of a sliding window of the same size, to compare with yinFFT.
+     */
+    @Benchmark
+    public float yinStreamingHop() {
+        if (streamPosition + hop > stream.length) {
+            streamPosition = 0;
+        }
+        float pitch = streaming.addSamples(stream, streamPosition, hop);
+        streamPosition += hop;
+        return pitch;
+    }
+}
@@ -1,86 +1,783 @@
 package com.reactlibrary;
 
-import android.media.AudioFormat;
-import android.media.AudioRecord;
-import android.media.MediaRecorder;
-
-import com.reactlibrary.fequency_tools.fft_utils.FFTCooleyTukey;
+import com.reactlibrary.audio_sources.AudioSource;
+import com.reactlibrary.auxiliary_types.ShortRingBuffer;
+import com.reactlibrary.fequency_tools.AdaptiveFrameSizer;
+import com.reactlibrary.fequency_tools.DetectorWorkspace;
+import com.reactlibrary.fequency_tools.EnergyGate;
+import com.reactlibrary.fequency_tools.EnsembleFrequencyDetector;
+import com.reactlibrary.fequency_tools.FeatureExtractor;
+import com.reactlibrary.fequency_tools.fft_utils.FloatFFTRealMixedRadix;
+import com.reactlibrary.fequency_tools.fft_utils.MixedRadixFFTPlan;
 import com.reactlibrary.fequency_tools.FFTFrequencyDetector;
+import com.reactlibrary.fequency_tools.GoertzelFrequencyDetector;
+import com.reactlibrary.fequency_tools.PitchTracker;
+import com.reactlibrary.fequency_tools.PolyphaseDecimator;
+import com.reactlibrary.fequency_tools.SampleBuffer;
+import com.reactlibrary.fequency_tools.SpectrumStreamer;
+import com.reactlibrary.fequency_tools.windows.FloatWindow;
 import com.reactlibrary.fequency_tools.windows.HammingWindow;
+import com.reactlibrary.instrumentation.PipelineMetrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Captures audio from an {@link AudioSource} on the thread running it and analyses it on a separate analysis thread.
+ * The threads are connected by a lock-free ring buffer, so capture goes on while a frame is analysed.
+ * Frames of windowSize samples are analysed every hopSize samples. When enabled, the captured samples are
+ * low-pass filtered and decimated first, down to the lowest sample rate still covering the detected frequency range,
+ * so the frames shrink by the decimation factor while spanning the same time.
+ * <p>
+ * Frames are transformed at their own length, see {@link FloatFFTRealMixedRadix}, which is cut down
+ * to the nearest length whose only prime factors are 2, 3 and 5, so no frame is zero-padded to a power of two.
+ */
 public class AudioProcessor implements Runnable {
-    private static final int SAMPLE_RATE = 22050;
     private static final int DEFAULT_BUFF_SIZE = 16384;
     private static final float ALLOWED_FREQUENCY_DIFFERENCE = 1;
+    private static final long ANALYSIS_WAIT_NANOS = 5000000;
+
+    public static final int SAMPLE_RATE = 22050;
+    public static final int DEFAULT_WINDOW_SIZE = DEFAULT_BUFF_SIZE;
+    public static final int DEFAULT_HOP_SIZE = 2048;
+    public static final int MIN_WINDOW_SIZE = 1024;
 
     public interface FrequencyDetectionListener {
         void onFrequencyDetected(double freq);
     }
 
-    private AudioRecord audioRecord;
+    public interface FrameAnalysisListener {
+        /**
+         * Called for every analysed frame, whether a frequency was found in it or not.
+         * @param frequency the detected frequency, 0 if there is none
+         * @param features the features of the frame, valid only during the call
+         */
+        void onFrameAnalysed(double frequency, FeatureExtractor features);
+    }
+
+    public interface TunerListener {
+        /**
+         * @param targetFrequency the closest target frequency
+         * @param centsOffset how far the input is from the target, in cents
+         * @param frequency the estimated input frequency
+         */
+        void onNoteDetected(double targetFrequency, double centsOffset, double frequency);
+    }
+
+    public interface ErrorListener {
+        /**
+         * Called from the capturing thread when the capture or the analysis failed, after the processor
+         * has stopped and released the source.
+         */
+        void onError(Exception error);
+    }
+
+    public interface CompletionListener {
+        /**
+         * Called from the capturing thread once the processor has finished: no listener is called after it,
+         * and the source has been released.
+         */
+        void onCompleted();
+    }
+
+    public interface PitchTrackListener {
+        /**
+         * Called for every analysed frame with the tracked pitch.
+         * @param frequency the tracked frequency, 0 if the frame is unvoiced
+         * @param confidence the confidence of the tracked frequency, in [0, 1]
+         */
+        void onPitchTracked(double frequency, double confidence);
+    }
+
+    public interface SilenceListener {
+        /**
+         * Called when frames stop passing the energy gate, i.e. the input falls silent,
+         * and when they pass it again.
+         */
+        void onSilenceChanged(boolean silent);
+    }
+
+    private AudioSource audioSource;
     private FrequencyDetectionListener frequencyDetectionListener = null;
+    private TunerListener tunerListener = null;
+    private GoertzelFrequencyDetector tuner = null;
+    private ErrorListener errorListener = null;
+    private CompletionListener completionListener = null;
     private double lastComputedFrequency = 1;
-    private int buffSize = 0;
-    private boolean stopFlag = false;
+    private double minFrequency = FFTFrequencyDetector.MIN_FREQUENCY;
+    private double maxFrequency = FFTFrequencyDetector.MAX_FREQUENCY;
+    private boolean decimationEnabled = false;
+    private PipelineMetrics metrics = null;
+    private FeatureExtractor featureExtractor = null;
+    private FrameAnalysisListener frameAnalysisListener = null;
+    private EnergyGate energyGate = null;
+    private SilenceListener silenceListener = null;
+    private boolean silent = false;
+    private int minWindowSize = 0;
+    private PitchTracker pitchTracker = null;
+    private PitchTrackListener pitchTrackListener = null;
+    private boolean ensembleEnabled = false;
+    private boolean directCapture = false;
+    private FloatWindow window = new HammingWindow();
+    private SpectrumStreamer spectrumStreamer = null;
+    private int windowSize = DEFAULT_WINDOW_SIZE;
+    private int hopSize = DEFAULT_HOP_SIZE;
+    private ShortRingBuffer ringBuffer;
+    private volatile Thread analysisThread;
+    private volatile Thread captureThread;
+    private volatile boolean stopFlag = false;
+    private volatile boolean paused = false;
+    private volatile boolean captureSuspended = false;  /** Until the analysis drops the samples from before a pause */
+    private volatile boolean captureFinished = false;
+    private volatile Exception error = null;
 
 
     public void setFrequencyDetectionListener(FrequencyDetectionListener frequencyDetectionListener) {
         this.frequencyDetectionListener = frequencyDetectionListener;
     }
 
-    public void init() {
-        int minBufSize = AudioRecord.getMinBufferSize(SAMPLE_RATE, AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT);
-        if (minBufSize != AudioRecord.ERROR_BAD_VALUE && minBufSize != AudioRecord.ERROR) {
-            audioRecord = new AudioRecord(MediaRecorder.AudioSource.MIC, SAMPLE_RATE, AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT, Math.max(DEFAULT_BUFF_SIZE, minBufSize * 4));
-            this.buffSize = Math.max(DEFAULT_BUFF_SIZE, minBufSize * 4);
+    public void setErrorListener(ErrorListener errorListener) {
+        this.errorListener = errorListener;
+    }
+
+    public void setCompletionListener(CompletionListener completionListener) {
+        this.completionListener = completionListener;
+    }
+
+    /**
+     * Switches the analysis to tuner mode: instead of running the FFT detector over frames, captured
+     * samples are fed as they arrive into the given {@link GoertzelFrequencyDetector}, which reports
+     * to the listener after every block. Its sample rate has to be the one of the source.
+     */
+    public void setTuner(GoertzelFrequencyDetector tuner, TunerListener tunerListener) {
+        this.tuner = tuner;
+        this.tunerListener = tunerListener;
+        checkTuner();
+    }
+
+    /**
+     * Sets the range of detected frequencies, which also decides the decimation factor.
+     */
+    public void setFrequencyRange(double minFrequency, double maxFrequency) {
+        if (minFrequency <= 0 || maxFrequency <= minFrequency) {
+            throw new IllegalArgumentException("The value of the frequency range is invalid!");
+        }
+        this.minFrequency = minFrequency;
+        this.maxFrequency = maxFrequency;
+    }
+
+    /**
+     * Makes the processor decimate the captured samples before analysis, see {@link PolyphaseDecimator}.
+     * Off by default.
+     */
+    public void setDecimationEnabled(boolean decimationEnabled) {
+        this.decimationEnabled = decimationEnabled;
+    }
+
+    /**
+     * Makes the processor run the YIN detector next to the FFT detector on a worker thread and report
+     * their fused estimate and confidence; see {@link EnsembleFrequencyDetector}. Off by default.
+     */
+    public void setEnsembleEnabled(boolean ensembleEnabled) {
+        this.ensembleEnabled = ensembleEnabled;
+    }
+
+    /**
+     * Sets the window applied to every frame before its transform, a {@link HammingWindow} by default.
+     */
+    public void setWindow(FloatWindow window) {
+        if (window == null) {
+            throw new IllegalArgumentException("The value of window can not be null!");
+        }
+        this.window = window;
+    }
+
+    /**
+     * Makes the capture read into a preallocated direct buffer in native byte order instead of an array,
+     * see {@link AudioSource#read(ByteBuffer, int)}, and move the samples into the ring buffer with one bulk copy.
+     * Off by default.
+     */
+    public void setDirectCapture(boolean directCapture) {
+        this.directCapture = directCapture;
+    }
+
+    /**
+     * Makes the processor publish the spectrum and samples of every analysed frame to the given streamer,
+     * or publish nothing when null. Like features, the spectrum ends at half of the decimated sample rate when
+     * decimation is enabled. Frames the energy gate holds back are not published, and tuner mode publishes nothing.
+     */
+    public void setSpectrumStreamer(SpectrumStreamer spectrumStreamer) {
+        this.spectrumStreamer = spectrumStreamer;
+    }
+
+    /**
+     * Makes the processor record the latency of every stage and counts of the frames into the given metrics,
+     * or record nothing when null. Has to be called before {@link #run()}.
+     */
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Makes the processor extract features from the spectrum of every frame and report them together with
+     * the detected frequency to the given listener, instead of reporting frequencies to the
+     * {@link FrequencyDetectionListener}. Spectral features cover the analysed band, so they end at half of
+     * the decimated sample rate when decimation is enabled.
+     */
+    public void setFeatureExtraction(FeatureExtractor featureExtractor, FrameAnalysisListener frameAnalysisListener) {
+        this.featureExtractor = featureExtractor;
+        this.frameAnalysisListener = frameAnalysisListener;
+    }
+
+    /**
+     * Makes the processor pass every frame through the given gate before analysing it, or analyse all frames
+     * when null. Frames the gate holds back skip the detector and feature extraction entirely and are not reported;
+     * the listener is told instead when the input falls silent and when it becomes audible again.
+     * Tuner mode does not use the gate.
+     */
+    public void setEnergyGate(EnergyGate energyGate, SilenceListener silenceListener) {
+        if (energyGate != null && silenceListener == null) {
+            throw new IllegalArgumentException("The value of silenceListener can not be null!");
         }
+        this.energyGate = energyGate;
+        this.silenceListener = silenceListener;
     }
 
+    /**
+     * Makes the analysed frames shrink for higher notes, down to minWindowSize samples, and grow back up to
+     * the window size given to init when the pitch gets lower or is lost; see {@link AdaptiveFrameSizer}.
+     * A frame of the chosen length ends at the same sample a full window would. 0 keeps the window size fixed.
+     */
+    public void setAdaptiveWindow(int minWindowSize) {
+        if (minWindowSize != 0 && minWindowSize < MIN_WINDOW_SIZE) {
+            throw new IllegalArgumentException("The value of minWindowSize is invalid!");
+        }
+        this.minWindowSize = minWindowSize;
+    }
+
+    /**
+     * Makes the processor follow the pitch across frames with the given tracker, or not when null. The tracked
+     * pitch of every frame is reported, instead of only the frequencies two consecutive frames agree on,
+     * to the given listener together with its confidence, or to the {@link FrequencyDetectionListener}
+     * when the listener is null. With feature extraction the tracked pitch goes to the
+     * {@link FrameAnalysisListener} instead.
+     */
+    public void setPitchTracker(PitchTracker pitchTracker, PitchTrackListener pitchTrackListener) {
+        this.pitchTracker = pitchTracker;
+        this.pitchTrackListener = pitchTrackListener;
+    }
+
+    /**
+     * Initialises the processor to capture from the given source, which is released once the processor has finished.
+     * @param windowSize amount of samples analysed at once
+     * @param hopSize amount of samples between the starts of two analysed frames, in [1, windowSize]
+     */
+    public void init(AudioSource audioSource, int windowSize, int hopSize) {
+        if (audioSource == null) {
+            throw new IllegalArgumentException("The value of audioSource can not be null!");
+        }
+        checkSizes(windowSize, hopSize);
+        this.windowSize = windowSize;
+        this.hopSize = hopSize;
+        this.audioSource = audioSource;
+        this.ringBuffer = new ShortRingBuffer(windowSize * 2);
+        checkTuner();
+    }
+
+    private void checkTuner() {
+        if (tuner != null && audioSource != null && tuner.getSampleRate() != audioSource.getSampleRate()) {
+            throw new IllegalArgumentException("The sample rate of the tuner does not match the one of the source!");
+        }
+    }
+
+    private static void checkSizes(int windowSize, int hopSize) {
+        if (windowSize < MIN_WINDOW_SIZE) {
+            throw new IllegalArgumentException("The value of windowSize is invalid!");
+        }
+        if (hopSize < 1 || hopSize > windowSize) {
+            throw new IllegalArgumentException("The value of hopSize is invalid!");
+        }
+    }
+
+    /**
+     * Makes the processor finish. Can be called from any thread: a pending read of the source is cut short, and
+     * the source is released by the capturing thread once both threads are done with it.
+     */
     public void stop() {
         stopFlag = true;
-        audioRecord.stop();
-        audioRecord.release();
+        audioSource.stop();
+        LockSupport.unpark(captureThread);
+        LockSupport.unpark(analysisThread);
+    }
+
+    /**
+     * Pauses the capture without tearing the session down: the source is stopped, but the threads, the workspaces
+     * and the settings are kept, so {@link #resume()} only has to restart the source. The samples captured before
+     * the pause are dropped, together with the state built from them such as the tracked pitch, so the first frame
+     * after resuming holds fresh samples only. Tuner mode is paused the same way.
+     */
+    public void pause() {
+        paused = true;
+    }
+
+    public void resume() {
+        paused = false;
+        LockSupport.unpark(captureThread);
+    }
+
+    public boolean isPaused() {
+        return paused;
     }
 
     @Override
     public void run() {
-        audioRecord.startRecording();
-        final int sampleRate = audioRecord.getSampleRate();
-        short[] buffer = new short[this.buffSize];
+        captureThread = Thread.currentThread();
+        final int sampleRate = audioSource.getSampleRate();
+        analysisThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    analyse(sampleRate);
+                } catch (RuntimeException e) {
+                    // the capture would wait for the analysis forever
+                    error = e;
+                    stop();
+                }
+            }
+        }, "AudioProcessor-analysis");
+        analysisThread.start();
+
+        short[] captureBuffer = directCapture ? null : new short[this.hopSize];
+        ByteBuffer directBuffer = directCapture
+                ? ByteBuffer.allocateDirect(this.hopSize * 2).order(ByteOrder.nativeOrder()) : null;
+        ShortBuffer directSamples = directCapture ? directBuffer.asShortBuffer() : null;
+        try {
+            if (!stopFlag) {
+                audioSource.start();
+            }
+            while (!stopFlag) {
+                if (paused) {
+                    suspendCapture();
+                    continue;
+                }
+                long readStart = metrics != null ? System.nanoTime() : 0;
+                final int read = directCapture
+                        ? audioSource.read(directBuffer, this.hopSize)
+                        : audioSource.read(captureBuffer, 0, captureBuffer.length);
+                if (metrics != null) {
+                    metrics.record(PipelineMetrics.Stage.CAPTURE_READ, readStart);
+                }
+                if (read == AudioSource.END_OF_STREAM) {
+                    break;
+                }
+                if (directCapture) {
+                    directSamples.clear();
+                }
+                for (int written = 0; written < read && !stopFlag; ) {
+                    written += directCapture
+                            ? ringBuffer.write(directSamples, read - written)
+                            : ringBuffer.write(captureBuffer, written, read - written);
+                    LockSupport.unpark(analysisThread);
+                    if (written < read) {
+                        LockSupport.parkNanos(this, ANALYSIS_WAIT_NANOS);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            error = e;
+            stopFlag = true;
+        }
+
+        // the analysis goes on until the captured samples are used up
+        captureFinished = true;
+
+        LockSupport.unpark(analysisThread);
+        try {
+            analysisThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        audioSource.stop();
+        audioSource.release();
+        if (error != null && errorListener != null) {
+            errorListener.onError(error);
+        }
+        if (completionListener != null) {
+            completionListener.onCompleted();
+        }
+    }
+
+    /**
+     * Stops the source for a pause and waits until the processor is resumed or stopped. The source is only
+     * restarted once the analysis dropped the samples captured before the pause, so they are never followed
+     * by the ones captured after it.
+     */
+    private void suspendCapture() throws IOException {
+        audioSource.stop();
+        captureSuspended = true;
+        LockSupport.unpark(analysisThread);
+        while ((paused || captureSuspended) && !stopFlag) {
+            LockSupport.park(this);
+        }
+        if (!stopFlag) {
+            audioSource.start();
+        }
+    }
+
+    /**
+     * Called by the analysis once the capture is suspended. Drops the samples captured before the pause and
+     * the state built from them, and lets the capture go on.
+     */
+    private void dropSamplesBeforePause() {
+        ringBuffer.skip(ringBuffer.available());
+        if (featureExtractor != null) {
+            featureExtractor.reset();
+        }
+        if (pitchTracker != null) {
+            pitchTracker.reset();
+        }
+        captureSuspended = false;
+        LockSupport.unpark(captureThread);
+    }
+
+    /**
+     * Waits for the capture to write more samples. While paused that may take any time, so the analysis
+     * does not wake up periodically; the capture wakes it once it wrote samples, or suspended, or was stopped.
+     */
+    private void awaitSamples() {
+        if (paused) {
+            LockSupport.park(this);
+        } else {
+            LockSupport.parkNanos(this, ANALYSIS_WAIT_NANOS);
+        }
+    }
+
+    private void analyse(int sampleRate) {
+        if (tuner != null) {
+            analyseTuner();
+            return;
+        }
+
         FFTFrequencyDetector detector = new FFTFrequencyDetector();
+        detector.setMetrics(metrics);
+        detector.setCandidatesCollected(pitchTracker != null);
+        EnsembleFrequencyDetector ensemble = ensembleEnabled ? new EnsembleFrequencyDetector(detector) : null;
+        try {
+            int decimationFactor = decimationEnabled ? PolyphaseDecimator.factorFor(sampleRate, maxFrequency) : 1;
+            if (decimationFactor > 1) {
+                analyseDecimated(new PolyphaseDecimator(sampleRate, decimationFactor, maxFrequency), detector,
+                        ensemble);
+            } else {
+                analyseFullRate(sampleRate, detector, ensemble);
+            }
+        } finally {
+            if (ensemble != null) {
+                ensemble.close();
+            }
+        }
+    }
+
+    /**
+     * Analyses the captured samples at their own rate. With an ensemble the frame is converted once
+     * into a sample buffer both of its detectors share.
+     */
+    private void analyseFullRate(int sampleRate, FFTFrequencyDetector detector, EnsembleFrequencyDetector ensemble) {
+        int maxFrameSize = MixedRadixFFTPlan.fastSizeAtMost(windowSize);
+        short[] frame = new short[maxFrameSize];
+        SampleBuffer sharedFrame = ensemble != null ? new SampleBuffer(maxFrameSize, sampleRate) : null;
+        FloatFFTRealMixedRadix fft = new FloatFFTRealMixedRadix();
+        DetectorWorkspace workspace = new DetectorWorkspace(maxFrameSize, fft);
+        double hopSeconds = (double) hopSize / sampleRate;
+        AdaptiveFrameSizer frameSizer = minWindowSize == 0 ? null : new AdaptiveFrameSizer(
+                MixedRadixFFTPlan.fastSizeAtMost(Math.min(minWindowSize, windowSize)), maxFrameSize,
+                sampleRate, minFrequency);
 
-        do {
-            final int read = audioRecord.read(buffer, 0, this.buffSize);
-            if (read > 0) {
-                double[] doubleBuff = shortToDouble(buffer, read);
-                double frequency = detector.findFrequency(
-                        doubleBuff,
+        while (!stopFlag) {
+            if (captureSuspended) {
+                dropSamplesBeforePause();
+                continue;
+            }
+            int available = ringBuffer.available();
+            if (available < windowSize) {
+                if (captureFinished) {
+                    if (ringBuffer.available() < windowSize) {
+                        break;
+                    }
+                    continue;
+                }
+                awaitSamples();
+                continue;
+            }
+            if (available > ringBuffer.getCapacity() - hopSize) {
+                // the analysis fell behind the capture, jump to the latest window
+                // before the ring buffer overflows
+                ringBuffer.skip(available - windowSize);
+                if (metrics != null) {
+                    metrics.add(PipelineMetrics.Counter.FRAMES_DROPPED, (available - windowSize) / hopSize);
+                }
+                if (featureExtractor != null) {
+                    featureExtractor.reset();
+                }
+                if (pitchTracker != null) {
+                    pitchTracker.reset();
+                }
+            }
+
+            // the newest frameSize samples of the window
+            int frameSize = frameSizer != null ? frameSizer.getSize() : maxFrameSize;
+            ringBuffer.peek(windowSize - frameSize, frame, 0, frameSize);
+            if (energyGate != null && !passesGate(EnergyGate.meanSquare(frame, frameSize), hopSeconds)) {
+                ringBuffer.skip(hopSize);
+                continue;
+            }
+            double frequency;
+            if (ensemble != null) {
+                sharedFrame.setFromPcm16(frame, 0, frameSize);
+                frequency = ensemble.findFrequency(sharedFrame, minFrequency, maxFrequency, fft, window, workspace);
+            } else {
+                frequency = detector.findFrequency(
+                        frame,
+                        frameSize,
                         sampleRate,
-                        FFTFrequencyDetector.MIN_FREQUENCY,
-                        FFTFrequencyDetector.MAX_FREQUENCY,
-                        new FFTCooleyTukey(),
-                        new HammingWindow()
+                        minFrequency,
+                        maxFrequency,
+                        fft,
+                        window,
+                        workspace
                 );
-                if ((Math.abs(frequency - lastComputedFrequency) <= ALLOWED_FREQUENCY_DIFFERENCE)) {
-                    frequencyDetectionListener.onFrequencyDetected(frequency);
+            }
+            ringBuffer.skip(hopSize);
+
+            if (featureExtractor != null) {
+                long featuresStart = metrics != null ? System.nanoTime() : 0;
+                featureExtractor.extract(frame, frameSize, workspace.getFloatSpectrogram(),
+                        fft.getSpectrogramLength(frameSize), sampleRate);
+                if (metrics != null) {
+                    metrics.record(PipelineMetrics.Stage.FEATURES, featuresStart);
                 }
-                lastComputedFrequency = frequency;
             }
-        } while (!stopFlag);
+            double confidence = workspace.getConfidence();
+            if (pitchTracker != null) {
+                frequency = pitchTracker.update(workspace.getCandidateFrequencies(),
+                        workspace.getCandidateConfidences(), workspace.getCandidateCount());
+                confidence = pitchTracker.getConfidence();
+            }
+            if (frameSizer != null) {
+                frameSizer.update(frequency, confidence);
+            }
+            if (spectrumStreamer != null) {
+                spectrumStreamer.publish(frame, frameSize, workspace.getFloatSpectrogram(),
+                        fft.getSpectrogramLength(frameSize), sampleRate, frequency);
+            }
+            report(frequency, confidence);
+        }
     }
 
-    private double[] shortToDouble(short[] source, int length) {
-        length = (length > source.length) ? source.length : length;
+    /**
+     * Decimates every hop as it is taken from the ring buffer and keeps the latest windowSize / factor
+     * decimated samples, cut down to a fast transform length, as the frame, so each captured sample is filtered
+     * only once.
+     */
+    private void analyseDecimated(PolyphaseDecimator decimator, FFTFrequencyDetector detector,
+                                  EnsembleFrequencyDetector ensemble) {
+        int frameSize = MixedRadixFFTPlan.fastSizeAtMost(windowSize / decimator.getFactor());
+        short[] chunk = new short[this.hopSize];
+        float[] decimated = new float[decimator.getMaxOutputLength(this.hopSize)];
+        SampleBuffer frame = new SampleBuffer(frameSize, decimator.getOutputSampleRate());
+        float[] frameSamples = frame.getSamples();
+        FloatFFTRealMixedRadix fft = new FloatFFTRealMixedRadix();
+        DetectorWorkspace workspace = new DetectorWorkspace(frameSize, fft);
+        double hopSeconds = (double) hopSize / decimator.getInputSampleRate();
+        AdaptiveFrameSizer frameSizer = null;
+        SampleBuffer frameTail = null;
+        if (minWindowSize != 0) {
+            int minFrameSize = MixedRadixFFTPlan.fastSizeAtMost(
+                    Math.min(minWindowSize, windowSize) / decimator.getFactor());
+            frameSizer = new AdaptiveFrameSizer(minFrameSize, frameSize, decimator.getOutputSampleRate(), minFrequency);
+            frameTail = new SampleBuffer(frameSize, decimator.getOutputSampleRate());
+        }
+        int filled = 0;
 
-        double[] resultArray = new double[length];
+        while (!stopFlag) {
+            if (captureSuspended) {
+                dropSamplesBeforePause();
+                decimator.reset();
+                filled = 0;
+                continue;
+            }
+            int available = ringBuffer.available();
+            if (available < hopSize) {
+                if (captureFinished) {
+                    if (ringBuffer.available() < hopSize) {
+                        break;
+                    }
+                    continue;
+                }
+                awaitSamples();
+                continue;
+            }
+            if (available > ringBuffer.getCapacity() - hopSize) {
+                // the analysis fell behind the capture, jump to the latest window and start the frame over
+                ringBuffer.skip(available - windowSize);
+                if (metrics != null) {
+                    metrics.add(PipelineMetrics.Counter.FRAMES_DROPPED, (available - windowSize) / hopSize);
+                }
+                if (featureExtractor != null) {
+                    featureExtractor.reset();
+                }
+                if (pitchTracker != null) {
+                    pitchTracker.reset();
+                }
+                decimator.reset();
+                filled = 0;
+            }
+
+            ringBuffer.read(chunk, 0, hopSize);
+            long decimationStart = metrics != null ? System.nanoTime() : 0;
+            int count = decimator.process(chunk, 0, hopSize, decimated, 0);
+            if (metrics != null) {
+                metrics.record(PipelineMetrics.Stage.DECIMATION, decimationStart);
+            }
+
+            // slide the frame by the new samples
+            int kept = Math.min(filled, frameSize - Math.min(count, frameSize));
+            System.arraycopy(frameSamples, filled - kept, frameSamples, 0, kept);
+            int added = Math.min(count, frameSize);
+            System.arraycopy(decimated, count - added, frameSamples, kept, added);
+            filled = kept + added;
+
+            if (filled == frameSize && (energyGate == null
+                    || passesGate(EnergyGate.meanSquare(frameSamples, filled), hopSeconds))) {
+                frame.setLength(filled);
+                SampleBuffer analysed = frame;
+                if (frameSizer != null && frameSizer.getSize() < filled) {
+                    frameTail.setFromFloat(frameSamples, filled - frameSizer.getSize(), frameSizer.getSize());
+                    analysed = frameTail;
+                }
+                double frequency = ensemble != null
+                        ? ensemble.findFrequency(analysed, minFrequency, maxFrequency, fft, window, workspace)
+                        : detector.findFrequency(analysed, minFrequency, maxFrequency, fft, window, workspace);
+                if (featureExtractor != null) {
+                    long featuresStart = metrics != null ? System.nanoTime() : 0;
+                    featureExtractor.extract(analysed.getSamples(), analysed.getLength(),
+                            workspace.getFloatSpectrogram(), fft.getSpectrogramLength(analysed.getLength()),
+                            analysed.getSampleRate());
+                    if (metrics != null) {
+                        metrics.record(PipelineMetrics.Stage.FEATURES, featuresStart);
+                    }
+                }
+                double confidence = workspace.getConfidence();
+                if (pitchTracker != null) {
+                    frequency = pitchTracker.update(workspace.getCandidateFrequencies(),
+                            workspace.getCandidateConfidences(), workspace.getCandidateCount());
+                    confidence = pitchTracker.getConfidence();
+                }
+                if (frameSizer != null) {
+                    frameSizer.update(frequency, confidence);
+                }
+                if (spectrumStreamer != null) {
+                    spectrumStreamer.publish(analysed.getSamples(), analysed.getLength(),
+                            workspace.getFloatSpectrogram(), fft.getSpectrogramLength(analysed.getLength()),
+                            analysed.getSampleRate(), frequency);
+                }
+                report(frequency, confidence);
+            }
+        }
+    }
+
+    /**
+     * Feeds the energy of a frame to the gate and tells the listener when the silence state changes.
+     * @return whether the frame has to be analysed
+     */
+    private boolean passesGate(double meanSquare, double frameSeconds) {
+        boolean open = energyGate.update(meanSquare, frameSeconds);
+        if (open == silent) {
+            silent = !open;
+            silenceListener.onSilenceChanged(silent);
+        }
+        if (!open) {
+            if (metrics != null) {
+                metrics.increment(PipelineMetrics.Counter.FRAMES_GATED);
+            }
+            if (featureExtractor != null) {
+                // the flux is not meaningful across the gap
+                featureExtractor.reset();
+            }
+            if (pitchTracker != null) {
+                pitchTracker.reset();
+            }
+        }
+        return open;
+    }
+
+    private void report(double frequency, double confidence) {
+        if (metrics != null) {
+            metrics.increment(PipelineMetrics.Counter.FRAMES_ANALYSED);
+            if (frequency == 0) {
+                metrics.increment(PipelineMetrics.Counter.FRAMES_REJECTED);
+            }
+        }
 
-        for(int i = 0; i < length; i++) {
-            // The nominal range of ENCODING_PCM_FLOAT audio data is [-1.0, 1.0], but here we use
-            // ENCODING_PCM_16BIT, because ENCODING_PCM_FLOAT is supported only in API LOLLIPOP+ and higher
-            // so to work with float values, extended to double, we need to divide it
-            // by max 16-bit integer value
-            resultArray[i] = source[i] / 32768.0F;
+        // the features change with every frame and the tracker already smooths the pitch,
+        // so only plain detections are filtered
+        boolean filtered = featureExtractor == null && pitchTracker == null
+                && Math.abs(frequency - lastComputedFrequency) > ALLOWED_FREQUENCY_DIFFERENCE;
+        lastComputedFrequency = frequency;
+        if (filtered) {
+            if (metrics != null) {
+                metrics.increment(PipelineMetrics.Counter.FRAMES_FILTERED);
+            }
+            return;
+        }
+
+        long emissionStart = metrics != null ? System.nanoTime() : 0;
+        if (featureExtractor != null) {
+            frameAnalysisListener.onFrameAnalysed(frequency, featureExtractor);
+        } else if (pitchTrackListener != null) {
+            pitchTrackListener.onPitchTracked(frequency, confidence);
+        } else {
+            frequencyDetectionListener.onFrequencyDetected(frequency);
+        }
+        if (metrics != null) {
+            metrics.record(PipelineMetrics.Stage.EMISSION, emissionStart);
+            metrics.increment(PipelineMetrics.Counter.EVENTS_EMITTED);
+        }
+    }
+
+    private void analyseTuner() {
+        tuner.reset();
+        short[] chunk = new short[this.hopSize];
+
+        while (!stopFlag) {
+            if (captureSuspended) {
+                dropSamplesBeforePause();
+                tuner.reset();
+                continue;
+            }
+            int read = ringBuffer.read(chunk, 0, chunk.length);
+            if (read == 0) {
+                if (captureFinished && ringBuffer.available() == 0) {
+                    break;
+                }
+                awaitSamples();
+                continue;
+            }
+
+            for (int consumed = 0; consumed < read; ) {
+                consumed += tuner.process(chunk, consumed, read - consumed);
+                if (tuner.isResultReady() && tuner.getStrongestTarget() >= 0) {
+                    long emissionStart = metrics != null ? System.nanoTime() : 0;
+                    tunerListener.onNoteDetected(tuner.getTargetFrequency(), tuner.getCentsOffset(),
+                            tuner.getEstimatedFrequency());
+                    if (metrics != null) {
+                        metrics.record(PipelineMetrics.Stage.EMISSION, emissionStart);
+                        metrics.increment(PipelineMetrics.Counter.EVENTS_EMITTED);
+                    }
+                }
+            }
         }
-        return resultArray;
     }
 }
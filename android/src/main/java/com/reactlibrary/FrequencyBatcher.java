@@ -0,0 +1,105 @@
+package com.reactlibrary;
+
+/**
+ * Coalesces detected frequencies into batches, so that the JS bridge gets one event per batch
+ * instead of one per analysed frame. A batch is flushed when it is full or when the flush interval
+ * has passed since the previous flush. Optionally a frequency is only queued when it differs
+ * from the previously queued one by at least minFrequencyChange.
+ * Detections are added from the analysis thread, while time based flushes may come from a timer thread.
+ */
+public class FrequencyBatcher {
+    public interface BatchListener {
+        /**
+         * Receives the queued detections. The arrays are reused after the call returns.
+         */
+        void onBatch(long[] timestamps, double[] frequencies, int count);
+    }
+
+    private final BatchListener listener;
+    private final long flushIntervalMillis;
+    private final double minFrequencyChange;
+    private final long[] timestamps;
+    private final double[] frequencies;
+    private int count = 0;
+    private long lastFlushMillis = Long.MIN_VALUE;
+    private double lastQueuedFrequency = Double.NaN;
+    private boolean closed = false;
+
+    /**
+     * @param flushIntervalMillis minimal time between two flushes, limits the event rate
+     * @param maxBatchSize amount of detections that triggers a flush regardless of the interval
+     * @param minFrequencyChange smallest change of frequency worth sending, 0 to send every detection
+     */
+    public FrequencyBatcher(BatchListener listener, long flushIntervalMillis, int maxBatchSize, double minFrequencyChange) {
+        if (listener == null) {
+            throw new IllegalArgumentException("The value of listener can not be null!");
+        }
+        if (flushIntervalMillis < 0) {
+            throw new IllegalArgumentException("The value of flushIntervalMillis is invalid!");
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("The value of maxBatchSize is invalid!");
+        }
+        if (minFrequencyChange < 0) {
+            throw new IllegalArgumentException("The value of minFrequencyChange is invalid!");
+        }
+        this.listener = listener;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.minFrequencyChange = minFrequencyChange;
+        this.timestamps = new long[maxBatchSize];
+        this.frequencies = new double[maxBatchSize];
+    }
+
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    public synchronized void add(long timestampMillis, double frequency) {
+        if (closed) {
+            return;
+        }
+        if (minFrequencyChange > 0 && Math.abs(frequency - lastQueuedFrequency) < minFrequencyChange) {
+            return;
+        }
+        lastQueuedFrequency = frequency;
+
+        timestamps[count] = timestampMillis;
+        frequencies[count] = frequency;
+        count++;
+
+        if (count == timestamps.length) {
+            flush(timestampMillis);
+        } else {
+            flushIfDue(timestampMillis);
+        }
+    }
+
+    /**
+     * Flushes the queued detections if the flush interval has passed since the previous flush.
+     */
+    public synchronized void flushIfDue(long nowMillis) {
+        if (count > 0 && (lastFlushMillis == Long.MIN_VALUE || nowMillis - lastFlushMillis >= flushIntervalMillis)) {
+            flush(nowMillis);
+        }
+    }
+
+    /**
+     * Flushes the queued detections, if any, regardless of the interval.
+     */
+    public synchronized void flush(long nowMillis) {
+        if (count == 0) {
+            return;
+        }
+        listener.onBatch(timestamps, frequencies, count);
+        count = 0;
+        lastFlushMillis = nowMillis;
+    }
+
+    /**
+     * Drops the queued detections and makes the batcher ignore any added later, for when nobody listens anymore.
+     */
+    public synchronized void close() {
+        closed = true;
+        count = 0;
+    }
+}
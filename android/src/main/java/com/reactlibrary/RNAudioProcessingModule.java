@@ -3,28 +3,98 @@ package com.reactlibrary;
 import javax.annotation.Nullable;
 
 import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.bridge.ReactMethod;
 
 import com.facebook.react.modules.core.DeviceEventManagerModule;
 
+import com.reactlibrary.audio_sources.AudioSource;
+import com.reactlibrary.audio_sources.MicrophoneAudioSource;
+import com.reactlibrary.audio_sources.WavAudioSource;
+import com.reactlibrary.fequency_tools.EnergyGate;
+import com.reactlibrary.fequency_tools.FFTFrequencyDetector;
+import com.reactlibrary.fequency_tools.FeatureExtractor;
+import com.reactlibrary.fequency_tools.GoertzelFrequencyDetector;
+import com.reactlibrary.fequency_tools.PitchTracker;
+import com.reactlibrary.fequency_tools.SpectrumStreamer;
+import com.reactlibrary.fequency_tools.windows.BlackmanHarrisWindow;
+import com.reactlibrary.fequency_tools.windows.FloatWindow;
+import com.reactlibrary.fequency_tools.windows.GaussianWindow;
+import com.reactlibrary.fequency_tools.windows.HammingWindow;
+import com.reactlibrary.fequency_tools.windows.HannWindow;
+import com.reactlibrary.instrumentation.PipelineMetrics;
+import com.reactlibrary.offline_analysis.OfflinePitchAnalyzer;
+import com.reactlibrary.offline_analysis.PitchTrack;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 public class RNAudioProcessingModule extends ReactContextBaseJavaModule {
     private static final String FREQUENCY_DETECTED_EVENT_NAME = "FrequencyDetected";
+    private static final String FREQUENCIES_DETECTED_EVENT_NAME = "FrequenciesDetected";
+    private static final String NOTE_DETECTED_EVENT_NAME = "NoteDetected";
+    private static final String FRAME_ANALYSED_EVENT_NAME = "FrameAnalysed";
+    private static final String SILENCE_CHANGED_EVENT_NAME = "SilenceChanged";
+    private static final String PROCESSING_FAILED_EVENT_NAME = "ProcessingFailed";
     private static final String TAG = "RNAudioProcessingModule";
+    private static final String WINDOW_SIZE_OPTION = "windowSize";
+    private static final String HOP_SIZE_OPTION = "hopSize";
+    private static final String BATCH_INTERVAL_OPTION = "batchInterval";
+    private static final String MAX_BATCH_SIZE_OPTION = "maxBatchSize";
+    private static final String MIN_FREQUENCY_CHANGE_OPTION = "minFrequencyChange";
+    private static final int DEFAULT_MAX_BATCH_SIZE = 32;
+    private static final String TUNER_OPTION = "tuner";
+    private static final String TUNER_FREQUENCIES_OPTION = "tunerFrequencies";
+    private static final String TUNER_BLOCK_SIZE_OPTION = "tunerBlockSize";
+    private static final String DECIMATE_OPTION = "decimate";
+    private static final String MIN_FREQUENCY_OPTION = "minFrequency";
+    private static final String MAX_FREQUENCY_OPTION = "maxFrequency";
+    private static final String METRICS_OPTION = "metrics";
+    private static final String FEATURES_OPTION = "features";
+    private static final String SPECTRUM_BANDS_OPTION = "spectrumBands";
+    private static final String SILENCE_GATE_OPTION = "silenceGate";
+    private static final String MIN_WINDOW_SIZE_OPTION = "minWindowSize";
+    private static final String TRACKING_OPTION = "tracking";
+    private static final String ENSEMBLE_OPTION = "ensemble";
+    private static final String DIRECT_CAPTURE_OPTION = "directCapture";
+    private static final String WINDOW_OPTION = "window";
+    private static final String STREAM_OPTION = "stream";
+    private static final String STREAM_BINS_OPTION = "streamBins";
+    private static final String STREAM_LOG_BINS_OPTION = "streamLogBins";
+    private static final String STREAM_DECIMATION_OPTION = "streamDecimation";
+    private static final String ANALYSIS_ERROR_CODE = "E_ANALYSIS_FAILED";
+    private static final String INVALID_OPTIONS_ERROR_CODE = "E_INVALID_OPTIONS";
+    private static final String CAPTURE_ERROR_CODE = "E_CAPTURE_FAILED";
 
     private final ReactApplicationContext reactContext;
 
     private AudioProcessor audioProcessor;
     private boolean isProcessing = false;
     private ExecutorService executor = Executors.newSingleThreadExecutor();
+    private ExecutorService offlineExecutor = Executors.newSingleThreadExecutor();
+    private ForkJoinPool offlinePool = new ForkJoinPool();
+    private ScheduledExecutorService batchFlushScheduler = Executors.newSingleThreadScheduledExecutor();
+    private FrequencyBatcher frequencyBatcher;
+    private PipelineMetrics metrics;
+    private SpectrumStreamer spectrumStreamer;
 
     public RNAudioProcessingModule(ReactApplicationContext reactContext) {
         super(reactContext);
@@ -35,6 +105,13 @@ public class RNAudioProcessingModule extends ReactContextBaseJavaModule {
     public Map<String, Object> getConstants() {
         final Map<String, Object> constants = new HashMap<>();
         constants.put("FREQUENCY_DETECTED_EVENT_NAME", RNAudioProcessingModule.FREQUENCY_DETECTED_EVENT_NAME);
+        constants.put("FREQUENCIES_DETECTED_EVENT_NAME", RNAudioProcessingModule.FREQUENCIES_DETECTED_EVENT_NAME);
+        constants.put("NOTE_DETECTED_EVENT_NAME", RNAudioProcessingModule.NOTE_DETECTED_EVENT_NAME);
+        constants.put("FRAME_ANALYSED_EVENT_NAME", RNAudioProcessingModule.FRAME_ANALYSED_EVENT_NAME);
+        constants.put("SILENCE_CHANGED_EVENT_NAME", RNAudioProcessingModule.SILENCE_CHANGED_EVENT_NAME);
+        constants.put("PROCESSING_FAILED_EVENT_NAME", RNAudioProcessingModule.PROCESSING_FAILED_EVENT_NAME);
+        constants.put("DEFAULT_WINDOW_SIZE", AudioProcessor.DEFAULT_WINDOW_SIZE);
+        constants.put("DEFAULT_HOP_SIZE", AudioProcessor.DEFAULT_HOP_SIZE);
         return constants;
     }
 
@@ -52,32 +129,571 @@ public class RNAudioProcessingModule extends ReactContextBaseJavaModule {
                 .emit(eventName, params);
     }
 
+    private static int getIntOption(@Nullable ReadableMap options, String name, int defaultValue) {
+        if (options == null || !options.hasKey(name) || options.isNull(name)) {
+            return defaultValue;
+        }
+        return options.getInt(name);
+    }
+
+    private static double getDoubleOption(@Nullable ReadableMap options, String name, double defaultValue) {
+        if (options == null || !options.hasKey(name) || options.isNull(name)) {
+            return defaultValue;
+        }
+        return options.getDouble(name);
+    }
+
+    private static boolean getBooleanOption(@Nullable ReadableMap options, String name, boolean defaultValue) {
+        if (options == null || !options.hasKey(name) || options.isNull(name)) {
+            return defaultValue;
+        }
+        return options.getBoolean(name);
+    }
+
+    @Nullable
+    private static double[] getTunerFrequencies(@Nullable ReadableMap options) {
+        if (options != null && options.hasKey(TUNER_FREQUENCIES_OPTION) && !options.isNull(TUNER_FREQUENCIES_OPTION)) {
+            ReadableArray array = options.getArray(TUNER_FREQUENCIES_OPTION);
+            double[] frequencies = new double[array.size()];
+            for (int i = 0; i < frequencies.length; i++) {
+                frequencies[i] = array.getDouble(i);
+            }
+            return frequencies;
+        }
+        if (getBooleanOption(options, TUNER_OPTION, false)) {
+            return GoertzelFrequencyDetector.equalTemperedNotes(FFTFrequencyDetector.MIN_FREQUENCY,
+                    FFTFrequencyDetector.MAX_FREQUENCY, GoertzelFrequencyDetector.DEFAULT_A4_FREQUENCY);
+        }
+        return null;
+    }
+
+    @Nullable
+    private static Set<FeatureExtractor.Feature> getFeatures(@Nullable ReadableMap options) {
+        if (options == null || !options.hasKey(FEATURES_OPTION) || options.isNull(FEATURES_OPTION)) {
+            return null;
+        }
+        ReadableArray names = options.getArray(FEATURES_OPTION);
+        Set<FeatureExtractor.Feature> features = EnumSet.noneOf(FeatureExtractor.Feature.class);
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.getString(i);
+            if ("rms".equals(name)) {
+                features.add(FeatureExtractor.Feature.RMS);
+            } else if ("centroid".equals(name)) {
+                features.add(FeatureExtractor.Feature.SPECTRAL_CENTROID);
+            } else if ("flux".equals(name)) {
+                features.add(FeatureExtractor.Feature.SPECTRAL_FLUX);
+            } else if ("spectrum".equals(name)) {
+                features.add(FeatureExtractor.Feature.SPECTRUM);
+            } else {
+                throw new IllegalArgumentException("The value of features is invalid!");
+            }
+        }
+        return features;
+    }
+
+    private static FloatWindow getWindow(@Nullable ReadableMap options) {
+        if (options == null || !options.hasKey(WINDOW_OPTION) || options.isNull(WINDOW_OPTION)) {
+            return new HammingWindow();
+        }
+        String name = options.getString(WINDOW_OPTION);
+        if ("hamming".equals(name)) {
+            return new HammingWindow();
+        } else if ("hann".equals(name)) {
+            return new HannWindow();
+        } else if ("blackmanHarris".equals(name)) {
+            return new BlackmanHarrisWindow();
+        } else if ("gaussian".equals(name)) {
+            return new GaussianWindow();
+        }
+        throw new IllegalArgumentException("The value of window is invalid!");
+    }
+
+    /**
+     * @param options optional analysis settings: windowSize and hopSize, in samples.
+     *                Setting minWindowSize makes the analysed frames follow the pitch: they shrink down to
+     *                minWindowSize samples for higher notes and grow back to windowSize for lower ones.
+     *                Setting batchInterval (ms) switches to batched delivery: detections are sent as
+     *                FrequenciesDetected events of { timestamps, frequencies } arrays, at most once per
+     *                batchInterval or whenever maxBatchSize of them are queued. With minFrequencyChange (Hz)
+     *                a detection is only queued when it differs from the previous one by at least that much.
+     *                Setting tuner to true, or tunerFrequencies to an array of target frequencies, switches
+     *                to tuner mode: NoteDetected events of { target, cents, frequency } are sent after every
+     *                tunerBlockSize samples, by default for the equal-tempered notes between 50 and 500 Hz.
+     *                tunerBlockSize defaults to, and may be at most, the longest block that still resolves
+     *                a quarter tone around every target, see {@link GoertzelFrequencyDetector#maxBlockSize}.
+     *                minFrequency and maxFrequency (Hz) set the detected range; if decimate is true, the
+     *                audio is decimated down to the lowest sample rate covering maxFrequency before analysis.
+     *                Setting directCapture to true reads the microphone into a direct buffer instead of an array.
+     *                window picks the window applied to every frame: "hamming" (default), "hann",
+     *                "blackmanHarris" or "gaussian".
+     *                Setting features to an array of "rms", "centroid", "flux" and "spectrum" switches to
+     *                FrameAnalysed events of { frequency } plus the requested features, sent for every frame and
+     *                computed from the spectrum of the pitch estimate; spectrum holds spectrumBands amplitudes.
+     *                Setting tracking to true follows the pitch across frames: a frequency, 0 when unvoiced, is
+     *                sent for every frame instead of only when two consecutive frames agree, and FrequencyDetected
+     *                events carry its confidence as { frequency, confidence }.
+     *                Setting ensemble to true runs the YIN detector next to the FFT detector on a second thread and
+     *                reports their estimate fused by confidence and octave agreement; with tracking the fused
+     *                confidence is the one sent.
+     *                Setting silenceGate to true skips the analysis of frames whose energy stays close to the
+     *                adaptive noise floor; SilenceChanged events of { silent } are sent when the input falls silent
+     *                and when it becomes audible again, and no detections are sent in between.
+     *                Setting metrics to true records the latency of every stage, see {@link #getMetrics(Promise)}.
+     *                Setting stream to true keeps the spectrum and samples of the latest frame for drawing, see
+     *                {@link #getSpectrum(Promise)}: the spectrum is reduced to streamBins bins, spaced
+     *                logarithmically unless streamLogBins is false, and the samples are decimated by
+     *                streamDecimation. Tuner mode streams nothing.
+     *                If the capture or the analysis fails, processing stops and a ProcessingFailed event
+     *                of { message } is sent; start can then be called again right away.
+     * @param promise resolved once processing has started, or right away if it already runs; rejected with
+     *                E_INVALID_OPTIONS when an option is invalid and with E_CAPTURE_FAILED when the microphone
+     *                can not be opened, in which case nothing has been started
+     */
     @ReactMethod
-    private void start() {
-        if (isProcessing)
+    private synchronized void start(@Nullable ReadableMap options, Promise promise) {
+        if (isProcessing) {
+            promise.resolve(null);
             return;
+        }
 
+        try {
+            startProcessing(options);
+        } catch (IllegalArgumentException e) {
+            promise.reject(INVALID_OPTIONS_ERROR_CODE, e);
+            return;
+        } catch (IllegalStateException e) {
+            promise.reject(CAPTURE_ERROR_CODE, e);
+            return;
+        }
+        promise.resolve(null);
+    }
+
+    private void startProcessing(@Nullable ReadableMap options) {
         audioProcessor = new AudioProcessor();
-        audioProcessor.init();
-        audioProcessor.setFrequencyDetectionListener(new AudioProcessor.FrequencyDetectionListener() {
+        audioProcessor.setFrequencyRange(
+                getDoubleOption(options, MIN_FREQUENCY_OPTION, FFTFrequencyDetector.MIN_FREQUENCY),
+                getDoubleOption(options, MAX_FREQUENCY_OPTION, FFTFrequencyDetector.MAX_FREQUENCY)
+        );
+        audioProcessor.setDecimationEnabled(getBooleanOption(options, DECIMATE_OPTION, false));
+        audioProcessor.setAdaptiveWindow(getIntOption(options, MIN_WINDOW_SIZE_OPTION, 0));
+        audioProcessor.setEnsembleEnabled(getBooleanOption(options, ENSEMBLE_OPTION, false));
+        audioProcessor.setDirectCapture(getBooleanOption(options, DIRECT_CAPTURE_OPTION, false));
+        audioProcessor.setWindow(getWindow(options));
+        PipelineMetrics metrics = getBooleanOption(options, METRICS_OPTION, false) ? new PipelineMetrics() : null;
+        audioProcessor.setMetrics(metrics);
+        if (getBooleanOption(options, SILENCE_GATE_OPTION, false)) {
+            audioProcessor.setEnergyGate(new EnergyGate(), new AudioProcessor.SilenceListener() {
+                @Override
+                public void onSilenceChanged(boolean silent) {
+                    WritableMap params = Arguments.createMap();
+                    params.putBoolean("silent", silent);
+
+                    sendEvent(reactContext, RNAudioProcessingModule.SILENCE_CHANGED_EVENT_NAME, params);
+                }
+            });
+        }
+
+        double[] tunerFrequencies = getTunerFrequencies(options);
+        GoertzelFrequencyDetector tuner = null;
+        if (tunerFrequencies != null) {
+            tuner = new GoertzelFrequencyDetector(tunerFrequencies, AudioProcessor.SAMPLE_RATE, getIntOption(options,
+                    TUNER_BLOCK_SIZE_OPTION,
+                    GoertzelFrequencyDetector.maxBlockSize(tunerFrequencies, AudioProcessor.SAMPLE_RATE)));
+        }
+        Set<FeatureExtractor.Feature> features = getFeatures(options);
+        FeatureExtractor featureExtractor = features == null ? null : new FeatureExtractor(features,
+                getIntOption(options, SPECTRUM_BANDS_OPTION, FeatureExtractor.DEFAULT_SPECTRUM_BANDS));
+        int batchInterval = getIntOption(options, BATCH_INTERVAL_OPTION, 0);
+        FrequencyBatcher batcher = null;
+        int windowSize = getIntOption(options, WINDOW_SIZE_OPTION, AudioProcessor.DEFAULT_WINDOW_SIZE);
+        SpectrumStreamer spectrumStreamer = null;
+        if (tunerFrequencies == null && getBooleanOption(options, STREAM_OPTION, false)) {
+            // a frame is never longer than the window
+            spectrumStreamer = new SpectrumStreamer(
+                    getIntOption(options, STREAM_BINS_OPTION, SpectrumStreamer.DEFAULT_BINS),
+                    getBooleanOption(options, STREAM_LOG_BINS_OPTION, true),
+                    getIntOption(options, STREAM_DECIMATION_OPTION, SpectrumStreamer.DEFAULT_DECIMATION),
+                    SpectrumStreamer.DEFAULT_MIN_FREQUENCY,
+                    Math.max(windowSize, AudioProcessor.MIN_WINDOW_SIZE)
+            );
+        }
+
+        audioProcessor.setSpectrumStreamer(spectrumStreamer);
+
+        final AudioProcessor processor = audioProcessor;
+        audioProcessor.setErrorListener(new AudioProcessor.ErrorListener() {
             @Override
-            public void onFrequencyDetected(final double frequency) {
+            public void onError(Exception error) {
+                processingFailed(processor);
+
                 WritableMap params = Arguments.createMap();
-                params.putDouble("frequency", frequency);
+                params.putString("message", String.valueOf(error.getMessage()));
 
-                sendEvent(reactContext, RNAudioProcessingModule.FREQUENCY_DETECTED_EVENT_NAME, params);
+                sendEvent(reactContext, RNAudioProcessingModule.PROCESSING_FAILED_EVENT_NAME, params);
             }
         });
 
+        if (tuner != null) {
+            audioProcessor.setTuner(
+                    tuner,
+                    new AudioProcessor.TunerListener() {
+                        @Override
+                        public void onNoteDetected(double targetFrequency, double centsOffset, double frequency) {
+                            WritableMap params = Arguments.createMap();
+                            params.putDouble("target", targetFrequency);
+                            params.putDouble("cents", centsOffset);
+                            params.putDouble("frequency", frequency);
+
+                            sendEvent(reactContext, RNAudioProcessingModule.NOTE_DETECTED_EVENT_NAME, params);
+                        }
+                    }
+            );
+        } else if (featureExtractor != null) {
+            audioProcessor.setFeatureExtraction(
+                    featureExtractor,
+                    new AudioProcessor.FrameAnalysisListener() {
+                        @Override
+                        public void onFrameAnalysed(double frequency, FeatureExtractor extractor) {
+                            sendEvent(reactContext, RNAudioProcessingModule.FRAME_ANALYSED_EVENT_NAME,
+                                    createFeaturesMap(frequency, extractor));
+                        }
+                    }
+            );
+        } else if (batchInterval > 0) {
+            batcher = createBatcher(
+                    batchInterval,
+                    getIntOption(options, MAX_BATCH_SIZE_OPTION, DEFAULT_MAX_BATCH_SIZE),
+                    getDoubleOption(options, MIN_FREQUENCY_CHANGE_OPTION, 0)
+            );
+        } else {
+            audioProcessor.setFrequencyDetectionListener(new AudioProcessor.FrequencyDetectionListener() {
+                @Override
+                public void onFrequencyDetected(final double frequency) {
+                    WritableMap params = Arguments.createMap();
+                    params.putDouble("frequency", frequency);
+
+                    sendEvent(reactContext, RNAudioProcessingModule.FREQUENCY_DETECTED_EVENT_NAME, params);
+                }
+            });
+        }
+
+        if (tunerFrequencies == null && getBooleanOption(options, TRACKING_OPTION, false)) {
+            // features and batches take the tracked pitch like a detection, only single events carry the confidence
+            AudioProcessor.PitchTrackListener pitchTrackListener = null;
+            if (featureExtractor == null && batchInterval <= 0) {
+                pitchTrackListener = new AudioProcessor.PitchTrackListener() {
+                    @Override
+                    public void onPitchTracked(double frequency, double confidence) {
+                        WritableMap params = Arguments.createMap();
+                        params.putDouble("frequency", frequency);
+                        params.putDouble("confidence", confidence);
+
+                        sendEvent(reactContext, RNAudioProcessingModule.FREQUENCY_DETECTED_EVENT_NAME, params);
+                    }
+                };
+            }
+            audioProcessor.setPitchTracker(new PitchTracker(), pitchTrackListener);
+        }
+
+        // the microphone is opened once all other options have been accepted
+        int hopSize = getIntOption(options, HOP_SIZE_OPTION, AudioProcessor.DEFAULT_HOP_SIZE);
+        AudioSource microphone = new MicrophoneAudioSource(AudioProcessor.SAMPLE_RATE, hopSize * 2);
+        try {
+            audioProcessor.init(microphone, windowSize, hopSize);
+        } catch (IllegalArgumentException e) {
+            microphone.release();
+            throw e;
+        }
+        if (batcher != null) {
+            startBatchFlushes(batcher);
+        }
+        this.metrics = metrics;
+        this.spectrumStreamer = spectrumStreamer;
         isProcessing = true;
         executor.execute(audioProcessor);
     }
 
+    private static WritableMap createFeaturesMap(double frequency, FeatureExtractor extractor) {
+        WritableMap params = Arguments.createMap();
+        params.putDouble("frequency", frequency);
+        if (extractor.hasFeature(FeatureExtractor.Feature.RMS)) {
+            params.putDouble("rms", extractor.getRms());
+        }
+        if (extractor.hasFeature(FeatureExtractor.Feature.SPECTRAL_CENTROID)) {
+            params.putDouble("centroid", extractor.getSpectralCentroid());
+        }
+        if (extractor.hasFeature(FeatureExtractor.Feature.SPECTRAL_FLUX)) {
+            params.putDouble("flux", extractor.getSpectralFlux());
+        }
+        if (extractor.hasFeature(FeatureExtractor.Feature.SPECTRUM)) {
+            WritableArray spectrum = Arguments.createArray();
+            for (float amplitude : extractor.getSpectrum()) {
+                spectrum.pushDouble(amplitude);
+            }
+            params.putArray("spectrum", spectrum);
+        }
+        return params;
+    }
+
+    /**
+     * Makes the processor queue its detections into a new batcher, which is only flushed on its own once
+     * {@link #startBatchFlushes(FrequencyBatcher)} has been called.
+     */
+    private FrequencyBatcher createBatcher(int batchInterval, int maxBatchSize, double minFrequencyChange) {
+        final FrequencyBatcher batcher = new FrequencyBatcher(new FrequencyBatcher.BatchListener() {
+            @Override
+            public void onBatch(long[] timestamps, double[] frequencies, int count) {
+                WritableArray timestampArray = Arguments.createArray();
+                WritableArray frequencyArray = Arguments.createArray();
+                for (int i = 0; i < count; i++) {
+                    timestampArray.pushDouble(timestamps[i]);
+                    frequencyArray.pushDouble(frequencies[i]);
+                }
+
+                WritableMap params = Arguments.createMap();
+                params.putArray("timestamps", timestampArray);
+                params.putArray("frequencies", frequencyArray);
+
+                sendEvent(reactContext, RNAudioProcessingModule.FREQUENCIES_DETECTED_EVENT_NAME, params);
+            }
+        }, batchInterval, maxBatchSize, minFrequencyChange);
+
+        audioProcessor.setFrequencyDetectionListener(new AudioProcessor.FrequencyDetectionListener() {
+            @Override
+            public void onFrequencyDetected(final double frequency) {
+                batcher.add(System.currentTimeMillis(), frequency);
+            }
+        });
+
+        return batcher;
+    }
+
+    private void startBatchFlushes(final FrequencyBatcher batcher) {
+        // flushes detections left waiting when no new ones arrive
+        long batchInterval = batcher.getFlushIntervalMillis();
+        frequencyBatcher = batcher;
+        final ScheduledFuture<?> flushTask = batchFlushScheduler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                batcher.flushIfDue(System.currentTimeMillis());
+            }
+        }, batchInterval, batchInterval, TimeUnit.MILLISECONDS);
+
+        // stop only asks the processor to finish, the last detections are added until it has
+        audioProcessor.setCompletionListener(new AudioProcessor.CompletionListener() {
+            @Override
+            public void onCompleted() {
+                flushTask.cancel(false);
+                batcher.flush(System.currentTimeMillis());
+            }
+        });
+    }
+
     @ReactMethod
-    private void stop() {
+    private synchronized void stop() {
         if (isProcessing) {
             audioProcessor.stop();
+            frequencyBatcher = null;
+            isProcessing = false;
+        }
+    }
+
+    /**
+     * Called from the capturing thread of a processor that failed and has already stopped, so that the next
+     * start begins a new session instead of resolving without doing anything.
+     */
+    private synchronized void processingFailed(AudioProcessor processor) {
+        // a stale processor must not end the session of a later start
+        if (processor == audioProcessor) {
+            frequencyBatcher = null;
             isProcessing = false;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Stops capturing without ending the session started by start: the microphone, the threads and the analysis
+     * workspaces are kept, so resume picks up faster than a new start. Detections queued for a batch are sent.
+     */
+    @ReactMethod
+    private synchronized void pause() {
+        if (isProcessing) {
+            audioProcessor.pause();
+            if (frequencyBatcher != null) {
+                frequencyBatcher.flush(System.currentTimeMillis());
+            }
+        }
+    }
+
+    @ReactMethod
+    private synchronized void resume() {
+        if (isProcessing) {
+            audioProcessor.resume();
+        }
+    }
+
+    @Override
+    public void onCatalystInstanceDestroy() {
+        // nobody is left to receive the last batch
+        if (frequencyBatcher != null) {
+            frequencyBatcher.close();
+        }
+        stop();
+        // a running capture still releases the microphone, queued offline analyses are dropped
+        executor.shutdown();
+        batchFlushScheduler.shutdownNow();
+        offlineExecutor.shutdownNow();
+        offlinePool.shutdownNow();
+    }
+
+    /**
+     * Resolves with a snapshot of the metrics of the last run started with the metrics option, null otherwise:
+     * { framesAnalysed, framesDropped, framesRejected, framesFiltered, framesGated, eventsEmitted, bucketBoundsMicros,
+     * stages },
+     * where stages maps every stage (captureRead, decimation, window, fft, peakPicking, intervalScan, features,
+     * emission) to { count, meanMicros, maxMicros, histogram }. Bucket i of a histogram counts durations below
+     * bucketBoundsMicros[i], the last bucket counts the longer ones.
+     */
+    @ReactMethod
+    private void getMetrics(Promise promise) {
+        PipelineMetrics metrics = this.metrics;
+        if (metrics == null) {
+            promise.resolve(null);
+            return;
+        }
+
+        WritableMap result = Arguments.createMap();
+        for (PipelineMetrics.Counter counter : PipelineMetrics.Counter.values()) {
+            result.putDouble(toCamelCase(counter.name()), metrics.getCount(counter));
+        }
+
+        WritableArray bounds = Arguments.createArray();
+        for (int i = 0; i < PipelineMetrics.BUCKET_COUNT - 1; i++) {
+            bounds.pushDouble(PipelineMetrics.getBucketUpperBoundMicros(i));
+        }
+        result.putArray("bucketBoundsMicros", bounds);
+
+        WritableMap stages = Arguments.createMap();
+        for (PipelineMetrics.Stage stage : PipelineMetrics.Stage.values()) {
+            long count = metrics.getCount(stage);
+            WritableArray histogram = Arguments.createArray();
+            for (int i = 0; i < PipelineMetrics.BUCKET_COUNT; i++) {
+                histogram.pushDouble(metrics.getBucketCount(stage, i));
+            }
+
+            WritableMap stageMap = Arguments.createMap();
+            stageMap.putDouble("count", count);
+            stageMap.putDouble("meanMicros", count == 0 ? 0 : metrics.getTotalNanos(stage) / 1000.0 / count);
+            stageMap.putDouble("maxMicros", metrics.getMaxNanos(stage) / 1000.0);
+            stageMap.putArray("histogram", histogram);
+            stages.putMap(toCamelCase(stage.name()), stageMap);
+        }
+        result.putMap("stages", stages);
+
+        promise.resolve(result);
+    }
+
+    /**
+     * Resolves with the spectrum and samples of the latest frame of a run started with the stream option,
+     * null before the first frame or otherwise: { sequence, frequency, sampleRate, minFrequency, maxFrequency,
+     * logBins, spectrum, waveform }. spectrum holds the amplitudes of the bins between minFrequency, 0 for linear
+     * bins, and maxFrequency; waveform holds normalised samples. Meant to be polled at display rate, the sequence
+     * tells whether a new frame was analysed since the last call.
+     */
+    @ReactMethod
+    private void getSpectrum(Promise promise) {
+        SpectrumStreamer spectrumStreamer = this.spectrumStreamer;
+        SpectrumStreamer.Snapshot snapshot = spectrumStreamer != null ? spectrumStreamer.acquire() : null;
+        if (snapshot == null) {
+            promise.resolve(null);
+            return;
+        }
+
+        WritableArray spectrum = Arguments.createArray();
+        for (float amplitude : snapshot.getBins()) {
+            spectrum.pushDouble(amplitude);
+        }
+        WritableArray waveform = Arguments.createArray();
+        float[] samples = snapshot.getWaveform();
+        for (int i = 0; i < snapshot.getWaveformLength(); i++) {
+            waveform.pushDouble(samples[i]);
+        }
+
+        WritableMap result = Arguments.createMap();
+        result.putDouble("sequence", snapshot.getSequence());
+        result.putDouble("frequency", snapshot.getFrequency());
+        result.putInt("sampleRate", snapshot.getSampleRate());
+        result.putDouble("minFrequency", spectrumStreamer.isLogBins()
+                ? Math.min(spectrumStreamer.getMinFrequency(), snapshot.getMaxFrequency()) : 0);
+        result.putDouble("maxFrequency", snapshot.getMaxFrequency());
+        result.putBoolean("logBins", spectrumStreamer.isLogBins());
+        result.putArray("spectrum", spectrum);
+        result.putArray("waveform", waveform);
+
+        promise.resolve(result);
+    }
+
+    private static String toCamelCase(String constantName) {
+        StringBuilder builder = new StringBuilder();
+        for (String word : constantName.toLowerCase(Locale.US).split("_")) {
+            builder.append(builder.length() == 0 ? word : Character.toUpperCase(word.charAt(0)) + word.substring(1));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Analyses a 16-bit PCM WAV file faster than real time, using all cores.
+     * Resolves with { sampleRate, hopSize, times, frequencies }, where times are frame starts in seconds.
+     * @param options optional analysis settings: windowSize, hopSize, minFrequency and maxFrequency
+     * @param promise rejected with E_INVALID_OPTIONS when an option is invalid and with E_ANALYSIS_FAILED when
+     *                the file can not be read or analysed
+     */
+    @ReactMethod
+    private void analyzeFile(final String path, @Nullable final ReadableMap options, final Promise promise) {
+        final OfflinePitchAnalyzer analyzer;
+        try {
+            analyzer = new OfflinePitchAnalyzer(
+                    offlinePool,
+                    getIntOption(options, WINDOW_SIZE_OPTION, AudioProcessor.DEFAULT_WINDOW_SIZE),
+                    getIntOption(options, HOP_SIZE_OPTION, AudioProcessor.DEFAULT_HOP_SIZE),
+                    getDoubleOption(options, MIN_FREQUENCY_OPTION, FFTFrequencyDetector.MIN_FREQUENCY),
+                    getDoubleOption(options, MAX_FREQUENCY_OPTION, FFTFrequencyDetector.MAX_FREQUENCY)
+            );
+        } catch (IllegalArgumentException e) {
+            promise.reject(INVALID_OPTIONS_ERROR_CODE, e);
+            return;
+        }
+
+        offlineExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                AudioSource source = null;
+                try {
+                    source = WavAudioSource.open(new File(path));
+                    PitchTrack track = analyzer.analyse(source);
+
+                    WritableArray times = Arguments.createArray();
+                    WritableArray frequencies = Arguments.createArray();
+                    for (int i = 0; i < track.getFrameCount(); i++) {
+                        times.pushDouble(track.getTime(i));
+                        frequencies.pushDouble(track.getFrequency(i));
+                    }
+
+                    WritableMap result = Arguments.createMap();
+                    result.putInt("sampleRate", track.getSampleRate());
+                    result.putInt("hopSize", track.getHopSize());
+                    result.putArray("times", times);
+                    result.putArray("frequencies", frequencies);
+                    promise.resolve(result);
+                } catch (IOException e) {
+                    promise.reject(ANALYSIS_ERROR_CODE, e);
+                } catch (RuntimeException e) {
+                    promise.reject(ANALYSIS_ERROR_CODE, e);
+                } finally {
+                    if (source != null) {
+                        source.release();
+                    }
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,36 @@
+package com.reactlibrary.audio_sources;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Source of mono 16-bit PCM audio, e.g. the microphone or a recorded file.
+ */
+public interface AudioSource {
+    int END_OF_STREAM = -1;
+
+    int getSampleRate();
+
+    void start() throws IOException;
+
+    /**
+     * Blocks until samples are available and reads up to length of them.
+     * @return the amount of samples read, {@link #END_OF_STREAM} once the source is exhausted
+     */
+    int read(short[] buffer, int offset, int length) throws IOException;
+
+    /**
+     * Same as {@link #read(short[], int, int)}, but reads into the start of a buffer, which can be a direct one,
+     * as 16-bit samples in native byte order. The position and limit of the buffer are left unchanged.
+     * @param length amount of samples to read at most, no more than fit into the buffer
+     */
+    int read(ByteBuffer buffer, int length) throws IOException;
+
+    /**
+     * Stops the capture and cuts a pending read short. Can be called from another thread than the reading one,
+     * on a stopped source and on a released one.
+     */
+    void stop();
+
+    void release();
+}
@@ -0,0 +1,72 @@
+package com.reactlibrary.audio_sources;
+
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.MediaRecorder;
+
+import java.nio.ByteBuffer;
+
+public class MicrophoneAudioSource implements AudioSource {
+    private final AudioRecord audioRecord;
+
+    /**
+     * @param sampleRate requested sample rate
+     * @param minBufferSamples amount of samples the recorder has to be able to buffer at least
+     */
+    public MicrophoneAudioSource(int sampleRate, int minBufferSamples) {
+        int minBufSize = AudioRecord.getMinBufferSize(sampleRate, AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT);
+        if (minBufSize == AudioRecord.ERROR_BAD_VALUE || minBufSize == AudioRecord.ERROR) {
+            throw new IllegalStateException("The microphone does not support the sample rate " + sampleRate);
+        }
+
+        // the recorder only has to absorb scheduling jitter of the capture thread
+        int bufferBytes = Math.max(minBufSize * 4, minBufferSamples * 2);
+        this.audioRecord = new AudioRecord(MediaRecorder.AudioSource.MIC, sampleRate, AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT, bufferBytes);
+
+        // the constructor does not throw when the permission is denied or the microphone is busy
+        if (audioRecord.getState() != AudioRecord.STATE_INITIALIZED) {
+            audioRecord.release();
+            throw new IllegalStateException("The microphone can not be opened");
+        }
+    }
+
+    @Override
+    public int getSampleRate() {
+        return audioRecord.getSampleRate();
+    }
+
+    @Override
+    public void start() {
+        audioRecord.startRecording();
+    }
+
+    @Override
+    public int read(short[] buffer, int offset, int length) {
+        int read = audioRecord.read(buffer, offset, length);
+        // errors are negative as well, but a broken recorder will not recover by itself
+        return read < 0 ? END_OF_STREAM : read;
+    }
+
+    /**
+     * Reads straight from the recorder into the buffer, which has to be a direct one. Unlike a read into an array,
+     * it does not keep the heap pinned for as long as the read blocks.
+     */
+    @Override
+    public int read(ByteBuffer buffer, int length) {
+        int read = audioRecord.read(buffer, length * 2);
+        return read < 0 ? END_OF_STREAM : read / 2;
+    }
+
+    @Override
+    public synchronized void stop() {
+        // a released recorder throws instead of ignoring the call
+        if (audioRecord.getState() == AudioRecord.STATE_INITIALIZED) {
+            audioRecord.stop();
+        }
+    }
+
+    @Override
+    public synchronized void release() {
+        audioRecord.release();
+    }
+}
@@ -0,0 +1,124 @@
+package com.reactlibrary.audio_sources;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reads raw little-endian 16-bit PCM from a stream. Interleaved channels are mixed down to mono.
+ */
+public class PcmStreamAudioSource implements AudioSource {
+    private static final int BYTES_PER_SAMPLE = 2;
+
+    private final InputStream stream;
+    private final int sampleRate;
+    private final int channels;
+    private long remainingBytes;
+    private byte[] bytes = new byte[0];
+
+    public PcmStreamAudioSource(InputStream stream, int sampleRate) {
+        this(stream, sampleRate, 1, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param dataLength amount of PCM bytes to read from the stream at most
+     */
+    public PcmStreamAudioSource(InputStream stream, int sampleRate, int channels, long dataLength) {
+        if (stream == null) {
+            throw new IllegalArgumentException("The value of stream can not be null!");
+        }
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("The value of sampleRate is invalid!");
+        }
+        if (channels <= 0) {
+            throw new IllegalArgumentException("The value of channels is invalid!");
+        }
+        this.stream = stream;
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+        this.remainingBytes = dataLength;
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public int read(short[] buffer, int offset, int length) throws IOException {
+        int frames = readFrames(length);
+        for (int i = 0; i < frames; i++) {
+            buffer[offset + i] = mixFrame(i);
+        }
+        return frames;
+    }
+
+    @Override
+    public int read(ByteBuffer buffer, int length) throws IOException {
+        if (buffer.order() != ByteOrder.nativeOrder()) {
+            throw new IllegalArgumentException("The byte order of buffer is invalid!");
+        }
+        int frames = readFrames(length);
+        for (int i = 0; i < frames; i++) {
+            buffer.putShort(i * BYTES_PER_SAMPLE, mixFrame(i));
+        }
+        return frames;
+    }
+
+    /**
+     * Reads up to length whole frames into the byte buffer.
+     * @return the amount of frames read, {@link #END_OF_STREAM} once the stream is exhausted
+     */
+    private int readFrames(int length) throws IOException {
+        final int frameBytes = BYTES_PER_SAMPLE * channels;
+        int wanted = (int) Math.min((long) length * frameBytes, remainingBytes - remainingBytes % frameBytes);
+        if (wanted <= 0) {
+            return END_OF_STREAM;
+        }
+        if (bytes.length < wanted) {
+            bytes = new byte[wanted];
+        }
+
+        // read whole frames only, blocking like the microphone does
+        int filled = 0;
+        while (filled < wanted) {
+            int count = stream.read(bytes, filled, wanted - filled);
+            if (count < 0) {
+                break;
+            }
+            filled += count;
+        }
+        int frames = filled / frameBytes;
+        remainingBytes -= filled;
+        if (frames == 0) {
+            remainingBytes = 0;
+            return END_OF_STREAM;
+        }
+        return frames;
+    }
+
+    private short mixFrame(int frame) {
+        int sum = 0;
+        for (int c = 0, b = frame * BYTES_PER_SAMPLE * channels; c < channels; c++, b += BYTES_PER_SAMPLE) {
+            sum += (short) ((bytes[b] & 0xFF) | (bytes[b + 1] << 8));
+        }
+        return (short) (sum / channels);
+    }
+
+    @Override
+    public void stop() {
+    }
+
+    @Override
+    public void release() {
+        try {
+            stream.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
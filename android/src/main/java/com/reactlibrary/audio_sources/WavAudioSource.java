@@ -0,0 +1,116 @@
+package com.reactlibrary.audio_sources;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads a 16-bit PCM WAV file or stream. Interleaved channels are mixed down to mono.
+ */
+public class WavAudioSource extends PcmStreamAudioSource {
+    private static final int WAVE_FORMAT_PCM = 1;
+    private static final int WAVE_FORMAT_EXTENSIBLE = 0xFFFE;
+
+    private WavAudioSource(InputStream stream, Header header) {
+        super(stream, header.sampleRate, header.channels, header.dataLength);
+    }
+
+    public static WavAudioSource open(File file) throws IOException {
+        return open(new BufferedInputStream(new FileInputStream(file)));
+    }
+
+    /**
+     * Parses the WAV header and positions the stream at the start of the samples.
+     */
+    public static WavAudioSource open(InputStream stream) throws IOException {
+        try {
+            return new WavAudioSource(stream, readHeader(new DataInputStream(stream)));
+        } catch (IOException e) {
+            stream.close();
+            throw e;
+        }
+    }
+
+    private static final class Header {
+        int sampleRate = 0;
+        int channels = 0;
+        long dataLength = 0;
+    }
+
+    private static Header readHeader(DataInputStream input) throws IOException {
+        if (readTag(input) != tag("RIFF")) {
+            throw new IOException("Not a RIFF file");
+        }
+        readIntLE(input);
+        if (readTag(input) != tag("WAVE")) {
+            throw new IOException("Not a WAVE file");
+        }
+
+        Header header = new Header();
+        boolean formatFound = false;
+        while (true) {
+            int chunkId = readTag(input);
+            long chunkLength = readIntLE(input) & 0xFFFFFFFFL;
+
+            if (chunkId == tag("fmt ")) {
+                int format = readShortLE(input);
+                header.channels = readShortLE(input);
+                header.sampleRate = readIntLE(input);
+                readIntLE(input);   // byte rate
+                readShortLE(input); // block align
+                int bitsPerSample = readShortLE(input);
+                if ((format != WAVE_FORMAT_PCM && format != WAVE_FORMAT_EXTENSIBLE) || bitsPerSample != 16) {
+                    throw new IOException("Only 16-bit PCM WAV is supported");
+                }
+                skipFully(input, chunkLength - 16);
+                formatFound = true;
+            } else if (chunkId == tag("data")) {
+                if (!formatFound) {
+                    throw new IOException("The data chunk precedes the fmt chunk");
+                }
+                header.dataLength = chunkLength;
+                return header;
+            } else {
+                skipFully(input, chunkLength);
+            }
+
+            // chunks are word aligned
+            if ((chunkLength & 1) != 0) {
+                skipFully(input, 1);
+            }
+        }
+    }
+
+    private static int tag(String id) {
+        return (id.charAt(0) << 24) | (id.charAt(1) << 16) | (id.charAt(2) << 8) | id.charAt(3);
+    }
+
+    private static int readTag(DataInputStream input) throws IOException {
+        return input.readInt();
+    }
+
+    private static int readIntLE(DataInputStream input) throws IOException {
+        return Integer.reverseBytes(input.readInt());
+    }
+
+    private static int readShortLE(DataInputStream input) throws IOException {
+        return Short.reverseBytes(input.readShort()) & 0xFFFF;
+    }
+
+    private static void skipFully(DataInputStream input, long length) throws IOException {
+        while (length > 0) {
+            long skipped = input.skip(length);
+            if (skipped <= 0) {
+                if (input.read() < 0) {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            length -= skipped;
+        }
+    }
+}
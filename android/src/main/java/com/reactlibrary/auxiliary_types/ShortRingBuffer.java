@@ -0,0 +1,129 @@
+package com.reactlibrary.auxiliary_types;
+
+import java.nio.ShortBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preallocated lock-free ring buffer of 16-bit samples for exactly one producer thread
+ * and one consumer thread. The producer only moves the write position and the consumer
+ * only moves the read position, so neither side ever blocks the other.
+ */
+public final class ShortRingBuffer {
+    private final short[] buffer;
+    private final int mask;
+    private final AtomicLong writePosition = new AtomicLong();
+    private final AtomicLong readPosition = new AtomicLong();
+
+    /**
+     * @param capacity minimal amount of samples to hold, rounded up to a power of two
+     */
+    public ShortRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("The value of capacity is invalid!");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.buffer = new short[size];
+        this.mask = size - 1;
+    }
+
+    public int getCapacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Returns the amount of samples written and not yet consumed.
+     */
+    public int available() {
+        return (int) (writePosition.get() - readPosition.get());
+    }
+
+    /**
+     * Producer side. Writes as many of the samples as fit and returns their amount.
+     */
+    public int write(short[] source, int offset, int length) {
+        final long write = writePosition.get();
+        final int free = buffer.length - (int) (write - readPosition.get());
+        final int count = Math.min(length, free);
+        if (count <= 0) {
+            return 0;
+        }
+
+        final int start = (int) write & mask;
+        final int firstPart = Math.min(count, buffer.length - start);
+        System.arraycopy(source, offset, buffer, start, firstPart);
+        System.arraycopy(source, offset + firstPart, buffer, 0, count - firstPart);
+
+        // publishes the samples to the consumer
+        writePosition.lazySet(write + count);
+        return count;
+    }
+
+    /**
+     * Producer side. Writes as many of the next length samples of the source as fit, moving its position
+     * past them, and returns their amount. The source can be a view of a direct buffer.
+     */
+    public int write(ShortBuffer source, int length) {
+        final long write = writePosition.get();
+        final int free = buffer.length - (int) (write - readPosition.get());
+        final int count = Math.min(Math.min(length, source.remaining()), free);
+        if (count <= 0) {
+            return 0;
+        }
+
+        final int start = (int) write & mask;
+        final int firstPart = Math.min(count, buffer.length - start);
+        source.get(buffer, start, firstPart);
+        source.get(buffer, 0, count - firstPart);
+
+        writePosition.lazySet(write + count);
+        return count;
+    }
+
+    /**
+     * Consumer side. Copies up to length of the oldest samples without consuming them
+     * and returns their amount.
+     */
+    public int peek(short[] destination, int offset, int length) {
+        return peek(0, destination, offset, length);
+    }
+
+    /**
+     * Consumer side. Same as {@link #peek(short[], int, int)}, but leaves out the first start samples.
+     */
+    public int peek(int start, short[] destination, int offset, int length) {
+        final long read = readPosition.get() + Math.max(0, start);
+        final int count = Math.min(length, (int) (writePosition.get() - read));
+        if (count <= 0) {
+            return 0;
+        }
+
+        final int first = (int) read & mask;
+        final int firstPart = Math.min(count, buffer.length - first);
+        System.arraycopy(buffer, first, destination, offset, firstPart);
+        System.arraycopy(buffer, 0, destination, offset + firstPart, count - firstPart);
+        return count;
+    }
+
+    /**
+     * Consumer side. Consumes up to length of the oldest samples and returns their amount.
+     */
+    public int skip(int length) {
+        final long read = readPosition.get();
+        final int count = Math.min(length, (int) (writePosition.get() - read));
+        if (count <= 0) {
+            return 0;
+        }
+        readPosition.lazySet(read + count);
+        return count;
+    }
+
+    /**
+     * Consumer side. Same as {@link #peek(short[], int, int)} followed by {@link #skip(int)}.
+     */
+    public int read(short[] destination, int offset, int length) {
+        return skip(peek(destination, offset, length));
+    }
+}
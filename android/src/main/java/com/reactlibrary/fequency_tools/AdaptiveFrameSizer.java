@@ -0,0 +1,98 @@
+package com.reactlibrary.fequency_tools;
+
+import com.reactlibrary.fequency_tools.fft_utils.MixedRadixFFTPlan;
+
+/**
+ * Chooses the length of the next analysed frame from the pitch tracked in the previous ones, within fixed bounds.
+ * The longest frames are only needed for the lowest notes: a frame has to hold enough periods of the tracked pitch
+ * for the window gain to stay nearly constant over one of them, which the period verification relies on,
+ * and the verified fragment of sampleRate / minFrequency samples plus a couple of periods. Higher notes are
+ * therefore analysed in shorter frames, which follow the input faster and cost less. Lengths are the fast sizes
+ * of {@link MixedRadixFFTPlan}, so they are transformed without padding, clamped to the bounds.
+ * <p>
+ * When the pitch is lost or its confidence is low, the sizer goes back to the longest frame at once, so the low
+ * register is never missed. It shrinks by at most half per frame, so a single short note does not make it jump.
+ * The buffers of the analysis are sized for the longest frame and reused for all lengths.
+ */
+public class AdaptiveFrameSizer {
+    public static final double DEFAULT_MIN_CONFIDENCE = 0.8;
+    private static final int FRAME_PERIODS = 16;    /** Periods per frame, so the window gain barely changes over one */
+    private static final int VERIFIED_PERIODS = 2;  /** Periods past the verified fragment, to allow an octave drop */
+
+    private final int minSize;
+    private final int maxSize;
+    private final int sampleRate;
+    private final double minFrequency;
+    private final double minConfidence;
+    private int size;
+
+    public AdaptiveFrameSizer(int minSize, int maxSize, int sampleRate, double minFrequency) {
+        this(minSize, maxSize, sampleRate, minFrequency, DEFAULT_MIN_CONFIDENCE);
+    }
+
+    public AdaptiveFrameSizer(int minSize, int maxSize, int sampleRate, double minFrequency, double minConfidence) {
+        if (minSize < 1) {
+            throw new IllegalArgumentException("The value of minSize is invalid!");
+        }
+        if (maxSize < minSize) {
+            throw new IllegalArgumentException("The value of maxSize is invalid!");
+        }
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("The value of sampleRate is invalid!");
+        }
+        if (minFrequency <= 0) {
+            throw new IllegalArgumentException("The value of minFrequency is invalid!");
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.sampleRate = sampleRate;
+        this.minFrequency = minFrequency;
+        this.minConfidence = minConfidence;
+        this.size = maxSize;
+    }
+
+    /**
+     * Returns the length of the next frame.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Takes the result of the last frame into account.
+     * @param frequency the detected frequency, 0 if there is none
+     * @param confidence the confidence of the detection, in [0, 1]
+     * @return the length of the next frame
+     */
+    public int update(double frequency, double confidence) {
+        if (frequency <= 0 || confidence < minConfidence) {
+            size = maxSize;
+            return size;
+        }
+
+        double period = sampleRate / frequency;
+        double required = Math.max(FRAME_PERIODS * period, sampleRate / minFrequency + VERIFIED_PERIODS * period);
+        int target = clamp(MixedRadixFFTPlan.fastSizeAtLeast((int) Math.ceil(required)));
+        size = target >= size ? target : Math.max(target, clamp(MixedRadixFFTPlan.fastSizeAtMost(size / 2)));
+        return size;
+    }
+
+    /**
+     * Goes back to the longest frame, e.g. after a gap in the stream.
+     */
+    public void reset() {
+        size = maxSize;
+    }
+
+    private int clamp(int length) {
+        return Math.max(minSize, Math.min(maxSize, length));
+    }
+}
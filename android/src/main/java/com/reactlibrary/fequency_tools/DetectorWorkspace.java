@@ -0,0 +1,159 @@
+package com.reactlibrary.fequency_tools;
+
+import com.reactlibrary.fequency_tools.fft_utils.FastFourierTransform;
+import com.reactlibrary.fequency_tools.fft_utils.FloatFastFourierTransform;
+import com.reactlibrary.fequency_tools.windows.FloatWindow;
+
+import java.util.Arrays;
+
+/**
+ * Buffers of a single detection session. A workspace is allocated once for the largest frame
+ * it has to handle and is reused for every following frame, so the steady-state detection path
+ * does not allocate. The double precision path converts its windowed frame and spectrum into the single
+ * precision buffers for the period search, the single precision paths use only those. The single precision
+ * paths also keep the window coefficients of every frame length they have analysed. A workspace must not
+ * be shared between threads.
+ */
+public class DetectorWorkspace {
+    static final int PEAKS_AMOUNT = 15;
+    public static final int CANDIDATES_AMOUNT = 6;
+
+    private double[] samples = new double[0];       /** Input frame, filled by the caller */
+    double[] windowed = new double[0];
+    double[] spectrogram = new double[0];
+    float[] windowedFloat = new float[0];
+    float[] spectrogramFloat = new float[0];
+    float[] processedFloat = null;                  /** Windowed frame of the last single precision detection */
+    int processedLength = 0;
+    final SpectralPeaks peaks = new SpectralPeaks(PEAKS_AMOUNT);
+    final PeriodVerifier verifier = new PeriodVerifier();
+    final double[] refineDifferences = new double[2 * FFTFrequencyDetector.REFINE_RADIUS + 1];
+    double refinedDifference = 0;                   /** Difference at the last refined interval */
+    double confidence = 0;
+    final int[] rangeIntervals = new int[PEAKS_AMOUNT];             /** Best interval verified per peak */
+    final int[] candidateIntervals = new int[CANDIDATES_AMOUNT];
+    final double[] candidateFrequencies = new double[CANDIDATES_AMOUNT];
+    final double[] candidateConfidences = new double[CANDIDATES_AMOUNT];
+    int candidateCount = 0;
+    private FloatWindow tableWindow = null;         /** Window the coefficient tables belong to */
+    private float[][] windowTables = new float[0][];    /** Coefficients of the window, one table per frame length */
+    private int windowTableCount = 0;
+
+    public DetectorWorkspace() {
+    }
+
+    public DetectorWorkspace(int frameLength, FastFourierTransform specificFFT) {
+        ensureCapacity(frameLength, specificFFT);
+    }
+
+    public DetectorWorkspace(int frameLength, FloatFastFourierTransform specificFFT) {
+        ensureCapacity(frameLength, specificFFT);
+    }
+
+    /**
+     * Grows the buffers, if needed, to fit frames of the given length. Does nothing when they are big enough.
+     */
+    public void ensureCapacity(int frameLength, FastFourierTransform specificFFT) {
+        if (samples.length < frameLength) {
+            samples = new double[frameLength];
+        }
+        if (windowed.length < frameLength) {
+            windowed = new double[frameLength];
+        }
+        int spectrogramLength = specificFFT.getSpectrogramLength(frameLength);
+        if (spectrogram.length < spectrogramLength) {
+            spectrogram = new double[spectrogramLength];
+        }
+    }
+
+    /**
+     * Single precision variant of {@link #ensureCapacity(int, FastFourierTransform)}.
+     */
+    public void ensureCapacity(int frameLength, FloatFastFourierTransform specificFFT) {
+        ensureFloatCapacity(frameLength, specificFFT.getSpectrogramLength(frameLength));
+    }
+
+    void ensureFloatCapacity(int frameLength, int spectrogramLength) {
+        if (windowedFloat.length < frameLength) {
+            windowedFloat = new float[frameLength];
+        }
+        if (spectrogramFloat.length < spectrogramLength) {
+            spectrogramFloat = new float[spectrogramLength];
+        }
+    }
+
+    /**
+     * Returns the coefficients of the window for frames of the given length. They are taken from the window
+     * once per length and then kept, so frames whose length follows the pitch neither recompute nor copy them,
+     * however many lengths they go through. A new window replaces the tables of the previous one.
+     */
+    float[] windowCoefficients(FloatWindow window, int length) {
+        if (window != tableWindow) {
+            tableWindow = window;
+            Arrays.fill(windowTables, null);
+            windowTableCount = 0;
+        }
+        for (int i = 0; i < windowTableCount; i++) {
+            if (windowTables[i].length == length) {
+                return windowTables[i];
+            }
+        }
+        if (windowTableCount == windowTables.length) {
+            windowTables = Arrays.copyOf(windowTables, Math.max(4, windowTableCount * 2));
+        }
+        float[] coefficients = window.getFloatCoefficients(length);
+        windowTables[windowTableCount++] = coefficients;
+        return coefficients;
+    }
+
+    /**
+     * Returns the input frame buffer, which callers may fill before calling the detector.
+     */
+    public double[] getSamples() {
+        return samples;
+    }
+
+    /**
+     * Returns the spectrogram calculated for the last processed frame.
+     */
+    public double[] getSpectrogram() {
+        return spectrogram;
+    }
+
+    /**
+     * Returns the spectrogram calculated for the last frame processed in single precision.
+     */
+    public float[] getFloatSpectrogram() {
+        return spectrogramFloat;
+    }
+
+    /**
+     * Returns how periodic the last processed frame is at the detected period, from 0 when no frequency was found
+     * to 1: the normalised correlation of the verified fragment with its copy shifted by the period.
+     */
+    public double getConfidence() {
+        return confidence;
+    }
+
+    /**
+     * Returns the amount of pitch candidates of the last processed frame, collected only when the detector
+     * was asked to, see {@link FFTFrequencyDetector#setCandidatesCollected(boolean)}.
+     */
+    public int getCandidateCount() {
+        return candidateCount;
+    }
+
+    /**
+     * Returns the frequencies of the candidates, the detected frequency first. The array is reused for every frame.
+     */
+    public double[] getCandidateFrequencies() {
+        return candidateFrequencies;
+    }
+
+    /**
+     * Returns the confidences of the candidates, in the order of {@link #getCandidateFrequencies()}.
+     */
+    public double[] getCandidateConfidences() {
+        return candidateConfidences;
+    }
+}
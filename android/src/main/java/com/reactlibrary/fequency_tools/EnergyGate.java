@@ -0,0 +1,112 @@
+package com.reactlibrary.fequency_tools;
+
+/**
+ * Tells frames worth analysing from silence and room noise by their energy, before any detector runs.
+ * The gate tracks the noise floor: it follows the level down at once and creeps up slowly, so it adapts to a louder
+ * room. While the gate is open the floor holds as long as the level stays openMargin dB above it, so a sustained note
+ * is never taken for the room however long it lasts; a level lingering between the margins, such as a room which got
+ * louder during a note, still lets the floor creep up until the gate closes. The gate opens when the level rises
+ * openMargin dB above the floor and closes when it falls below closeMargin dB above it; the gap between the margins
+ * keeps it from flickering around a single threshold. Frames below minLevel dBFS are always silence.
+ * The floor starts at minLevel, so a stream starting with sound is analysed from its first frame.
+ */
+public class EnergyGate {
+    public static final double DEFAULT_OPEN_MARGIN_DB = 12;
+    public static final double DEFAULT_CLOSE_MARGIN_DB = 6;
+    public static final double DEFAULT_MIN_LEVEL_DB = -70;
+    public static final double DEFAULT_FLOOR_RISE_DB_PER_SECOND = 3;
+    private static final double SILENCE_DB = -200;
+
+    private final double openMarginDb;
+    private final double closeMarginDb;
+    private final double minLevelDb;
+    private final double floorRiseDbPerSecond;
+
+    private double levelDb = SILENCE_DB;
+    private double noiseFloorDb;
+    private boolean open = false;
+
+    public EnergyGate() {
+        this(DEFAULT_OPEN_MARGIN_DB, DEFAULT_CLOSE_MARGIN_DB, DEFAULT_MIN_LEVEL_DB, DEFAULT_FLOOR_RISE_DB_PER_SECOND);
+    }
+
+    public EnergyGate(double openMarginDb, double closeMarginDb, double minLevelDb, double floorRiseDbPerSecond) {
+        if (closeMarginDb < 0) {
+            throw new IllegalArgumentException("The value of closeMarginDb is invalid!");
+        }
+        if (openMarginDb < closeMarginDb) {
+            throw new IllegalArgumentException("The value of openMarginDb is invalid!");
+        }
+        if (floorRiseDbPerSecond < 0) {
+            throw new IllegalArgumentException("The value of floorRiseDbPerSecond is invalid!");
+        }
+        this.openMarginDb = openMarginDb;
+        this.closeMarginDb = closeMarginDb;
+        this.minLevelDb = minLevelDb;
+        this.floorRiseDbPerSecond = floorRiseDbPerSecond;
+        this.noiseFloorDb = minLevelDb;
+    }
+
+    public static double meanSquare(short[] pcmData, int length) {
+        long sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += pcmData[i] * pcmData[i];
+        }
+        return length == 0 ? 0 : sum * ((double) SampleBuffer.PCM_16BIT_SCALE * SampleBuffer.PCM_16BIT_SCALE) / length;
+    }
+
+    public static double meanSquare(float[] samples, int length) {
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += samples[i] * samples[i];
+        }
+        return length == 0 ? 0 : sum / length;
+    }
+
+    /**
+     * Feeds the energy of the next frame to the gate.
+     * @param meanSquare mean square of the normalised samples of the frame
+     * @param frameSeconds time since the previous frame
+     * @return whether the gate is open, i.e. the frame is worth analysing
+     */
+    public boolean update(double meanSquare, double frameSeconds) {
+        levelDb = meanSquare > 0 ? Math.max(SILENCE_DB, 10 * Math.log10(meanSquare)) : SILENCE_DB;
+
+        if (levelDb < noiseFloorDb) {
+            noiseFloorDb = levelDb;
+        } else if (!open || levelDb - noiseFloorDb < openMarginDb) {
+            noiseFloorDb = Math.min(levelDb, noiseFloorDb + floorRiseDbPerSecond * frameSeconds);
+        }
+
+        double margin = levelDb - noiseFloorDb;
+        if (levelDb < minLevelDb) {
+            open = false;
+        } else if (open) {
+            open = margin >= closeMarginDb;
+        } else {
+            open = margin >= openMarginDb;
+        }
+        return open;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Returns the level of the last frame in dBFS.
+     */
+    public double getLevelDb() {
+        return levelDb;
+    }
+
+    public double getNoiseFloorDb() {
+        return noiseFloorDb;
+    }
+
+    public void reset() {
+        levelDb = SILENCE_DB;
+        noiseFloorDb = minLevelDb;
+        open = false;
+    }
+}
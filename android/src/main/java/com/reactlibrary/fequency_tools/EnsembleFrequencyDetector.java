@@ -0,0 +1,234 @@
+package com.reactlibrary.fequency_tools;
+
+import com.reactlibrary.fequency_tools.fft_utils.FloatFastFourierTransform;
+import com.reactlibrary.fequency_tools.windows.FloatWindow;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs {@link FFTFrequencyDetector} and {@link YINFrequencyDetector} over the same frame at once and fuses their
+ * estimates. The FFT detector runs on the calling thread and YIN on a worker thread owned by the ensemble, so
+ * on a multi-core device a frame takes about as long as the slower of the two detectors. Neither of them writes
+ * to the frame, so they share it without copying.
+ * <p>
+ * The probability YIN reports is on a scale of its own, so the confidence of its estimate is measured by the FFT
+ * detector on the same frame, the same way as the one of its own estimate. Estimates within
+ * {@link #AGREEMENT_OCTAVES} of each other are averaged, weighted by their confidence, and their confidences
+ * combined as independent evidence. When one estimate is a whole multiple of the other, up to
+ * {@link #MAX_HARMONIC} times, the higher one is kept, because a signal periodic in one period is periodic in
+ * several as well, unless the lower one is more confident by {@link #SUBHARMONIC_CONFIDENCE_MARGIN}. Any other
+ * disagreement keeps the more confident estimate, with the probability that it is the right one if only one of them
+ * is as its confidence. A YIN estimate outside the detected range is dropped.
+ * <p>
+ * The fused confidence replaces the one of the workspace. When the detector collects candidates, see
+ * {@link FFTFrequencyDetector#setCandidatesCollected(boolean)}, an accepted YIN estimate strengthens the candidate
+ * it agrees with or is added as a candidate of its own, so a {@link PitchTracker} follows the fused evidence.
+ * <p>
+ * An ensemble is driven by one thread at a time, and {@link #close()} stops its worker.
+ */
+public class EnsembleFrequencyDetector {
+    public static final double AGREEMENT_OCTAVES = 0.03;
+    public static final double SUBHARMONIC_CONFIDENCE_MARGIN = 0.1;
+    public static final int MAX_HARMONIC = 4;
+    private static final double HARMONIC_TOLERANCE = 0.05;      /** In octaves */
+    private static final double LOG_2 = Math.log(2);
+
+    private final FFTFrequencyDetector fftDetector;
+    private final YINFrequencyDetector yinDetector;
+    private final Thread worker;
+    private final Semaphore frameReady = new Semaphore(0);
+    private final Semaphore frameDone = new Semaphore(0);
+    private volatile boolean closed = false;
+
+    // handed over between the threads through the semaphores, which order the accesses
+    private SampleBuffer frame = null;
+    private float yinResult = -1;
+    private RuntimeException yinError = null;
+
+    private double fftFrequency = 0;
+    private double fftConfidence = 0;
+    private double yinFrequency = 0;
+    private double yinConfidence = 0;
+    private double confidence = 0;
+
+    public EnsembleFrequencyDetector(FFTFrequencyDetector fftDetector) {
+        this(fftDetector, YINFrequencyDetector.DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param yinThreshold threshold of the YIN detector, in (0, 1)
+     */
+    public EnsembleFrequencyDetector(FFTFrequencyDetector fftDetector, float yinThreshold) {
+        if (fftDetector == null) {
+            throw new IllegalArgumentException("The value of fftDetector can not be null!");
+        }
+        if (yinThreshold <= 0 || yinThreshold >= 1) {
+            throw new IllegalArgumentException("The value of yinThreshold is invalid!");
+        }
+        this.fftDetector = fftDetector;
+        this.yinDetector = new YINFrequencyDetector();
+        this.yinDetector.setThreshold(yinThreshold);
+
+        this.worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runYin();
+            }
+        }, "EnsembleFrequencyDetector-yin");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Returns the confidence of the last fused estimate, in [0, 1].
+     */
+    public double getConfidence() {
+        return confidence;
+    }
+
+    /**
+     * Returns the last estimate of the FFT detector, 0 if it found none.
+     */
+    public double getFFTFrequency() {
+        return fftFrequency;
+    }
+
+    /**
+     * Returns the last estimate of the YIN detector within the detected range, 0 if it found none.
+     */
+    public double getYINFrequency() {
+        return yinFrequency;
+    }
+
+    /**
+     * Analyses the frame with both detectors and returns the fused estimate, 0 if neither found a pitch.
+     * The parameters are the ones of
+     * {@link FFTFrequencyDetector#findFrequency(SampleBuffer, double, double, FloatFastFourierTransform, FloatWindow, DetectorWorkspace)}.
+     */
+    public double findFrequency(SampleBuffer samples, double minFreq, double maxFreq,
+                                FloatFastFourierTransform specificFFT, FloatWindow window, DetectorWorkspace workspace) {
+        if (closed) {
+            throw new IllegalStateException("The ensemble is closed!");
+        }
+
+        frame = samples;
+        frameReady.release();
+        try {
+            fftFrequency = fftDetector.findFrequency(samples, minFreq, maxFreq, specificFFT, window, workspace);
+        } finally {
+            // the frame must not change while the worker still reads it
+            frameDone.acquireUninterruptibly();
+            frame = null;
+        }
+        if (yinError != null) {
+            RuntimeException error = yinError;
+            yinError = null;
+            throw error;
+        }
+
+        fftConfidence = fftFrequency > 0 ? workspace.confidence : 0;
+        boolean yinInRange = yinResult >= minFreq && yinResult <= maxFreq;
+        yinFrequency = yinInRange ? yinResult : 0;
+        yinConfidence = yinInRange
+                ? fftDetector.measureConfidence(yinFrequency, samples.getSampleRate(), minFreq, workspace) : 0;
+
+        double frequency = fuse();
+        workspace.confidence = confidence;
+        if (yinFrequency > 0 && workspace.candidateCount > 0 && agree(frequency, yinFrequency)) {
+            fuseCandidates(workspace);
+        }
+        return frequency;
+    }
+
+    /**
+     * Stops the worker thread. The ensemble can not be used afterwards.
+     */
+    public void close() {
+        closed = true;
+        frameReady.release();
+    }
+
+    private void runYin() {
+        while (true) {
+            frameReady.acquireUninterruptibly();
+            if (closed) {
+                return;
+            }
+            try {
+                yinResult = yinDetector.findFrequency(frame);
+            } catch (RuntimeException e) {
+                yinResult = -1;
+                yinError = e;
+            }
+            frameDone.release();
+        }
+    }
+
+    private double fuse() {
+        if (fftFrequency <= 0 || yinFrequency <= 0) {
+            confidence = fftFrequency > 0 ? fftConfidence : yinConfidence;
+            return fftFrequency > 0 ? fftFrequency : yinFrequency;
+        }
+
+        if (agree(fftFrequency, yinFrequency)) {
+            confidence = combine(fftConfidence, yinConfidence);
+            double weights = fftConfidence + yinConfidence;
+            return weights > 0
+                    ? (fftConfidence * fftFrequency + yinConfidence * yinFrequency) / weights
+                    : (fftFrequency + yinFrequency) / 2;
+        }
+
+        boolean fftHigher = fftFrequency > yinFrequency;
+        double higher = fftHigher ? fftFrequency : yinFrequency;
+        double higherConfidence = fftHigher ? fftConfidence : yinConfidence;
+        double lower = fftHigher ? yinFrequency : fftFrequency;
+        double lowerConfidence = fftHigher ? yinConfidence : fftConfidence;
+        long harmonic = Math.round(higher / lower);
+        if (harmonic >= 2 && harmonic <= MAX_HARMONIC
+                && Math.abs(Math.log(higher / (lower * harmonic)) / LOG_2) < HARMONIC_TOLERANCE) {
+            if (lowerConfidence > higherConfidence + SUBHARMONIC_CONFIDENCE_MARGIN) {
+                confidence = lowerConfidence;
+                return lower;
+            }
+            confidence = higherConfidence;
+            return higher;
+        }
+
+        boolean fftBetter = fftConfidence >= yinConfidence;
+        double best = fftBetter ? fftConfidence : yinConfidence;
+        double other = fftBetter ? yinConfidence : fftConfidence;
+        double bestRight = best * (1 - other);
+        double otherRight = other * (1 - best);
+        confidence = bestRight + otherRight > 0 ? bestRight / (bestRight + otherRight) : 0;
+        return fftBetter ? fftFrequency : yinFrequency;
+    }
+
+    /**
+     * Strengthens the candidate the YIN estimate agrees with, or adds the estimate as a candidate if there is room.
+     */
+    private void fuseCandidates(DetectorWorkspace workspace) {
+        for (int i = 0; i < workspace.candidateCount; i++) {
+            if (agree(workspace.candidateFrequencies[i], yinFrequency)) {
+                workspace.candidateConfidences[i] = combine(workspace.candidateConfidences[i], yinConfidence);
+                return;
+            }
+        }
+        if (workspace.candidateCount < DetectorWorkspace.CANDIDATES_AMOUNT) {
+            workspace.candidateIntervals[workspace.candidateCount] = 0;
+            workspace.candidateFrequencies[workspace.candidateCount] = yinFrequency;
+            workspace.candidateConfidences[workspace.candidateCount] = yinConfidence;
+            workspace.candidateCount++;
+        }
+    }
+
+    private static boolean agree(double first, double second) {
+        return Math.abs(Math.log(first / second) / LOG_2) < AGREEMENT_OCTAVES;
+    }
+
+    /**
+     * Confidence of two agreeing estimates, taken as independent evidence.
+     */
+    private static double combine(double first, double second) {
+        return 1 - (1 - first) * (1 - second);
+    }
+}
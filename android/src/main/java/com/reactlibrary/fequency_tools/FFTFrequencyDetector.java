@@ -1,137 +1,482 @@
 package com.reactlibrary.fequency_tools;
 
 import com.reactlibrary.fequency_tools.fft_utils.FastFourierTransform;
+import com.reactlibrary.fequency_tools.fft_utils.FloatFastFourierTransform;
+import com.reactlibrary.fequency_tools.windows.FloatWindow;
 import com.reactlibrary.fequency_tools.windows.Window;
-import com.reactlibrary.auxiliary_types.Pair;
-
-import java.util.Arrays;
+import com.reactlibrary.instrumentation.PipelineMetrics;
 
 public class FFTFrequencyDetector
 {
     public static final int MIN_FREQUENCY = 50;
     public static final int MAX_FREQUENCY = 500;
 
-    private static final int peaksAmount = 15;
+    static final int REFINE_RADIUS = 4;
+    private static final int REFINE_ITERATIONS = 24;
+    private static final double GOLDEN_RATIO_CONJUGATE = (Math.sqrt(5) - 1) / 2;
+    private static final double MIN_PEAK_RATIO = 0.01;    /** Weakest verified peak relative to the strongest one */
+    private static final double HARMONIC_CONFIDENCE_LOSS = 0.1;  /** Loss accepted for a period at a harmonic peak */
+
+    private PipelineMetrics metrics = null;
+    private boolean candidatesCollected = false;
+
+    /**
+     * Makes the detector record the latency of its stages, or stop recording it when null.
+     */
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Makes the detector collect the pitch candidates of every frame into the workspace for a tracker:
+     * the detected period, its octaves and the best period verified around every spectral peak,
+     * each refined and with its own confidence. Off by default, as it costs a few more difference sums per frame.
+     */
+    public void setCandidatesCollected(boolean candidatesCollected) {
+        this.candidatesCollected = candidatesCollected;
+    }
 
+    /**
+     * Analyses a frame in double precision up to its spectrum. The peak and period search that follows runs in
+     * single precision, as for the other variants, so this variant is no more accurate than them and only adds
+     * the conversion of the frame and spectrum.
+     * @deprecated the search runs in single precision; analyse a {@link SampleBuffer} or 16-bit PCM instead, see
+     *             {@link #findFrequency(SampleBuffer, double, double, FloatFastFourierTransform, FloatWindow,
+     *             DetectorWorkspace)}
+     */
+    @Deprecated
     public double findFrequency(double[] soundData, int sampleRate, double minFreq, double maxFreq, FastFourierTransform specificFFT, Window window) {
         if(specificFFT == null) {
             throw new IllegalArgumentException("The value of param FastFourierTransform can not be null!");
         }
 
+        DetectorWorkspace workspace = new DetectorWorkspace(soundData.length, specificFFT);
+        return findFrequency(soundData, soundData.length, sampleRate, minFreq, maxFreq, specificFFT, window, workspace);
+    }
+
+    /**
+     * Same as {@link #findFrequency(double[], int, double, double, FastFourierTransform, Window)},
+     * but analyses only the first length values and keeps all intermediate data in the given workspace,
+     * so it does not allocate once the workspace has grown to the frame length.
+     * @deprecated the search runs in single precision, like the one of the variant above
+     */
+    @Deprecated
+    public double findFrequency(double[] soundData, int length, int sampleRate, double minFreq, double maxFreq,
+                                FastFourierTransform specificFFT, Window window, DetectorWorkspace workspace) {
+        if(specificFFT == null) {
+            throw new IllegalArgumentException("The value of param FastFourierTransform can not be null!");
+        }
+        if(workspace == null) {
+            throw new IllegalArgumentException("The value of param DetectorWorkspace can not be null!");
+        }
+
+        workspace.ensureCapacity(length, specificFFT);
+        workspace.confidence = 0;
+        workspace.candidateCount = 0;
+        long time = metrics != null ? System.nanoTime() : 0;
+
         double[] processedData;
         if(window != null) {
-            processedData = window.applyWindow(soundData);
+            processedData = workspace.windowed;
+            window.applyWindow(soundData, processedData, length);
         } else {
             processedData = soundData;
         }
+        if (metrics != null) {
+            time = metrics.record(PipelineMetrics.Stage.WINDOW, time);
+        }
 
-        double[] spectrogram = specificFFT.calculateSpectrogram(processedData);
+        double[] spectrogram = workspace.spectrogram;
+        int spectrogramLength = specificFFT.getSpectrogramLength(length);
+        specificFFT.calculateSpectrogram(processedData, length, spectrogram);
 
-        int usefulMinSpectrum = Math.max(0,
-                (int)(minFreq * spectrogram.length / sampleRate));
-        int usefulMaxSpectrum = Math.min(spectrogram.length,
-                (int)(maxFreq * spectrogram.length / sampleRate) + 1);
-
-        int[] peakIndices;
-        peakIndices = findPeaks(spectrogram, usefulMinSpectrum, usefulMaxSpectrum - usefulMinSpectrum,
-                peaksAmount);
-        if (Arrays.binarySearch(peakIndices, usefulMinSpectrum) >= 0) {
-            // no detectable sound due to appearance of a minimal
-            // useful spectrum bin
-            return 0;
+        // the search runs in single precision, like the one of the other paths
+        workspace.ensureFloatCapacity(length, spectrogramLength);
+        float[] processedFloat = workspace.windowedFloat;
+        for (int i = 0; i < length; i++) {
+            processedFloat[i] = (float) processedData[i];
+        }
+        float[] spectrogramFloat = workspace.spectrogramFloat;
+        for (int i = 0; i < spectrogramLength; i++) {
+            spectrogramFloat[i] = (float) spectrogram[i];
+        }
+        if (metrics != null) {
+            time = metrics.record(PipelineMetrics.Stage.FFT, time);
         }
 
-        // select fragment to check peak values: data offset
-        final int verifyFragmentOffset = 0;
-        int verifyFragmentLength = (int)(sampleRate / minFreq);
+        return findFrequencyInSpectrum(processedFloat, length, spectrogramFloat, spectrogramLength, sampleRate,
+                minFreq, maxFreq, workspace, time);
+    }
 
+    /**
+     * Single precision variant, analysing the frame held by a shared sample buffer.
+     */
+    public double findFrequency(SampleBuffer samples, double minFreq, double maxFreq,
+                                FloatFastFourierTransform specificFFT, FloatWindow window, DetectorWorkspace workspace) {
+        if(specificFFT == null) {
+            throw new IllegalArgumentException("The value of param FloatFastFourierTransform can not be null!");
+        }
+        if(workspace == null) {
+            throw new IllegalArgumentException("The value of param DetectorWorkspace can not be null!");
+        }
 
-        // trying all peaks to find one with smaller difference value
-        double minPeakValue = Double.MAX_VALUE;
-        int minOptimalInterval = 0;
-        for (int i = 0; i < peakIndices.length; i++) {
-            int index = peakIndices[i];
-            int binIntervalStart = spectrogram.length / (index + 1);
-            int binIntervalEnd = spectrogram.length / index;
-            int tempInterval = 0;
-            double tempPeakValue = 0;
-            // scan bins frequencies/intervals
-            Pair<Double, Integer> scanResult = scanSignalIntervals(processedData, verifyFragmentOffset, verifyFragmentLength,
-                    binIntervalStart, binIntervalEnd);
-
-            tempPeakValue = scanResult.getFirst();
-            tempInterval = scanResult.getSecond();
-
-            if (tempPeakValue < minPeakValue) {
-                minPeakValue = tempPeakValue;
-                minOptimalInterval = tempInterval;
+        final int length = samples.getLength();
+        workspace.ensureCapacity(length, specificFFT);
+        workspace.confidence = 0;
+        workspace.candidateCount = 0;
+        long time = metrics != null ? System.nanoTime() : 0;
+
+        float[] processedData;
+        if(window != null) {
+            processedData = workspace.windowedFloat;
+            float[] input = samples.getSamples();
+            float[] coefficients = workspace.windowCoefficients(window, length);
+            for (int i = 0; i < length; i++) {
+                processedData[i] = input[i] * coefficients[i];
             }
+        } else {
+            processedData = samples.getSamples();
+        }
+        if (metrics != null) {
+            time = metrics.record(PipelineMetrics.Stage.WINDOW, time);
         }
 
-        return (double)sampleRate / minOptimalInterval;
+        return findFrequencyInProcessed(processedData, length, samples.getSampleRate(), minFreq, maxFreq,
+                specificFFT, workspace, time);
     }
 
-    private Pair<Double, Integer> scanSignalIntervals(double[] x, int index, int length,
-                                                      int intervalMin, int intervalMax) {
-        double optimalValue = Double.MAX_VALUE;
-        int optimalInterval = 0;
-
-        // distance between min and max range value can be big
-        // limiting it to the fixed value
-        final int maxAmount = 100;
-        int steps = intervalMax - intervalMin;
-        if (steps > maxAmount)
-            steps = maxAmount;
-        else if (steps <= 0)
-            steps = 1;
+    /**
+     * Single precision variant, taking 16-bit PCM samples directly. Conversion and windowing
+     * are done in one pass into the workspace, without an intermediate copy of the frame.
+     */
+    public double findFrequency(short[] pcmData, int length, int sampleRate, double minFreq, double maxFreq,
+                                FloatFastFourierTransform specificFFT, FloatWindow window, DetectorWorkspace workspace) {
+        if(specificFFT == null) {
+            throw new IllegalArgumentException("The value of param FloatFastFourierTransform can not be null!");
+        }
+        if(workspace == null) {
+            throw new IllegalArgumentException("The value of param DetectorWorkspace can not be null!");
+        }
 
-        // trying all intervals in the range to find one with
-        // smaller difference in signal waves
-        for (int i = 0; i < steps; i++) {
-            int interval = intervalMin + (intervalMax - intervalMin) * i / steps;
+        workspace.ensureCapacity(length, specificFFT);
+        workspace.confidence = 0;
+        workspace.candidateCount = 0;
+        long time = metrics != null ? System.nanoTime() : 0;
 
-            double sum = 0;
-            for (int j = 0; j < length; j++) {
-                double diff = x[index + j] - x[index + j + interval];
-                sum += diff * diff;
+        float[] processedData = workspace.windowedFloat;
+        if(window != null) {
+            float[] coefficients = workspace.windowCoefficients(window, length);
+            for (int i = 0; i < length; i++) {
+                processedData[i] = pcmData[i] * SampleBuffer.PCM_16BIT_SCALE * coefficients[i];
             }
-            if (optimalValue > sum) {
-                optimalValue = sum;
-                optimalInterval = interval;
+        } else {
+            for (int i = 0; i < length; i++) {
+                processedData[i] = pcmData[i] * SampleBuffer.PCM_16BIT_SCALE;
             }
         }
+        if (metrics != null) {
+            time = metrics.record(PipelineMetrics.Stage.WINDOW, time);
+        }
 
-        return new Pair<>(optimalValue, optimalInterval);
+        return findFrequencyInProcessed(processedData, length, sampleRate, minFreq, maxFreq,
+                specificFFT, workspace, time);
     }
 
-    private int[] findPeaks(double[] values, int index, int length, int peaksCount) {
-        double[] peakValues = new double[peaksCount];
-        int[] peakIndices = new int[peaksCount];
+    private double findFrequencyInProcessed(float[] processedData, int length, int sampleRate, double minFreq, double maxFreq,
+                                            FloatFastFourierTransform specificFFT, DetectorWorkspace workspace,
+                                            long time) {
+        float[] spectrogram = workspace.spectrogramFloat;
+        int spectrogramLength = specificFFT.getSpectrogramLength(length);
+        specificFFT.calculateSpectrogram(processedData, length, spectrogram);
+        if (metrics != null) {
+            time = metrics.record(PipelineMetrics.Stage.FFT, time);
+        }
+
+        return findFrequencyInSpectrum(processedData, length, spectrogram, spectrogramLength, sampleRate,
+                minFreq, maxFreq, workspace, time);
+    }
+
+    /**
+     * Searches the period of a windowed frame among the intervals of the strongest peaks of its spectrum.
+     * All paths end here, so the frame and its spectrum are in single precision.
+     */
+    private double findFrequencyInSpectrum(float[] processedData, int length, float[] spectrogram,
+                                           int spectrogramLength, int sampleRate, double minFreq, double maxFreq,
+                                           DetectorWorkspace workspace, long time) {
+        workspace.processedFloat = processedData;
+        workspace.processedLength = length;
+
+        int usefulMinSpectrum = Math.max(0,
+                (int)(minFreq * spectrogramLength / sampleRate));
+        // one more bin, which holds the peak of a tone at maxFreq when it falls past the middle of its bin
+        int usefulMaxSpectrum = Math.min(spectrogramLength,
+                (int)(maxFreq * spectrogramLength / sampleRate) + 2);
+
+        SpectralPeaks peaks = workspace.peaks;
+        int peaksCount = peaks.select(spectrogram, spectrogramLength, usefulMinSpectrum, usefulMaxSpectrum);
+        if (metrics != null) {
+            time = metrics.record(PipelineMetrics.Stage.PEAK_PICKING, time);
+        }
+        if (peaksCount == 0 || peaks.indices[0] == usefulMinSpectrum) {
+            // no detectable sound due to the strongest peak appearing
+            // at the minimal useful spectrum bin
+            return 0;
+        }
+
+        int verifyFragmentLength = (int)(sampleRate / minFreq);
+
+        // the sidelobes of a strong peak, at -43 dB and below for a Hamming window, are local maxima as well,
+        // and an integer interval of a sidelobe far below the peak may beat its fractional period
+        double minPeakMagnitude = peaks.magnitudes[0] * MIN_PEAK_RATIO;
+        while (peaks.magnitudes[peaksCount - 1] < minPeakMagnitude) {
+            peaksCount--;
+        }
+
+        // only intervals of frequencies within [minFreq, maxFreq] which fit the frame are verified, with one more
+        // interval past each end, so the period of a tone right at the edge can be refined from both sides
+        final int minInterval = Math.max(1, (int)(sampleRate / maxFreq) - 1);
+        final int maxInterval = Math.min(length - verifyFragmentLength, (int)(sampleRate / minFreq) + 1);
+        if (minInterval > maxInterval) {
+            return 0;
+        }
+        final int verifyFragmentOffset = fragmentOffset(length, verifyFragmentLength, maxInterval);
+        PeriodVerifier verifier = workspace.verifier;
+        verifier.begin(maxInterval);
+        for (int i = 0; i < peaksCount; i++) {
+            // intervals of the frequencies within half a bin of the interpolated peak
+            double position = peaks.positions[i];
+            int binIntervalStart = Math.max(minInterval, (int)(spectrogramLength / (position + 0.5)));
+            int binIntervalEnd = position > 0.5
+                    ? Math.min(maxInterval + 1, (int)Math.ceil(spectrogramLength / (position - 0.5)) + 1)
+                    : maxInterval + 1;
+            workspace.rangeIntervals[i] = binIntervalStart < binIntervalEnd
+                    ? verifier.verify(processedData, verifyFragmentOffset, verifyFragmentLength,
+                            binIntervalStart, binIntervalEnd)
+                    : 0;
+        }
+
+        int optimalInterval = verifier.getBestInterval();
+        if (optimalInterval == 0) {
+            return 0;
+        }
+        double interval = refineInterval(processedData, verifyFragmentOffset, verifyFragmentLength, length,
+                optimalInterval, workspace);
+        workspace.confidence = correlation(processedData, verifyFragmentOffset, verifyFragmentLength,
+                optimalInterval, workspace.refinedDifference);
 
+        // a multiple of the period matches about as well as the period itself, and nothing favours the shorter
+        // one in the flat middle of the window, but a peak at a harmonic of the found frequency gives it away
+        double foundConfidence = workspace.confidence;
         for (int i = 0; i < peaksCount; i++) {
-            peakValues[i] = values[peakIndices[i] = i + index];
+            double position = peaks.positions[i];
+            int harmonic = (int) Math.round(position * interval / spectrogramLength);
+            int shorter = harmonic >= 2 ? (int) Math.round(interval / harmonic) : 0;
+            if (shorter < minInterval || shorter >= optimalInterval
+                    || Math.abs(position - harmonic * spectrogramLength / interval) > 1) {
+                continue;
+            }
+            double shorterInterval = refineInterval(processedData, verifyFragmentOffset, verifyFragmentLength,
+                    length, shorter, workspace);
+            double confidence = correlation(processedData, verifyFragmentOffset, verifyFragmentLength, shorter,
+                    workspace.refinedDifference);
+            if (confidence >= foundConfidence - HARMONIC_CONFIDENCE_LOSS) {
+                optimalInterval = shorter;
+                interval = shorterInterval;
+                workspace.confidence = confidence;
+            }
         }
+        if (candidatesCollected) {
+            collectCandidates(processedData, verifyFragmentOffset, verifyFragmentLength, length, sampleRate,
+                    minFreq, maxFreq, optimalInterval, interval, peaksCount, workspace);
+        }
+        if (metrics != null) {
+            metrics.record(PipelineMetrics.Stage.INTERVAL_SCAN, time);
+        }
+        double frequency = sampleRate / interval;
+        if (interval < minInterval || interval > maxInterval) {
+            // the refinement moved the period past the verified intervals
+            workspace.confidence = 0;
+            workspace.candidateCount = 0;
+            return 0;
+        }
+        return frequency;
+    }
 
-        // find min peaked value
-        double minStoredPeak = peakValues[0];
-        int minIndex = 0;
-        for (int i = 1; i < peaksCount; i++) {
-            if (minStoredPeak > peakValues[i]) minStoredPeak = peakValues[minIndex = i];
+    /**
+     * Measures the confidence of a frequency found elsewhere, e.g. by another detector, on the frame the workspace
+     * last analysed in single precision, the same way as the one of a detected period, so the two can be compared.
+     * @return the confidence in [0, 1], 0 if the period of the frequency does not fit the frame
+     */
+    double measureConfidence(double frequency, int sampleRate, double minFreq, DetectorWorkspace workspace) {
+        float[] x = workspace.processedFloat;
+        int length = workspace.processedLength;
+        int fragmentLength = (int)(sampleRate / minFreq);
+        int maxInterval = Math.min(length - fragmentLength, (int)(sampleRate / minFreq) + 1);
+        int interval = frequency > 0 ? (int) Math.round(sampleRate / frequency) : 0;
+        if (x == null || interval < 1 || interval > maxInterval) {
+            return 0;
         }
+        int offset = fragmentOffset(length, fragmentLength, maxInterval);
+        refineInterval(x, offset, fragmentLength, length, interval, workspace);
+        return correlation(x, offset, fragmentLength, interval, workspace.refinedDifference);
+    }
+
+    /**
+     * Returns the start of the verified fragment which centers the samples compared with the longest interval
+     * in the frame. The frame is windowed, and a window such as Hann is close to zero at its edges, where it
+     * would leave nothing to compare, but flat around its middle.
+     */
+    private static int fragmentOffset(int length, int fragmentLength, int maxInterval) {
+        return (length - fragmentLength - maxInterval) / 2;
+    }
 
-        for (int i = peaksCount; i < length; i++) {
-            if (minStoredPeak < values[i + index]) {
-                // replace the min peaked value with bigger one
-                peakValues[minIndex] = values[peakIndices[minIndex] = i + index];
+    /**
+     * Collects the candidates of a frame, the detected one first, then the octaves of its period,
+     * then the best periods of the peak ranges, skipping periods within a sample of a collected one.
+     * @param available amount of valid values in x
+     */
+    private static void collectCandidates(float[] x, int index, int length, int available, int sampleRate,
+                                          double minFreq, double maxFreq, int bestInterval, double refinedInterval,
+                                          int rangeCount, DetectorWorkspace workspace) {
+        workspace.candidateIntervals[0] = bestInterval;
+        workspace.candidateFrequencies[0] = sampleRate / refinedInterval;
+        workspace.candidateConfidences[0] = workspace.confidence;
+        workspace.candidateCount = 1;
 
-                // and find min peaked value again
-                minStoredPeak = peakValues[minIndex = 0];
-                for (int j = 1; j < peaksCount; j++) {
-                    if (minStoredPeak > peakValues[j]) minStoredPeak = peakValues[minIndex = j];
-                }
+        int maxInterval = available - index - length;
+        int doubled = (int) Math.round(2 * refinedInterval);
+        if (doubled <= maxInterval) {
+            addCandidate(x, index, length, available, sampleRate, minFreq, maxFreq, doubled, workspace);
+        }
+        int halved = (int) Math.round(refinedInterval / 2);
+        if (halved >= 1) {
+            addCandidate(x, index, length, available, sampleRate, minFreq, maxFreq, halved, workspace);
+        }
+        for (int i = 0; i < rangeCount; i++) {
+            int interval = workspace.rangeIntervals[i];
+            if (interval != 0) {
+                addCandidate(x, index, length, available, sampleRate, minFreq, maxFreq, interval, workspace);
             }
         }
+    }
 
-        return peakIndices;
+    private static void addCandidate(float[] x, int index, int length, int available, int sampleRate,
+                                     double minFreq, double maxFreq, int interval, DetectorWorkspace workspace) {
+        int count = workspace.candidateCount;
+        if (count == DetectorWorkspace.CANDIDATES_AMOUNT) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            if (Math.abs(workspace.candidateIntervals[i] - interval) <= 1) {
+                return;
+            }
+        }
+        double frequency = sampleRate / refineInterval(x, index, length, available, interval, workspace);
+        if (frequency < minFreq || frequency > maxFreq) {
+            return;
+        }
+        workspace.candidateIntervals[count] = interval;
+        workspace.candidateFrequencies[count] = frequency;
+        workspace.candidateConfidences[count] = correlation(x, index, length, interval,
+                workspace.refinedDifference);
+        workspace.candidateCount = count + 1;
+    }
+
+    /**
+     * Normalised correlation of a fragment with its copy shifted by the interval, derived from their
+     * squared difference, which does not depend on the gain of the window over the fragment.
+     */
+    private static double correlation(float[] x, int index, int length, int interval, double difference) {
+        double energy = 0;
+        double shiftedEnergy = 0;
+        for (int j = 0; j < length; j++) {
+            energy += x[index + j] * x[index + j];
+            shiftedEnergy += x[index + j + interval] * x[index + j + interval];
+        }
+        double norm = Math.sqrt(energy * shiftedEnergy);
+        if (norm == 0) {
+            return 0;
+        }
+        // the difference sum is energy + shiftedEnergy - 2 * correlation
+        double correlation = (energy + shiftedEnergy - difference) / (2 * norm);
+        return Math.max(0, Math.min(1, correlation));
+    }
+
+    private static double squaredDifference(float[] x, int index, int length, int interval) {
+        double sum = 0;
+        for (int j = 0; j < length; j++) {
+            float diff = x[index + j] - x[index + j + interval];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    /**
+     * Refines an interval to a fraction of a sample, which keeps the estimate accurate when a period spans
+     * only a few samples, e.g. after decimation. The difference function is band limited like the signal,
+     * so it is sampled at the neighbouring intervals and its minimum is searched in between them
+     * on the windowed sinc interpolation of these values. The difference at the minimum is left in the workspace.
+     * @param available amount of valid values in x
+     */
+    private static double refineInterval(float[] x, int index, int length, int available, int interval,
+                                         DetectorWorkspace workspace) {
+        int radius = Math.min(REFINE_RADIUS, Math.min(interval - 1, available - index - length - interval));
+        if (radius < 1) {
+            workspace.refinedDifference = squaredDifference(x, index, length, interval);
+            return interval;
+        }
+        double[] differences = workspace.refineDifferences;
+        for (int k = -radius; k <= radius; k++) {
+            differences[k + radius] = squaredDifference(x, index, length, interval + k);
+        }
+        double offset = findInterpolatedMinimum(differences, radius);
+        // the interpolation may overshoot the sampled values, but the difference can not be negative
+        double difference = interpolate(differences, radius, offset);
+        workspace.refinedDifference = Math.max(0, Math.min(differences[radius], difference));
+        return interval + offset;
+    }
+
+    /**
+     * Golden-section search of the minimum of the interpolated differences within a sample of the center.
+     */
+    private static double findInterpolatedMinimum(double[] differences, int radius) {
+        double low = -1;
+        double high = 1;
+        double left = high - GOLDEN_RATIO_CONJUGATE * (high - low);
+        double right = low + GOLDEN_RATIO_CONJUGATE * (high - low);
+        double leftValue = interpolate(differences, radius, left);
+        double rightValue = interpolate(differences, radius, right);
+        for (int i = 0; i < REFINE_ITERATIONS; i++) {
+            if (leftValue < rightValue) {
+                high = right;
+                right = left;
+                rightValue = leftValue;
+                left = high - GOLDEN_RATIO_CONJUGATE * (high - low);
+                leftValue = interpolate(differences, radius, left);
+            } else {
+                low = left;
+                left = right;
+                leftValue = rightValue;
+                right = low + GOLDEN_RATIO_CONJUGATE * (high - low);
+                rightValue = interpolate(differences, radius, right);
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    /**
+     * Hann-windowed sinc interpolation of values sampled at [-radius, radius].
+     */
+    private static double interpolate(double[] values, int radius, double position) {
+        // sin(pi * (position - k)) only changes its sign with k
+        double sine = Math.sin(Math.PI * position);
+        double sum = 0;
+        for (int k = -radius; k <= radius; k++) {
+            double distance = position - k;
+            double sinc = Math.abs(distance) < 1e-9 ? 1 : ((k & 1) == 0 ? sine : -sine) / (Math.PI * distance);
+            double window = 0.5 + 0.5 * Math.cos(Math.PI * distance / (radius + 1));
+            sum += values[k + radius] * sinc * window;
+        }
+        return sum;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,170 @@
+package com.reactlibrary.fequency_tools;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Derives level and timbre features of a frame from the magnitude spectrum already computed for the pitch estimate,
+ * so a richer analysis costs no additional transform. Only the configured features are computed.
+ * <p>
+ * Spectral features use the bins up to the Nyquist frequency with magnitudes scaled to amplitudes, 2 * |X| / length.
+ * The RMS level is taken from the samples of the frame, which is cheaper than summing the spectrum
+ * and does not depend on the window. The extractor keeps the spectrum of the previous frame for the flux,
+ * so it has to be used for consecutive frames of one stream.
+ */
+public class FeatureExtractor {
+    public static final int DEFAULT_SPECTRUM_BANDS = 32;
+
+    public enum Feature {
+        RMS,
+        SPECTRAL_CENTROID,
+        SPECTRAL_FLUX,
+        SPECTRUM
+    }
+
+    private final Set<Feature> features;
+    private final float[] bands;
+    private float[] previousMagnitudes = new float[0];
+    private boolean hasPrevious = false;
+
+    private double rms = 0;
+    private double spectralCentroid = 0;
+    private double spectralFlux = 0;
+
+    /**
+     * @param spectrumBands amount of bands the spectrum up to the Nyquist frequency is decimated to,
+     *                      by taking the max magnitude of the bins in every band
+     */
+    public FeatureExtractor(Set<Feature> features, int spectrumBands) {
+        if (features == null) {
+            throw new IllegalArgumentException("The value of features can not be null!");
+        }
+        if (spectrumBands <= 0) {
+            throw new IllegalArgumentException("The value of spectrumBands is invalid!");
+        }
+        this.features = features.isEmpty() ? EnumSet.noneOf(Feature.class) : EnumSet.copyOf(features);
+        this.bands = new float[features.contains(Feature.SPECTRUM) ? spectrumBands : 0];
+    }
+
+    public boolean hasFeature(Feature feature) {
+        return features.contains(feature);
+    }
+
+    public double getRms() {
+        return rms;
+    }
+
+    /**
+     * Returns the amplitude weighted mean frequency of the spectrum in Hz, 0 for silence.
+     */
+    public double getSpectralCentroid() {
+        return spectralCentroid;
+    }
+
+    /**
+     * Returns the sum of the amplitude increases of all bins since the previous frame, which peaks at onsets.
+     */
+    public double getSpectralFlux() {
+        return spectralFlux;
+    }
+
+    /**
+     * Returns the decimated spectrum, one max amplitude per band. The array is reused for every frame.
+     */
+    public float[] getSpectrum() {
+        return bands;
+    }
+
+    /**
+     * Extracts the features of a frame of 16-bit PCM samples.
+     * @param spectrum magnitude spectrum of the frame, of spectrumLength bins
+     */
+    public void extract(short[] pcmData, int length, float[] spectrum, int spectrumLength, int sampleRate) {
+        if (features.contains(Feature.RMS)) {
+            double sum = 0;
+            for (int i = 0; i < length; i++) {
+                float sample = pcmData[i] * SampleBuffer.PCM_16BIT_SCALE;
+                sum += sample * sample;
+            }
+            rms = length == 0 ? 0 : Math.sqrt(sum / length);
+        }
+        extractSpectral(length, spectrum, spectrumLength, sampleRate);
+    }
+
+    /**
+     * Extracts the features of a frame of normalised samples.
+     * @param spectrum magnitude spectrum of the frame, of spectrumLength bins
+     */
+    public void extract(float[] samples, int length, float[] spectrum, int spectrumLength, int sampleRate) {
+        if (features.contains(Feature.RMS)) {
+            double sum = 0;
+            for (int i = 0; i < length; i++) {
+                sum += samples[i] * samples[i];
+            }
+            rms = length == 0 ? 0 : Math.sqrt(sum / length);
+        }
+        extractSpectral(length, spectrum, spectrumLength, sampleRate);
+    }
+
+    /**
+     * Forgets the previous frame, e.g. after a gap in the stream.
+     */
+    public void reset() {
+        hasPrevious = false;
+    }
+
+    private void extractSpectral(int frameLength, float[] spectrum, int spectrumLength, int sampleRate) {
+        boolean centroid = features.contains(Feature.SPECTRAL_CENTROID);
+        boolean flux = features.contains(Feature.SPECTRAL_FLUX);
+        boolean decimated = features.contains(Feature.SPECTRUM);
+        if (!centroid && !flux && !decimated) {
+            return;
+        }
+
+        int binCount = spectrumLength / 2 + 1;
+        float scale = frameLength == 0 ? 0 : 2.0F / frameLength;
+        double binWidth = (double) sampleRate / spectrumLength;
+
+        if (flux && previousMagnitudes.length != binCount) {
+            previousMagnitudes = new float[binCount];
+            hasPrevious = false;
+        }
+        if (decimated) {
+            Arrays.fill(bands, 0);
+        }
+
+        double weightedSum = 0;
+        double magnitudeSum = 0;
+        double increase = 0;
+        for (int i = 0; i < binCount; i++) {
+            float magnitude = spectrum[i] * scale;
+
+            weightedSum += i * binWidth * magnitude;
+            magnitudeSum += magnitude;
+
+            if (flux) {
+                float difference = magnitude - previousMagnitudes[i];
+                if (difference > 0) {
+                    increase += difference;
+                }
+                previousMagnitudes[i] = magnitude;
+            }
+
+            if (decimated) {
+                int band = (int) ((long) i * bands.length / binCount);
+                if (bands[band] < magnitude) {
+                    bands[band] = magnitude;
+                }
+            }
+        }
+
+        if (centroid) {
+            spectralCentroid = magnitudeSum == 0 ? 0 : weightedSum / magnitudeSum;
+        }
+        if (flux) {
+            spectralFlux = hasPrevious ? increase : 0;
+            hasPrevious = true;
+        }
+    }
+}
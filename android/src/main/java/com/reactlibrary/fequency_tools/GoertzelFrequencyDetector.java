@@ -0,0 +1,340 @@
+package com.reactlibrary.fequency_tools;
+
+import java.util.Arrays;
+
+/**
+ * Tuner style detector, which only looks for a known set of target frequencies (e.g. note pitches).
+ * Every target is tracked by a Goertzel filter, updated sample by sample, so a result is available
+ * as soon as a block of blockSize samples has arrived, without waiting for a full FFT frame.
+ * Samples are weighted with a Hann window over the block, which widens the response of every filter
+ * to about two frequency resolutions (sampleRate / blockSize) on each side of its target.
+ * Each target also has two side filters, one frequency resolution below and above it; the magnitudes
+ * of the three are interpolated to estimate how far the input is from the strongest target, in cents.
+ * Offsets are resolved up to one frequency resolution, so the resolution has to reach from every target
+ * to a quarter tone away from it, or half way to its neighbour when that is closer; see {@link #maxBlockSize}.
+ * Tones further than that from every target may go undetected.
+ */
+public class GoertzelFrequencyDetector {
+    public static final double DEFAULT_A4_FREQUENCY = 440.0;
+    public static final double DEFAULT_MIN_AMPLITUDE = 0.01;
+
+    private static final int FILTERS_PER_TARGET = 3;
+    private static final double QUARTER_TONE = Math.pow(2, 1 / 24.0);
+
+    private final double[] targetFrequencies;
+    private final int sampleRate;
+    private final int blockSize;
+    private final double sideOffset;    /** Distance of the side filters from their target, in Hertz */
+    private final double[] window;
+    private final double[] coefficients;
+    private final double[] state1;
+    private final double[] state2;
+    private double minAmplitude = DEFAULT_MIN_AMPLITUDE;
+    private int position = 0;
+    private boolean resultReady = false;
+
+    private int strongestTarget = -1;
+    private double amplitude = 0;
+    private double centsOffset = 0;
+    private double estimatedFrequency = 0;
+
+    /**
+     * Uses the longest block which resolves the targets, see {@link #maxBlockSize(double[], int)}.
+     * @param targetFrequencies frequencies to look for, in Hertz
+     * @param sampleRate sample rate of the input
+     */
+    public GoertzelFrequencyDetector(double[] targetFrequencies, int sampleRate) {
+        this(targetFrequencies, sampleRate, maxBlockSize(targetFrequencies, sampleRate));
+    }
+
+    /**
+     * @param targetFrequencies frequencies to look for, in Hertz
+     * @param sampleRate sample rate of the input
+     * @param blockSize amount of samples per result; the frequency resolution is sampleRate / blockSize,
+     *                  so it may be at most {@link #maxBlockSize(double[], int)}
+     */
+    public GoertzelFrequencyDetector(double[] targetFrequencies, int sampleRate, int blockSize) {
+        if (blockSize <= 0 || blockSize > maxBlockSize(targetFrequencies, sampleRate)) {
+            throw new IllegalArgumentException("The value of blockSize is invalid!");
+        }
+
+        this.targetFrequencies = targetFrequencies.clone();
+        this.sampleRate = sampleRate;
+        this.blockSize = blockSize;
+        this.sideOffset = (double) sampleRate / blockSize;
+
+        this.window = new double[blockSize];
+        for (int i = 0; i < blockSize; i++) {
+            window[i] = 0.5 - 0.5 * Math.cos(2 * Math.PI * i / blockSize);
+        }
+
+        int filters = targetFrequencies.length * FILTERS_PER_TARGET;
+        this.coefficients = new double[filters];
+        this.state1 = new double[filters];
+        this.state2 = new double[filters];
+        for (int i = 0; i < targetFrequencies.length; i++) {
+            double frequency = targetFrequencies[i];
+            if (frequency - sideOffset <= 0 || frequency + sideOffset >= sampleRate / 2.0) {
+                throw new IllegalArgumentException("The target frequency " + frequency + " is invalid!");
+            }
+            int filter = i * FILTERS_PER_TARGET;
+            coefficients[filter] = coefficient(frequency - sideOffset);
+            coefficients[filter + 1] = coefficient(frequency);
+            coefficients[filter + 2] = coefficient(frequency + sideOffset);
+        }
+    }
+
+    /**
+     * Returns the longest block whose frequency resolution reaches from every target to a quarter tone away
+     * from it on either side, or half way to the neighbouring target on that side when that is closer,
+     * so every tone within these bounds is found by the closest target and its offset is resolved.
+     */
+    public static int maxBlockSize(double[] targetFrequencies, int sampleRate) {
+        if (targetFrequencies == null || targetFrequencies.length == 0) {
+            throw new IllegalArgumentException("The value of targetFrequencies can not be empty!");
+        }
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("The value of sampleRate is invalid!");
+        }
+        double[] sorted = targetFrequencies.clone();
+        Arrays.sort(sorted);
+        if (sorted[0] <= 0) {
+            throw new IllegalArgumentException("The target frequency " + sorted[0] + " is invalid!");
+        }
+
+        double resolution = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            double below = sorted[i] - sorted[i] / QUARTER_TONE;
+            if (i > 0) {
+                below = Math.min(below, (sorted[i] - sorted[i - 1]) / 2);
+            }
+            double above = sorted[i] * QUARTER_TONE - sorted[i];
+            if (i + 1 < sorted.length) {
+                above = Math.min(above, (sorted[i + 1] - sorted[i]) / 2);
+            }
+            resolution = Math.max(resolution, Math.max(below, above));
+        }
+        return resolution > 0 ? (int) (sampleRate / resolution) : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns the equal-tempered note frequencies in [minFreq, maxFreq].
+     * @param a4Frequency tuning reference, usually 440 Hz
+     */
+    public static double[] equalTemperedNotes(double minFreq, double maxFreq, double a4Frequency) {
+        int lowest = (int) Math.ceil(12 * log2(minFreq / a4Frequency));
+        int highest = (int) Math.floor(12 * log2(maxFreq / a4Frequency));
+        double[] notes = new double[Math.max(0, highest - lowest + 1)];
+        for (int i = 0; i < notes.length; i++) {
+            notes[i] = a4Frequency * Math.pow(2, (lowest + i) / 12.0);
+        }
+        return notes;
+    }
+
+    private double coefficient(double frequency) {
+        return 2 * Math.cos(2 * Math.PI * frequency / sampleRate);
+    }
+
+    /**
+     * Magnitude response of a Hann windowed filter to a tone the given amount of resolutions away, 1 at 0.
+     */
+    private static double hannResponse(double shift) {
+        if (shift < 1e-9) {
+            return 1;
+        }
+        if (Math.abs(1 - shift) < 1e-9) {
+            return 0.5;
+        }
+        return Math.sin(Math.PI * shift) / (Math.PI * shift * (1 - shift * shift));
+    }
+
+    private static double log2(double value) {
+        return Math.log(value) / Math.log(2);
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public double getMinAmplitude() {
+        return minAmplitude;
+    }
+
+    /**
+     * Sets the smallest amplitude of the strongest target, relative to full scale, still reported as a detection.
+     */
+    public void setMinAmplitude(double minAmplitude) {
+        this.minAmplitude = minAmplitude;
+    }
+
+    /**
+     * Feeds normalised samples until the end of the chunk or of the current block, whichever comes first.
+     * @return the amount of samples consumed; check {@link #isResultReady()} afterwards
+     */
+    public int process(float[] samples, int offset, int length) {
+        resultReady = false;
+        int count = Math.min(length, blockSize - position);
+        for (int i = 0; i < count; i++) {
+            update(samples[offset + i] * window[position + i]);
+        }
+        advance(count);
+        return count;
+    }
+
+    /**
+     * Same as {@link #process(float[], int, int)}, taking 16-bit PCM samples.
+     */
+    public int process(short[] pcmData, int offset, int length) {
+        resultReady = false;
+        int count = Math.min(length, blockSize - position);
+        for (int i = 0; i < count; i++) {
+            update(pcmData[offset + i] * SampleBuffer.PCM_16BIT_SCALE * window[position + i]);
+        }
+        advance(count);
+        return count;
+    }
+
+    /**
+     * Feeds a single sample.
+     * @return true if it completed a block, i.e. a new result is available
+     */
+    public boolean process(float sample) {
+        resultReady = false;
+        update(sample * window[position]);
+        advance(1);
+        return resultReady;
+    }
+
+    private void update(double sample) {
+        for (int f = 0; f < coefficients.length; f++) {
+            double s0 = sample + coefficients[f] * state1[f] - state2[f];
+            state2[f] = state1[f];
+            state1[f] = s0;
+        }
+    }
+
+    private void advance(int count) {
+        position += count;
+        if (position == blockSize) {
+            evaluate();
+            position = 0;
+            resultReady = true;
+        }
+    }
+
+    private double power(int filter) {
+        double s1 = state1[filter];
+        double s2 = state2[filter];
+        return s1 * s1 + s2 * s2 - coefficients[filter] * s1 * s2;
+    }
+
+    private void evaluate() {
+        int strongest = -1;
+        double strongestPower = 0;
+        for (int i = 0; i < targetFrequencies.length; i++) {
+            double power = power(i * FILTERS_PER_TARGET + 1);
+            if (power > strongestPower) {
+                strongestPower = power;
+                strongest = i;
+            }
+        }
+
+        if (strongest < 0) {
+            amplitude = 0;
+            strongestTarget = -1;
+            centsOffset = 0;
+            estimatedFrequency = 0;
+        } else {
+            int filter = strongest * FILTERS_PER_TARGET;
+            double below = Math.sqrt(power(filter));
+            double center = Math.sqrt(strongestPower);
+            double above = Math.sqrt(power(filter + 2));
+
+            // Grandke's interpolation for the Hann window: with the ratio r of the larger side magnitude
+            // to the center one, a pure tone lies (2r - 1) / (r + 1) resolutions away from the center
+            double ratio = Math.max(below, above) / center;
+            double shift = Math.max(0, Math.min(1, (2 * ratio - 1) / (ratio + 1)));
+
+            // a sine of amplitude A gives a power of (A * N / 4)^2 at its frequency, the Hann window halves
+            // the (A * N / 2) of a plain Goertzel filter, and the response falls off with the shift
+            amplitude = 4 * center / blockSize / hannResponse(shift);
+            if (below > above) {
+                shift = -shift;
+            }
+
+            double target = targetFrequencies[strongest];
+            if (amplitude < minAmplitude) {
+                strongestTarget = -1;
+                centsOffset = 0;
+                estimatedFrequency = 0;
+            } else {
+                strongestTarget = strongest;
+                estimatedFrequency = target + shift * sideOffset;
+                centsOffset = 1200 * log2(estimatedFrequency / target);
+            }
+        }
+
+        for (int f = 0; f < coefficients.length; f++) {
+            state1[f] = 0;
+            state2[f] = 0;
+        }
+    }
+
+    /**
+     * Returns true right after a call to process completed a block.
+     */
+    public boolean isResultReady() {
+        return resultReady;
+    }
+
+    /**
+     * Returns the index of the strongest target of the last block, -1 if nothing was detected.
+     */
+    public int getStrongestTarget() {
+        return strongestTarget;
+    }
+
+    /**
+     * Returns the strongest target frequency of the last block, 0 if nothing was detected.
+     */
+    public double getTargetFrequency() {
+        return strongestTarget < 0 ? 0 : targetFrequencies[strongestTarget];
+    }
+
+    /**
+     * Returns how far the input of the last block is from the strongest target, in cents.
+     */
+    public double getCentsOffset() {
+        return centsOffset;
+    }
+
+    /**
+     * Returns the input frequency of the last block estimated around the strongest target, 0 if nothing was detected.
+     */
+    public double getEstimatedFrequency() {
+        return estimatedFrequency;
+    }
+
+    /**
+     * Returns the amplitude at the strongest target of the last block, relative to full scale.
+     */
+    public double getAmplitude() {
+        return amplitude;
+    }
+
+    /**
+     * Drops the samples of the current block.
+     */
+    public void reset() {
+        for (int f = 0; f < coefficients.length; f++) {
+            state1[f] = 0;
+            state2[f] = 0;
+        }
+        position = 0;
+        resultReady = false;
+    }
+}
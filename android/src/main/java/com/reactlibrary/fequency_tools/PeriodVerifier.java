@@ -0,0 +1,127 @@
+package com.reactlibrary.fequency_tools;
+
+import java.util.Arrays;
+
+/**
+ * Verifies candidate periods of a frame: finds the interval with the smallest squared difference between a fragment
+ * of the signal and its copy shifted by the interval, among ranges of candidate intervals.
+ * <p>
+ * Each range holds the intervals of the frequencies within half a bin of a spectral peak. It is narrower than half
+ * a period, so the difference has a single valley in it, which is searched coarse to fine: on a grid of a few
+ * intervals first, then around the best one with a halving step. A difference sum is abandoned as soon as it grows
+ * past the best complete sum found so far in the frame. Partial sums are kept per interval for the whole frame,
+ * so ranges of neighbouring peaks which overlap resume them instead of starting over.
+ * <p>
+ * All storage grows with the longest interval seen and is reused, so a verifier must not be shared between threads.
+ */
+final class PeriodVerifier {
+    private static final int COARSE_STEPS = 8;
+    private static final int ABANDON_BLOCK = 16;    /** Samples summed between two checks against the best sum */
+
+    private double[] sums = new double[0];          /** Partial difference sums per interval */
+    private int[] progress = new int[0];            /** Amount of samples summed per interval */
+    private int[] stamps = new int[0];              /** Frame in which the partial sums were computed */
+    private int stamp = 0;
+    private double bestSum = Double.MAX_VALUE;
+    private int bestInterval = 0;
+
+    /**
+     * Starts the verification of a new frame, forgetting the sums of the previous one.
+     * @param maxInterval the longest interval which may be verified in the frame
+     */
+    void begin(int maxInterval) {
+        if (stamps.length <= maxInterval) {
+            sums = new double[maxInterval + 1];
+            progress = new int[maxInterval + 1];
+            stamps = new int[maxInterval + 1];
+            stamp = 0;
+        }
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+        bestSum = Double.MAX_VALUE;
+        bestInterval = 0;
+    }
+
+    /**
+     * Returns the interval with the smallest difference verified since {@link #begin(int)}, 0 if there is none.
+     */
+    int getBestInterval() {
+        return bestInterval;
+    }
+
+    /**
+     * Searches the intervals in [intervalMin, intervalMax) of the fragment x[index, index + length),
+     * or intervalMin alone if the range is empty.
+     * @return the best interval of the range, 0 if all of them were abandoned
+     */
+    int verify(float[] x, int index, int length, int intervalMin, int intervalMax) {
+        intervalMin = Math.max(1, intervalMin);
+        intervalMax = Math.min(stamps.length, Math.max(intervalMin + 1, intervalMax));
+        if (intervalMin >= intervalMax) {
+            return 0;
+        }
+
+        int step = Math.max(1, (intervalMax - intervalMin) / COARSE_STEPS);
+        int best = 0;
+        double bestRangeSum = Double.MAX_VALUE;
+        for (int interval = intervalMin; interval < intervalMax; interval += step) {
+            double sum = sum(x, index, length, interval);
+            if (progress[interval] == length && sum < bestRangeSum) {
+                bestRangeSum = sum;
+                best = interval;
+            }
+        }
+        if (best == 0) {
+            // every interval of the range is worse than the best one of another range
+            return 0;
+        }
+
+        while (step > 1) {
+            step /= 2;
+            int center = best;
+            for (int interval = center - step; interval <= center + step; interval += 2 * step) {
+                if (interval < intervalMin || interval >= intervalMax) {
+                    continue;
+                }
+                double sum = sum(x, index, length, interval);
+                if (progress[interval] == length && sum < bestRangeSum) {
+                    bestRangeSum = sum;
+                    best = interval;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Continues the difference sum of the interval until it is complete or exceeds the best sum.
+     * @return the complete sum, or a lower bound of it if it was abandoned
+     */
+    private double sum(float[] x, int index, int length, int interval) {
+        if (stamps[interval] != stamp) {
+            stamps[interval] = stamp;
+            progress[interval] = 0;
+            sums[interval] = 0;
+        }
+
+        int j = progress[interval];
+        double sum = sums[interval];
+        while (j < length && sum < bestSum) {
+            int blockEnd = Math.min(length, j + ABANDON_BLOCK);
+            for (; j < blockEnd; j++) {
+                float diff = x[index + j] - x[index + j + interval];
+                sum += diff * diff;
+            }
+        }
+        progress[interval] = j;
+        sums[interval] = sum;
+
+        if (j == length && sum < bestSum) {
+            bestSum = sum;
+            bestInterval = interval;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,202 @@
+package com.reactlibrary.fequency_tools;
+
+/**
+ * Follows the pitch across consecutive frames, so short frames give a stable output without waiting for
+ * two frames to agree. Every frame yields a pitch, 0 when unvoiced, and a confidence.
+ * <p>
+ * The pitch candidates of each frame, see {@link FFTFrequencyDetector#setCandidatesCollected(boolean)},
+ * are the states of a hidden Markov model, together with an unvoiced state. A candidate costs the negative
+ * log of its confidence, the unvoiced state the negative log of the highest miss of all candidates,
+ * moving between candidates costs per octave of the jump and switching voicing a fixed amount.
+ * The Viterbi recursion runs forward and the cheapest path end of every frame is reported, so no frames
+ * are held back.
+ * <p>
+ * Octave errors are corrected on two sides: the candidates include the octaves of the detected period with their
+ * own measured confidence, and a candidate an octave below a confident one costs more than an octave jump,
+ * because a periodic signal always repeats after two periods as well. Single outliers are then removed
+ * by a running median of the voiced pitch.
+ * <p>
+ * All storage grows with the largest amount of candidates seen and is reused, so a tracker must not be shared
+ * between threads.
+ */
+public class PitchTracker {
+    public static final int DEFAULT_MEDIAN_LENGTH = 3;
+    private static final double MIN_PROBABILITY = 0.01;
+    private static final double OCTAVE_JUMP_COST = 1.0;         /** Cost of a pitch change of one octave */
+    private static final double VOICING_COST = 1.0;             /** Cost of switching between voiced and unvoiced */
+    private static final double SUBHARMONIC_COST = 2.0;         /** Cost of an octave below a confident candidate */
+    private static final double SUBHARMONIC_CONFIDENCE = 0.9;
+    private static final double OCTAVE_TOLERANCE = 0.05;        /** In octaves */
+    private static final double LOG_2 = Math.log(2);
+
+    private final double[] medianValues;                        /** Last voiced pitches, circular */
+    private final double[] medianSorted;
+    private int medianCount = 0;
+    private int medianNext = 0;
+
+    private double[] stateFrequencies = new double[0];
+    private double[] stateCosts = new double[0];
+    private double[] nextFrequencies = new double[0];
+    private double[] nextCosts = new double[0];
+    private int stateCount = 0;
+    private double unvoicedCost = 0;
+
+    private double frequency = 0;
+    private double confidence = 0;
+
+    public PitchTracker() {
+        this(DEFAULT_MEDIAN_LENGTH);
+    }
+
+    /**
+     * @param medianLength amount of frames the median of the voiced pitch spans, 1 to disable it
+     */
+    public PitchTracker(int medianLength) {
+        if (medianLength < 1) {
+            throw new IllegalArgumentException("The value of medianLength is invalid!");
+        }
+        this.medianValues = new double[medianLength];
+        this.medianSorted = new double[medianLength];
+    }
+
+    /**
+     * Returns the pitch tracked up to the last frame, 0 if it is unvoiced.
+     */
+    public double getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * Returns the confidence of the candidate the pitch was tracked to, 0 if it is unvoiced.
+     */
+    public double getConfidence() {
+        return confidence;
+    }
+
+    /**
+     * Takes the candidates of the next frame into account.
+     * @param frequencies candidate frequencies, none for a frame without a pitch
+     * @param confidences candidate confidences, in [0, 1]
+     * @return the tracked pitch, 0 if it is unvoiced
+     */
+    public double update(double[] frequencies, double[] confidences, int count) {
+        if (nextCosts.length < count) {
+            nextFrequencies = new double[count];
+            nextCosts = new double[count];
+            stateFrequencies = copyOf(stateFrequencies, count);
+            stateCosts = copyOf(stateCosts, count);
+        }
+
+        double maxConfidence = 0;
+        for (int i = 0; i < count; i++) {
+            maxConfidence = Math.max(maxConfidence, confidences[i]);
+        }
+
+        double minCost = unvoicedCost;
+        for (int j = 0; j < stateCount; j++) {
+            minCost = Math.min(minCost, stateCosts[j] + VOICING_COST);
+        }
+        double nextUnvoicedCost = minCost + emissionCost(1 - maxConfidence);
+        double bestCost = nextUnvoicedCost;
+        int best = -1;
+
+        for (int i = 0; i < count; i++) {
+            double candidate = frequencies[i];
+            double cost = unvoicedCost + VOICING_COST;
+            for (int j = 0; j < stateCount; j++) {
+                double octaves = Math.abs(Math.log(candidate / stateFrequencies[j])) / LOG_2;
+                cost = Math.min(cost, stateCosts[j] + OCTAVE_JUMP_COST * octaves);
+            }
+            cost += emissionCost(confidences[i]);
+            if (isSubharmonic(candidate, frequencies, confidences, count)) {
+                cost += SUBHARMONIC_COST;
+            }
+            nextFrequencies[i] = candidate;
+            nextCosts[i] = cost;
+            if (cost < bestCost) {
+                bestCost = cost;
+                best = i;
+            }
+        }
+
+        // only differences of the costs matter, so they are kept small
+        double[] swap = stateFrequencies;
+        stateFrequencies = nextFrequencies;
+        nextFrequencies = swap;
+        swap = stateCosts;
+        stateCosts = nextCosts;
+        nextCosts = swap;
+        stateCount = count;
+        for (int i = 0; i < stateCount; i++) {
+            stateCosts[i] -= bestCost;
+        }
+        unvoicedCost = nextUnvoicedCost - bestCost;
+
+        if (best < 0) {
+            frequency = 0;
+            confidence = 0;
+            medianCount = 0;
+        } else {
+            frequency = median(frequencies[best]);
+            confidence = confidences[best];
+        }
+        return frequency;
+    }
+
+    /**
+     * Forgets all frames, e.g. after a gap in the stream.
+     */
+    public void reset() {
+        stateCount = 0;
+        unvoicedCost = 0;
+        medianCount = 0;
+        frequency = 0;
+        confidence = 0;
+    }
+
+    private static double emissionCost(double probability) {
+        return -Math.log(Math.max(MIN_PROBABILITY, Math.min(1 - MIN_PROBABILITY, probability)));
+    }
+
+    private static boolean isSubharmonic(double candidate, double[] frequencies, double[] confidences, int count) {
+        for (int i = 0; i < count; i++) {
+            if (confidences[i] >= SUBHARMONIC_CONFIDENCE
+                    && Math.abs(Math.log(frequencies[i] / candidate) / LOG_2 - 1) < OCTAVE_TOLERANCE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a voiced pitch to the running median and returns the median.
+     */
+    private double median(double pitch) {
+        int length = medianValues.length;
+        if (length == 1) {
+            return pitch;
+        }
+        medianValues[medianNext] = pitch;
+        medianNext = (medianNext + 1) % length;
+        medianCount = Math.min(length, medianCount + 1);
+
+        // insertion sort of the few values in the window
+        for (int i = 0; i < medianCount; i++) {
+            double value = medianValues[(medianNext - 1 - i + length) % length];
+            int j = i;
+            while (j > 0 && medianSorted[j - 1] > value) {
+                medianSorted[j] = medianSorted[j - 1];
+                j--;
+            }
+            medianSorted[j] = value;
+        }
+        // the lower median of an even count, so the output is always one of the pitches
+        return medianSorted[(medianCount - 1) / 2];
+    }
+
+    private static double[] copyOf(double[] values, int length) {
+        double[] copy = new double[length];
+        System.arraycopy(values, 0, copy, 0, Math.min(values.length, length));
+        return copy;
+    }
+}
@@ -0,0 +1,181 @@
+package com.reactlibrary.fequency_tools;
+
+import java.util.Arrays;
+
+/**
+ * Streaming anti-aliased decimator: a windowed-sinc low-pass FIR filter followed by keeping every factor-th sample.
+ * Only the kept outputs of the filter are computed, which is what the polyphase decomposition of a decimator
+ * amounts to, so the cost is taps multiply-adds per output sample rather than per input sample.
+ * The filter state is kept between calls, so the input may be passed in chunks of any length.
+ */
+public class PolyphaseDecimator {
+    public static final int MAX_FACTOR = 16;
+    private static final double MIN_OVERSAMPLING = 8;   /** min output sample rate relative to maxFrequency */
+    private static final double BLACKMAN_TRANSITION_WIDTH = 5.5;   /** taps * transition band / sample rate */
+
+    private final int sampleRate;
+    private final int factor;
+    private final int taps;
+    private final float[] coefficients;
+    private final float[] delayLine;   /** the last taps input samples, newest first, stored twice to stay contiguous */
+    private int position = 0;
+    private int phase = 0;
+
+    /**
+     * Creates a decimator with the largest factor keeping maxFrequency well below the output Nyquist frequency.
+     * @see #factorFor(int, double)
+     */
+    public PolyphaseDecimator(int sampleRate, double maxFrequency) {
+        this(sampleRate, factorFor(sampleRate, maxFrequency), maxFrequency);
+    }
+
+    /**
+     * @param sampleRate input sample rate
+     * @param factor amount of input samples per output sample
+     * @param maxFrequency upper edge of the band which has to pass the filter unharmed,
+     *                     must be below half of the output sample rate
+     */
+    public PolyphaseDecimator(int sampleRate, int factor, double maxFrequency) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("The value of sampleRate is invalid!");
+        }
+        if (factor < 1) {
+            throw new IllegalArgumentException("The value of factor is invalid!");
+        }
+        double outputSampleRate = (double) sampleRate / factor;
+        if (maxFrequency <= 0 || 2 * maxFrequency >= outputSampleRate) {
+            throw new IllegalArgumentException("The value of maxFrequency is invalid!");
+        }
+
+        this.sampleRate = sampleRate;
+        this.factor = factor;
+
+        // the detectors compare the waveform with itself shifted by a period, which harmonics above maxFrequency
+        // folded back onto other frequencies would make aperiodic, so the transition band ends at the output
+        // Nyquist frequency and spans [maxFrequency, outputSampleRate / 2]
+        double transition = outputSampleRate / 2 - maxFrequency;
+        this.taps = (int) Math.ceil(BLACKMAN_TRANSITION_WIDTH * sampleRate / transition) | 1;
+        this.coefficients = designLowPass(taps, (maxFrequency + outputSampleRate / 2) / 2 / sampleRate);
+        this.delayLine = new float[taps * 2];
+    }
+
+    /**
+     * Returns the largest factor in [1, {@link #MAX_FACTOR}] which divides the sample rate, so the output
+     * sample rate stays an integer, and leaves the output sample rate at least 8 times maxFrequency,
+     * so a period at maxFrequency still spans 8 samples for the interval verification of the detectors,
+     * and the filter has room for its transition band between maxFrequency and the output Nyquist frequency.
+     */
+    public static int factorFor(int sampleRate, double maxFrequency) {
+        for (int factor = MAX_FACTOR; factor > 1; factor--) {
+            if (sampleRate % factor == 0 && sampleRate / factor >= MIN_OVERSAMPLING * maxFrequency) {
+                return factor;
+            }
+        }
+        return 1;
+    }
+
+    private static float[] designLowPass(int taps, double cutoff) {
+        float[] coefficients = new float[taps];
+        double[] values = new double[taps];
+        double center = (taps - 1) / 2.0;
+        double sum = 0;
+        for (int i = 0; i < taps; i++) {
+            double x = i - center;
+            double sinc = x == 0 ? 2 * cutoff : Math.sin(2 * Math.PI * cutoff * x) / (Math.PI * x);
+            double phi = 2 * Math.PI * i / (taps - 1);
+            double blackman = 0.42 - 0.5 * Math.cos(phi) + 0.08 * Math.cos(2 * phi);
+            values[i] = sinc * blackman;
+            sum += values[i];
+        }
+        // unity gain at DC
+        for (int i = 0; i < taps; i++) {
+            coefficients[i] = (float) (values[i] / sum);
+        }
+        return coefficients;
+    }
+
+    public int getFactor() {
+        return factor;
+    }
+
+    public int getTaps() {
+        return taps;
+    }
+
+    public int getInputSampleRate() {
+        return sampleRate;
+    }
+
+    public int getOutputSampleRate() {
+        return sampleRate / factor;
+    }
+
+    /**
+     * Returns the max amount of output samples produced by one call with the given amount of input samples.
+     */
+    public int getMaxOutputLength(int inputLength) {
+        return (inputLength + factor - 1) / factor;
+    }
+
+    /**
+     * Filters and decimates 16-bit PCM samples, normalising them to [-1.0, 1.0].
+     * @param out receives the output samples, needs room for {@link #getMaxOutputLength(int)} of them
+     * @return amount of output samples written
+     */
+    public int process(short[] pcmData, int offset, int length, float[] out, int outOffset) {
+        int written = 0;
+        for (int i = 0; i < length; i++) {
+            if (push(pcmData[offset + i] * SampleBuffer.PCM_16BIT_SCALE)) {
+                out[outOffset + written++] = filter();
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Filters and decimates normalised samples.
+     * @param out receives the output samples, needs room for {@link #getMaxOutputLength(int)} of them
+     * @return amount of output samples written
+     */
+    public int process(float[] data, int offset, int length, float[] out, int outOffset) {
+        int written = 0;
+        for (int i = 0; i < length; i++) {
+            if (push(data[offset + i])) {
+                out[outOffset + written++] = filter();
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Clears the filter state, e.g. after a gap in the input.
+     */
+    public void reset() {
+        Arrays.fill(delayLine, 0);
+        position = 0;
+        phase = 0;
+    }
+
+    /**
+     * Stores a sample in the delay line and tells whether an output sample is due.
+     */
+    private boolean push(float sample) {
+        position = (position == 0 ? taps : position) - 1;
+        delayLine[position] = sample;
+        delayLine[position + taps] = sample;
+
+        if (++phase < factor) {
+            return false;
+        }
+        phase = 0;
+        return true;
+    }
+
+    private float filter() {
+        float sum = 0;
+        for (int k = 0, j = position; k < taps; k++, j++) {
+            sum += coefficients[k] * delayLine[j];
+        }
+        return sum;
+    }
+}
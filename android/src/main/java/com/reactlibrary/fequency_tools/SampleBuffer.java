@@ -0,0 +1,72 @@
+package com.reactlibrary.fequency_tools;
+
+/**
+ * A frame of mono samples in single precision, normalised to [-1.0, 1.0], together with its sample rate.
+ * It can be filled once per frame and handed to any of the detectors, so they share one copy of the data.
+ * The buffer is allocated for a fixed capacity and reused for every frame.
+ */
+public class SampleBuffer {
+    // The nominal range of ENCODING_PCM_FLOAT audio data is [-1.0, 1.0], but the capture uses
+    // ENCODING_PCM_16BIT, because ENCODING_PCM_FLOAT is supported only in API LOLLIPOP+ and higher,
+    // so 16-bit samples are divided by the max 16-bit integer value
+    public static final float PCM_16BIT_SCALE = 1.0F / 32768.0F;
+
+    private final float[] samples;
+    private int length = 0;
+    private int sampleRate;
+
+    public SampleBuffer(int capacity, int sampleRate) {
+        this.samples = new float[capacity];
+        this.sampleRate = sampleRate;
+    }
+
+    public float[] getSamples() {
+        return samples;
+    }
+
+    public int getCapacity() {
+        return samples.length;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Sets the amount of valid samples, for callers writing into {@link #getSamples()} directly.
+     */
+    public void setLength(int length) {
+        if (length < 0 || length > samples.length) {
+            throw new IllegalArgumentException("The value of length is invalid!");
+        }
+        this.length = length;
+    }
+
+    /**
+     * Fills the buffer with 16-bit PCM samples, truncating them to the capacity.
+     */
+    public void setFromPcm16(short[] pcmData, int offset, int length) {
+        length = Math.min(length, samples.length);
+        for (int i = 0; i < length; i++) {
+            samples[i] = pcmData[offset + i] * PCM_16BIT_SCALE;
+        }
+        this.length = length;
+    }
+
+    /**
+     * Fills the buffer with normalised samples, truncating them to the capacity.
+     */
+    public void setFromFloat(float[] data, int offset, int length) {
+        length = Math.min(length, samples.length);
+        System.arraycopy(data, offset, samples, 0, length);
+        this.length = length;
+    }
+}
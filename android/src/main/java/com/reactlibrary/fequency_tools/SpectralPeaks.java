@@ -0,0 +1,121 @@
+package com.reactlibrary.fequency_tools;
+
+/**
+ * Selects the strongest local maxima of a magnitude spectrum. A bounded min-heap keeps the best peaks found so far,
+ * so a range of n bins costs O(n log k) for k peaks, and all storage is allocated once and reused for every frame.
+ * After a selection the peaks are sorted by magnitude, strongest first.
+ */
+final class SpectralPeaks {
+    final int[] indices;
+    final double[] magnitudes;
+    final double[] positions;       /** Peak positions in bins, refined by parabolic interpolation */
+    private int count = 0;
+
+    SpectralPeaks(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The value of capacity is invalid!");
+        }
+        this.indices = new int[capacity];
+        this.magnitudes = new double[capacity];
+        this.positions = new double[capacity];
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * Selects the strongest local maxima among the bins in [from, to).
+     * @param spectrumLength amount of valid bins in the spectrum, neighbours of the range are compared up to it
+     * @return amount of peaks found
+     */
+    int select(float[] spectrum, int spectrumLength, int from, int to) {
+        count = 0;
+        for (int i = from; i < to; i++) {
+            float magnitude = spectrum[i];
+            if ((i > 0 && spectrum[i - 1] >= magnitude) || (i + 1 < spectrumLength && spectrum[i + 1] > magnitude)) {
+                continue;
+            }
+            offer(i, magnitude);
+        }
+        sortByMagnitude();
+
+        for (int i = 0; i < count; i++) {
+            int index = indices[i];
+            positions[i] = index > 0 && index + 1 < spectrumLength
+                    ? index + interpolate(spectrum[index - 1], spectrum[index], spectrum[index + 1])
+                    : index;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the offset of the vertex of the parabola through three neighbouring bins from the middle one.
+     */
+    private static double interpolate(double previous, double current, double next) {
+        double curvature = previous - 2 * current + next;
+        if (curvature >= 0) {
+            return 0;
+        }
+        double shift = 0.5 * (previous - next) / curvature;
+        return Math.max(-0.5, Math.min(0.5, shift));
+    }
+
+    private void offer(int index, double magnitude) {
+        if (count < indices.length) {
+            // sift the new peak up from the last leaf
+            int child = count++;
+            while (child > 0) {
+                int parent = (child - 1) >>> 1;
+                if (magnitudes[parent] <= magnitude) {
+                    break;
+                }
+                indices[child] = indices[parent];
+                magnitudes[child] = magnitudes[parent];
+                child = parent;
+            }
+            indices[child] = index;
+            magnitudes[child] = magnitude;
+        } else if (magnitude > magnitudes[0]) {
+            // replace the weakest peak, kept at the root
+            siftDown(index, magnitude, count);
+        }
+    }
+
+    /**
+     * Places the given peak at the root and sifts it down within the first size entries.
+     */
+    private void siftDown(int index, double magnitude, int size) {
+        int parent = 0;
+        while (true) {
+            int child = 2 * parent + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && magnitudes[child + 1] < magnitudes[child]) {
+                child++;
+            }
+            if (magnitudes[child] >= magnitude) {
+                break;
+            }
+            indices[parent] = indices[child];
+            magnitudes[parent] = magnitudes[child];
+            parent = child;
+        }
+        indices[parent] = index;
+        magnitudes[parent] = magnitude;
+    }
+
+    /**
+     * Heap sort: moving the weakest peak behind the shrinking heap leaves the peaks sorted strongest first.
+     */
+    private void sortByMagnitude() {
+        for (int size = count - 1; size > 0; size--) {
+            int weakestIndex = indices[0];
+            double weakestMagnitude = magnitudes[0];
+            siftDown(indices[size], magnitudes[size], size);
+            indices[size] = weakestIndex;
+            magnitudes[size] = weakestMagnitude;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.reactlibrary.fequency_tools;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes the magnitude spectrum and the samples of the latest analysed frame for drawing, so a display can pull
+ * them at its own rate instead of having every frame pushed to it. The spectrum the detector already computed
+ * is reduced to a fixed amount of bins, spaced logarithmically or linearly in frequency, and the samples
+ * are decimated by keeping the peak of every group of samples, so the outline of the waveform survives.
+ * <p>
+ * The analysis thread publishes and one display thread acquires, and neither ever blocks the other: three snapshots
+ * rotate through a single atomic exchange. The producer fills the one it owns and swaps it into the exchange,
+ * the consumer swaps the one it owns for the latest one when a newer one has been published. A snapshot handed to
+ * the consumer stays unchanged until it acquires the next one. All storage is allocated up front.
+ */
+public class SpectrumStreamer {
+    public static final int DEFAULT_BINS = 128;
+    public static final int DEFAULT_DECIMATION = 4;
+    public static final double DEFAULT_MIN_FREQUENCY = 20;
+    private static final int FRESH = 4;                 /** Set in the exchange while it holds an unread snapshot */
+    private static final int INDEX_MASK = 3;
+
+    /**
+     * The data of one frame. Its arrays are reused, so they are only valid until the next acquire.
+     */
+    public static class Snapshot {
+        private final float[] bins;
+        private final float[] waveform;
+        private int waveformLength = 0;
+        private long sequence = 0;
+        private int sampleRate = 0;
+        private double frequency = 0;
+        private double maxFrequency = 0;
+
+        private Snapshot(int binCount, int waveformCapacity) {
+            this.bins = new float[binCount];
+            this.waveform = new float[waveformCapacity];
+        }
+
+        /**
+         * Returns the amplitudes of the bins, 2 * |X| / length, from the lowest frequency to the highest.
+         */
+        public float[] getBins() {
+            return bins;
+        }
+
+        public float[] getWaveform() {
+            return waveform;
+        }
+
+        public int getWaveformLength() {
+            return waveformLength;
+        }
+
+        /**
+         * Returns the number of the frame, counting from 1, so a consumer can tell a new snapshot from a seen one.
+         */
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * Returns the sample rate of the analysed frame, which may be lower than the one of the capture.
+         */
+        public int getSampleRate() {
+            return sampleRate;
+        }
+
+        /**
+         * Returns the frequency reported for the frame, 0 if there was none.
+         */
+        public double getFrequency() {
+            return frequency;
+        }
+
+        /**
+         * Returns the upper edge of the highest bin, the Nyquist frequency of the frame.
+         */
+        public double getMaxFrequency() {
+            return maxFrequency;
+        }
+    }
+
+    private final int binCount;
+    private final boolean logBins;
+    private final int decimation;
+    private final double minFrequency;
+    private final Snapshot[] snapshots;
+    private final AtomicInteger exchange = new AtomicInteger(1);
+    private int back = 0;                               /** Owned by the producer */
+    private int front = 2;                              /** Owned by the consumer */
+    private long published = 0;
+
+    /**
+     * @param maxFrameLength length of the longest frame that will be published
+     */
+    public SpectrumStreamer(int maxFrameLength) {
+        this(DEFAULT_BINS, true, DEFAULT_DECIMATION, DEFAULT_MIN_FREQUENCY, maxFrameLength);
+    }
+
+    /**
+     * @param binCount amount of bins the spectrum is reduced to
+     * @param logBins whether the bins are spaced logarithmically from minFrequency, linearly from 0 otherwise
+     * @param decimation amount of samples of the frame per waveform point
+     * @param minFrequency lower edge of the lowest logarithmic bin, in Hz
+     * @param maxFrameLength length of the longest frame that will be published
+     */
+    public SpectrumStreamer(int binCount, boolean logBins, int decimation, double minFrequency, int maxFrameLength) {
+        if (binCount <= 0) {
+            throw new IllegalArgumentException("The value of binCount is invalid!");
+        }
+        if (decimation <= 0) {
+            throw new IllegalArgumentException("The value of decimation is invalid!");
+        }
+        if (minFrequency <= 0) {
+            throw new IllegalArgumentException("The value of minFrequency is invalid!");
+        }
+        if (maxFrameLength < 0) {
+            throw new IllegalArgumentException("The value of maxFrameLength is invalid!");
+        }
+        this.binCount = binCount;
+        this.logBins = logBins;
+        this.decimation = decimation;
+        this.minFrequency = minFrequency;
+        int waveformCapacity = (maxFrameLength + decimation - 1) / decimation;
+        this.snapshots = new Snapshot[] {
+                new Snapshot(binCount, waveformCapacity),
+                new Snapshot(binCount, waveformCapacity),
+                new Snapshot(binCount, waveformCapacity)
+        };
+    }
+
+    public int getBinCount() {
+        return binCount;
+    }
+
+    public boolean isLogBins() {
+        return logBins;
+    }
+
+    public int getDecimation() {
+        return decimation;
+    }
+
+    public double getMinFrequency() {
+        return minFrequency;
+    }
+
+    /**
+     * Producer side. Publishes a frame of 16-bit PCM samples, truncating the waveform to the capacity.
+     * @param spectrum magnitude spectrum of the frame, of spectrumLength bins
+     */
+    public void publish(short[] pcmData, int length, float[] spectrum, int spectrumLength, int sampleRate,
+                        double frequency) {
+        Snapshot snapshot = snapshots[back];
+        float[] waveform = snapshot.waveform;
+        int points = Math.min(waveform.length, (length + decimation - 1) / decimation);
+        for (int point = 0, start = 0; point < points; point++, start += decimation) {
+            int end = Math.min(length, start + decimation);
+            int peak = pcmData[start];
+            for (int i = start + 1; i < end; i++) {
+                if (Math.abs(pcmData[i]) > Math.abs(peak)) {
+                    peak = pcmData[i];
+                }
+            }
+            waveform[point] = peak * SampleBuffer.PCM_16BIT_SCALE;
+        }
+        finish(snapshot, points, length, spectrum, spectrumLength, sampleRate, frequency);
+    }
+
+    /**
+     * Producer side. Publishes a frame of normalised samples, truncating the waveform to the capacity.
+     * @param spectrum magnitude spectrum of the frame, of spectrumLength bins
+     */
+    public void publish(float[] samples, int length, float[] spectrum, int spectrumLength, int sampleRate,
+                        double frequency) {
+        Snapshot snapshot = snapshots[back];
+        float[] waveform = snapshot.waveform;
+        int points = Math.min(waveform.length, (length + decimation - 1) / decimation);
+        for (int point = 0, start = 0; point < points; point++, start += decimation) {
+            int end = Math.min(length, start + decimation);
+            float peak = samples[start];
+            for (int i = start + 1; i < end; i++) {
+                if (Math.abs(samples[i]) > Math.abs(peak)) {
+                    peak = samples[i];
+                }
+            }
+            waveform[point] = peak;
+        }
+        finish(snapshot, points, length, spectrum, spectrumLength, sampleRate, frequency);
+    }
+
+    /**
+     * Consumer side. Returns the latest published snapshot, the one returned before if nothing was published
+     * since, or null if nothing was published yet.
+     */
+    public Snapshot acquire() {
+        if ((exchange.get() & FRESH) != 0) {
+            front = exchange.getAndSet(front) & INDEX_MASK;
+        }
+        Snapshot snapshot = snapshots[front];
+        return snapshot.sequence == 0 ? null : snapshot;
+    }
+
+    private void finish(Snapshot snapshot, int points, int frameLength, float[] spectrum, int spectrumLength,
+                        int sampleRate, double frequency) {
+        snapshot.waveformLength = points;
+        reduceSpectrum(snapshot.bins, frameLength, spectrum, spectrumLength, sampleRate);
+        snapshot.sequence = ++published;
+        snapshot.sampleRate = sampleRate;
+        snapshot.frequency = frequency;
+        snapshot.maxFrequency = sampleRate / 2.0;
+
+        // hands the filled snapshot over and takes back the one the consumer has not taken, or has released
+        back = exchange.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Takes the max amplitude of the spectrum bins within every output bin. Output bins narrower than a spectrum
+     * bin, at the low end of a logarithmic scale, take the interpolated amplitude at their center instead.
+     */
+    private void reduceSpectrum(float[] bins, int frameLength, float[] spectrum, int spectrumLength, int sampleRate) {
+        Arrays.fill(bins, 0);
+        int nyquistBin = spectrumLength / 2;
+        double nyquist = sampleRate / 2.0;
+        if (frameLength == 0 || nyquistBin == 0) {
+            return;
+        }
+        float scale = 2.0F / frameLength;
+        double binsPerHertz = (double) spectrumLength / sampleRate;
+        double low = logBins ? Math.min(minFrequency, nyquist) : 0;
+        double ratio = logBins ? Math.pow(nyquist / low, 1.0 / binCount) : 0;
+        double step = nyquist / binCount;
+
+        double lowEdge = low;
+        for (int i = 0; i < binCount; i++) {
+            double highEdge = logBins ? lowEdge * ratio : (i + 1) * step;
+            double first = lowEdge * binsPerHertz;
+            double last = highEdge * binsPerHertz;
+            int from = (int) Math.ceil(first);
+            int to = Math.min(nyquistBin, (int) Math.ceil(last) - 1);
+            float amplitude = 0;
+            if (from <= to) {
+                for (int k = from; k <= to; k++) {
+                    amplitude = Math.max(amplitude, spectrum[k]);
+                }
+            } else {
+                double center = Math.min(nyquistBin, (first + last) / 2);
+                int below = Math.min(nyquistBin - 1, (int) center);
+                double fraction = center - below;
+                amplitude = (float) (spectrum[below] + (spectrum[below + 1] - spectrum[below]) * fraction);
+            }
+            bins[i] = amplitude * scale;
+            lowEdge = highEdge;
+        }
+    }
+}
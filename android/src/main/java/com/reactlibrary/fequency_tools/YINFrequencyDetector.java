@@ -1,11 +1,25 @@
 package com.reactlibrary.fequency_tools;
 
+import com.reactlibrary.fequency_tools.fft_utils.FFTPlan;
+
 public class YINFrequencyDetector {
     public static final float DEFAULT_THRESHOLD = 0.15F;
 
-    private float[] buffer;		        /** Buffer that stores the results of the intermediate processing steps of the algorithm */
-    private float probability = -1;		/** Probability that the pitch found is correct as a decimal (i.e 0.85 is 85%) */
-    private float threshold = -1;		/** Allowed uncertainty in the result as a decimal (i.e 0.15 is 15%) */
+    /** Way of computing the squared difference function (step 1 of the algorithm) */
+    public enum DifferenceFunction {
+        /** Direct double loop over shifts and samples, O(N^2). Kept as a reference for verification */
+        BRUTE_FORCE,
+        /** Autocorrelation through the FFT combined with running energy sums, O(N log N) */
+        FFT
+    }
+
+    private float[] buffer = new float[0];	/** Buffer that stores the results of the intermediate processing steps of the algorithm */
+    private int bufferLength = 0;		/** Amount of values of the buffer used for the current frame */
+    private double[] fftData = new double[0];	/** Scratch buffer of the FFT difference function */
+    private double[] fftDifference = new double[0];	/** Difference function computed by the FFT, before it is narrowed to float */
+    private DifferenceFunction differenceFunction = DifferenceFunction.FFT;
+    private float probability = 0;		/** Probability that the pitch found is correct as a decimal (i.e 0.85 is 85%) */
+    private float threshold = DEFAULT_THRESHOLD;	/** Allowed uncertainty in the result as a decimal (i.e 0.15 is 15%) */
     private int sampleRate = 0;
 
     public float getProbability() {
@@ -28,24 +42,88 @@ public class YINFrequencyDetector {
         this.threshold = threshold;
     }
 
+    public DifferenceFunction getDifferenceFunction() {
+        return this.differenceFunction;
+    }
+
+    public void setDifferenceFunction(DifferenceFunction differenceFunction) {
+        if (differenceFunction == null) {
+            throw new IllegalArgumentException("The value of differenceFunction can not be null!");
+        }
+        this.differenceFunction = differenceFunction;
+    }
+
     public float findFrequency(float[] soundData)
             throws IllegalArgumentException {
+        return findFrequency(soundData, soundData.length);
+    }
+
+    /**
+     * Analyses the frame held by a shared sample buffer, using its sample rate.
+     */
+    public float findFrequency(SampleBuffer samples)
+            throws IllegalArgumentException {
+        this.sampleRate = samples.getSampleRate();
+        return findFrequency(samples.getSamples(), samples.getLength());
+    }
+
+    /**
+     * Analyses the first length values of soundData.
+     */
+    public float findFrequency(float[] soundData, int length)
+            throws IllegalArgumentException {
+        if (threshold <= 0 || threshold >= 1) {
+            throw new IllegalArgumentException("The value of threshold is invalid!");
+        }
+
+        prepareBuffer(length / 2);
+
+        // Step 1: Calculates the squared difference of the signal with a shifted version of itself.
+        if (differenceFunction == DifferenceFunction.FFT) {
+            if (this.fftDifference.length < this.bufferLength) {
+                this.fftDifference = new double[this.bufferLength];
+            }
+            this.computeDifferenceFFT(soundData, 0, this.bufferLength, this.fftDifference);
+            this.copyDifference(this.fftDifference);
+        } else {
+            this.computeDifference(soundData);
+        }
+
+        return this.estimatePitch();
+    }
+
+    /**
+     * Runs steps 2-4 of the algorithm over a difference function computed elsewhere,
+     * e.g. updated block by block by {@link YINStreamingFrequencyDetector}.
+     */
+    float findFrequencyFromDifference(double[] difference, int length) {
         if (threshold <= 0 || threshold >= 1) {
             throw new IllegalArgumentException("The value of threshold is invalid!");
         }
 
-        if (probability <= 0 || probability >= 1) {
-            throw new IllegalArgumentException("The value of probability is invalid!");
+        prepareBuffer(length);
+        copyDifference(difference);
+
+        return this.estimatePitch();
+    }
+
+    private void copyDifference(double[] difference) {
+        for (int tau = 0; tau < bufferLength; tau++) {
+            this.buffer[tau] = difference[tau] > 0 ? (float) difference[tau] : 0;
         }
+    }
 
-        this.buffer = new float[soundData.length / 2];
+    private void prepareBuffer(int length) {
+        this.bufferLength = length;
+        if (this.buffer.length < this.bufferLength) {
+            this.buffer = new float[this.bufferLength];
+        }
+    }
 
+    private float estimatePitch() {
         int tauEstimate = -1;
         float pitchInHertz = -1;
 
-        // Step 1: Calculates the squared difference of the signal with a shifted version of itself.
-        this.computeDifference(soundData);
-
         // Step 2: Calculate the cumulative mean on the normalised difference calculated in step 1
         this.cumulativeMeanNormalizedDifference();
 
@@ -66,17 +144,87 @@ public class YINFrequencyDetector {
         float delta;
 
         // Calculate the difference for difference shift values (tau) for the half of the samples
-        for(tau = 0 ; tau < this.buffer.length; tau++){
+        for(tau = 0 ; tau < this.bufferLength; tau++){
+            this.buffer[tau] = 0;
 
             // Take the difference of the signal with a shifted version of itself, then square it.
             // (This is the Yin algorithm's tweak on autocorellation)
-            for(i = 0; i < this.buffer.length; i++){
+            for(i = 0; i < this.bufferLength; i++){
                 delta = soundData[i] - soundData[i + tau];
                 this.buffer[tau] += delta * delta;
             }
         }
     }
 
+    /**
+     * Computes the squared difference function of the window samples starting at offset,
+     * for shifts in [0, window), using samples [offset, offset + 2 * window).
+     */
+    private void computeDifferenceFFT(float[] soundData, int offset, int window, double[] difference){
+        // The squared difference expands into d(tau) = e(0) + e(tau) - 2 * r(tau), where e(tau) is the
+        // energy of the samples [tau, tau + W) and r(tau) is the cross-correlation of the first W samples
+        // with the first 2W samples. r is computed with a single complex FFT of both real sequences
+        // packed as real and imaginary parts, followed by an inverse FFT.
+        final int signalLength = window * 2;
+        FFTPlan plan = FFTPlan.forSize(FFTPlan.sizeFor(signalLength));
+        final int size = plan.getSize();
+
+        if (fftData.length < size * 2) {
+            fftData = new double[size * 2];
+        }
+        final double[] data = fftData;
+
+        for (int i = 0, j = 0; i < size; i++, j += 2) {
+            data[j] = i < window ? soundData[offset + i] : 0;
+            data[j + 1] = i < signalLength ? soundData[offset + i] : 0;
+        }
+        plan.transform(data);
+
+        // Unpack the spectra of both sequences and replace the data with conj(conj(A) * B),
+        // so that a forward transform yields the (real) cross-correlation scaled by size
+        for (int k = 0; k <= size / 2; k++) {
+            int m = (size - k) & (size - 1);
+            int a = k << 1;
+            int b = m << 1;
+
+            double zr = data[a];
+            double zi = data[a + 1];
+            double mr = data[b];
+            double mi = data[b + 1];
+
+            double ar = (zr + mr) * 0.5;
+            double ai = (zi - mi) * 0.5;
+            double br = (zi + mi) * 0.5;
+            double bi = (mr - zr) * 0.5;
+
+            double cr = ar * br + ai * bi;
+            double ci = ar * bi - ai * br;
+
+            data[a] = cr;
+            data[a + 1] = -ci;
+            data[b] = cr;
+            data[b + 1] = ci;
+        }
+        plan.transform(data);
+
+        double energyAtZero = 0;
+        for (int i = offset; i < offset + window; i++) {
+            energyAtZero += (double) soundData[i] * soundData[i];
+        }
+
+        double energyAtTau = energyAtZero;
+        for (int tau = 0; tau < window; tau++) {
+            double correlation = data[tau << 1] / size;
+            difference[tau] = energyAtZero + energyAtTau - 2 * correlation;
+
+            int entering = offset + tau + window;
+            int leaving = offset + tau;
+            energyAtTau += (double) soundData[entering] * soundData[entering]
+                    - (double) soundData[leaving] * soundData[leaving];
+        }
+        difference[0] = 0;
+    }
+
     private void cumulativeMeanNormalizedDifference(){
         int tau;
         float runningSum = 0;
@@ -84,7 +232,7 @@ public class YINFrequencyDetector {
 
         // Sum all the values in the autocorellation buffer and normalise the result, replacing
         // the value in the autocorellation buffer with a cumulative mean of the normalised difference
-        for (tau = 1; tau < buffer.length; tau++) {
+        for (tau = 1; tau < bufferLength; tau++) {
             runningSum += buffer[tau];
             buffer[tau] *= tau / runningSum;
         }
@@ -95,9 +243,9 @@ public class YINFrequencyDetector {
 
         // Search through the array of cumulative mean values, and look for ones that are over the threshold
         // The first two positions in yinBuffer are always so start at the third (index 2)
-        for (tau = 2; tau < buffer.length ; tau++) {
+        for (tau = 2; tau < bufferLength ; tau++) {
             if (buffer[tau] < threshold) {
-                while (tau + 1 < buffer.length && buffer[tau + 1] < buffer[tau]) {
+                while (tau + 1 < bufferLength && buffer[tau + 1] < buffer[tau]) {
                     tau++;
                 }
                 // found tau, exit loop and return
@@ -115,7 +263,7 @@ public class YINFrequencyDetector {
         }
 
         // if no pitch found, tau => -1
-        if (tau == buffer.length|| buffer[tau] >= threshold) {
+        if (tau == bufferLength || buffer[tau] >= threshold) {
             tau = -1;
             probability = 0;
         }
@@ -137,7 +285,7 @@ public class YINFrequencyDetector {
         }
 
         // Calculate the second polynomial coeffcient based on the current estimate of tau
-        if (tauEstimate + 1 < buffer.length) {
+        if (tauEstimate + 1 < bufferLength) {
             x2 = tauEstimate + 1;
         }
         else {
@@ -0,0 +1,265 @@
+package com.reactlibrary.fequency_tools;
+
+import com.reactlibrary.fequency_tools.fft_utils.FFTPlan;
+
+import java.util.Arrays;
+
+/**
+ * YIN pitch detector for a sliding analysis window of 2W samples, fed with chunks of samples and moved by one
+ * hop of H samples at a time. It yields the same estimates as {@link YINFrequencyDetector} run on every window.
+ *
+ * The cross-correlation term of the difference function is split into blocks of one hop. The spectrum of every
+ * block is computed once, when the block arrives, and the spectra of the block pairs that make up each H-wide
+ * range of shifts are summed in the frequency domain. Moving the window only adds the pairs of the block that
+ * entered it and removes those of the block that left it, so a hop costs one FFT of 2H points for the new block
+ * and W / H inverse FFTs of 2H points, packed two per transform, instead of FFTs of 4W points over the whole
+ * window. The sums are rebuilt from the block spectra once the window has moved by its whole length, which keeps
+ * the accumulated rounding error bounded.
+ */
+public class YINStreamingFrequencyDetector {
+    private final YINFrequencyDetector detector = new YINFrequencyDetector();
+    private final int windowSize;
+    private final int hopSize;
+    private final int lags;                 /** Amount of shift values (tau), half of the window */
+    private final int blocksPerLags;        /** Amount of hop-sized blocks in lags samples */
+    private final int bins;                 /** Non-negative frequency bins of a block spectrum */
+    private final FFTPlan plan;             /** Transform of 2 * hopSize points */
+    private final float[] history;          /** Latest samples, the current window ends blockFill samples before historyEnd */
+    private final double[][] blockSpectra;  /** Spectra of the latest 2 * blocksPerLags + 1 blocks, a ring ending at newestBlock */
+    private final double[][] pairSums;      /** Sum over the window blocks k of conj(X(k)) * X(k + q), for each q */
+    private final double[] transformData;
+    private final double[] difference;      /** Squared difference function of the current window */
+    private int historyEnd = 0;
+    private int blockFill = 0;              /** Samples received of the block that is not complete yet */
+    private int newestBlock = 0;
+    private int blocksReceived = 0;         /** Blocks received since the last reset, counted up to the ring length */
+    private int hopsSinceRebuild = 0;
+    private float pitch = -1;
+
+    /**
+     * @param windowSize samples of the analysed window, a multiple of twice the hop size
+     * @param hopSize samples the window moves by, a power of two
+     */
+    public YINStreamingFrequencyDetector(int windowSize, int hopSize) {
+        if (hopSize < 1 || (hopSize & (hopSize - 1)) != 0) {
+            throw new IllegalArgumentException("The value of hopSize is invalid!");
+        }
+        if (windowSize < 2 * hopSize || windowSize % (2 * hopSize) != 0) {
+            throw new IllegalArgumentException("The value of windowSize is invalid!");
+        }
+        this.windowSize = windowSize;
+        this.hopSize = hopSize;
+        this.lags = windowSize / 2;
+        this.blocksPerLags = lags / hopSize;
+        this.bins = hopSize + 1;
+        this.plan = FFTPlan.forSize(2 * hopSize);
+        this.history = new float[windowSize * 2];
+        this.blockSpectra = new double[2 * blocksPerLags + 1][2 * bins];
+        this.pairSums = new double[blocksPerLags + 1][2 * bins];
+        this.transformData = new double[4 * hopSize];
+        this.difference = new double[lags];
+    }
+
+    public int getWindowSize() {
+        return this.windowSize;
+    }
+
+    public int getHopSize() {
+        return this.hopSize;
+    }
+
+    public float getProbability() {
+        return isPrimed() ? detector.getProbability() : 0;
+    }
+
+    public float getThreshold() {
+        return detector.getThreshold();
+    }
+
+    public void setThreshold(float threshold) {
+        detector.setThreshold(threshold);
+    }
+
+    public int getSampleRate() {
+        return detector.getSampleRate();
+    }
+
+    public void setSampleRate(int sampleRate) {
+        detector.setSampleRate(sampleRate);
+    }
+
+    /**
+     * Returns the pitch found for the latest window, -1 if there is none.
+     */
+    public float getPitch() {
+        return this.pitch;
+    }
+
+    /**
+     * Returns true once a whole window of samples has been received.
+     */
+    public boolean isPrimed() {
+        return this.blocksReceived >= 2 * blocksPerLags;
+    }
+
+    /**
+     * Forgets all received samples, e.g. after a gap in the input.
+     */
+    public void reset() {
+        historyEnd = 0;
+        blockFill = 0;
+        blocksReceived = 0;
+        hopsSinceRebuild = 0;
+        pitch = -1;
+    }
+
+    /**
+     * Appends a chunk of new samples of any length, moves the window by every hop completed by them and
+     * estimates the pitch of the latest window.
+     * @return the pitch in Hertz, or -1 if there is no pitch or not a whole window received yet
+     */
+    public float addSamples(float[] samples, int offset, int length) {
+        boolean moved = false;
+        while (length > 0) {
+            int count = Math.min(length, hopSize - blockFill);
+            if (historyEnd + count > history.length) {
+                // keep only the current window and the incomplete block, which is all the energy terms need
+                int kept = windowSize + blockFill;
+                System.arraycopy(history, historyEnd - kept, history, 0, kept);
+                historyEnd = kept;
+            }
+            System.arraycopy(samples, offset, history, historyEnd, count);
+            historyEnd += count;
+            blockFill += count;
+            offset += count;
+            length -= count;
+
+            if (blockFill == hopSize) {
+                addBlock(historyEnd - hopSize);
+                blockFill = 0;
+                moved = true;
+            }
+        }
+
+        if (moved && isPrimed()) {
+            computeDifference(historyEnd - blockFill - windowSize);
+            pitch = detector.findFrequencyFromDifference(difference, lags);
+        }
+        return pitch;
+    }
+
+    private void addBlock(int start) {
+        final double[] data = transformData;
+        for (int i = 0, j = 0; i < 2 * hopSize; i++, j += 2) {
+            data[j] = i < hopSize ? history[start + i] : 0;
+            data[j + 1] = 0;
+        }
+        plan.transform(data);
+
+        newestBlock = (newestBlock + 1) % blockSpectra.length;
+        System.arraycopy(data, 0, blockSpectra[newestBlock], 0, 2 * bins);
+        if (blocksReceived < blockSpectra.length) {
+            blocksReceived++;
+        }
+
+        if (!isPrimed()) {
+            return;
+        }
+        if (blocksReceived == 2 * blocksPerLags || ++hopsSinceRebuild >= blocksPerLags) {
+            rebuildPairSums();
+            hopsSinceRebuild = 0;
+        } else {
+            // the block that entered the window is blocksPerLags blocks old, the one that left it twice as old
+            addPairs(blocksPerLags, 1);
+            addPairs(2 * blocksPerLags, -1);
+        }
+    }
+
+    /**
+     * Returns the spectrum of the block received age blocks before the newest one.
+     */
+    private double[] blockSpectrum(int age) {
+        return blockSpectra[(newestBlock - age + blockSpectra.length) % blockSpectra.length];
+    }
+
+    private void rebuildPairSums() {
+        for (double[] sum : pairSums) {
+            Arrays.fill(sum, 0);
+        }
+        // the window holds the blocks from 2 * blocksPerLags - 1 down to blocksPerLags blocks old
+        for (int age = blocksPerLags; age < 2 * blocksPerLags; age++) {
+            addPairs(age, 1);
+        }
+    }
+
+    /**
+     * Adds sign * conj(X(k)) * X(k + q) to every pair sum, for the window block k received age blocks ago.
+     */
+    private void addPairs(int age, double sign) {
+        final double[] first = blockSpectrum(age);
+        for (int q = 0; q <= blocksPerLags; q++) {
+            final double[] second = blockSpectrum(age - q);
+            final double[] sum = pairSums[q];
+            for (int j = 0; j < 2 * bins; j += 2) {
+                sum[j] += sign * (first[j] * second[j] + first[j + 1] * second[j + 1]);
+                sum[j + 1] += sign * (first[j] * second[j + 1] - first[j + 1] * second[j]);
+            }
+        }
+    }
+
+    /**
+     * Computes the squared difference function of the window samples starting at offset.
+     */
+    private void computeDifference(int offset) {
+        // As in YINFrequencyDetector, d(tau) = e(0) + e(tau) - 2 * r(tau). The inverse transform of pair sum q
+        // holds r(q * H + s) in its first half, for s in [0, H), and r(q * H - H + s) in its second half. Adding
+        // pair sum q + 1 times (-1)^k therefore yields r over the shifts [q * H, q * H + H) in the first half.
+        // Those spectra belong to real sequences, so two of them are inverted by one complex transform.
+        final int size = 2 * hopSize;
+        final double[] data = transformData;
+        for (int q = 0; q < blocksPerLags; q += 2) {
+            boolean pair = q + 1 < blocksPerLags;
+            for (int k = 0; k < bins; k++) {
+                int j = k << 1;
+                double sign = (k & 1) == 0 ? 1 : -1;
+                double ar = pairSums[q][j] + sign * pairSums[q + 1][j];
+                double ai = pairSums[q][j + 1] + sign * pairSums[q + 1][j + 1];
+                double br = pair ? pairSums[q + 1][j] + sign * pairSums[q + 2][j] : 0;
+                double bi = pair ? pairSums[q + 1][j + 1] + sign * pairSums[q + 2][j + 1] : 0;
+
+                // a forward transform of conj(A + iB) yields size * (a - ib)
+                data[j] = ar - bi;
+                data[j + 1] = -(ai + br);
+                if (k > 0 && k < hopSize) {
+                    int m = (size - k) << 1;
+                    data[m] = ar + bi;
+                    data[m + 1] = ai - br;
+                }
+            }
+            plan.transform(data);
+
+            for (int s = 0; s < hopSize; s++) {
+                difference[q * hopSize + s] = data[s << 1] / size;
+                if (pair) {
+                    difference[(q + 1) * hopSize + s] = -data[(s << 1) + 1] / size;
+                }
+            }
+        }
+
+        double energyAtZero = 0;
+        for (int i = offset; i < offset + lags; i++) {
+            energyAtZero += (double) history[i] * history[i];
+        }
+
+        double energyAtTau = energyAtZero;
+        for (int tau = 0; tau < lags; tau++) {
+            difference[tau] = energyAtZero + energyAtTau - 2 * difference[tau];
+
+            int entering = offset + tau + lags;
+            int leaving = offset + tau;
+            energyAtTau += (double) history[entering] * history[entering]
+                    - (double) history[leaving] * history[leaving];
+        }
+        difference[0] = 0;
+    }
+}
@@ -0,0 +1,203 @@
+package com.reactlibrary.fequency_tools.fft_utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Precomputed tables for a radix-2 complex FFT of one fixed size.
+ * Plans are immutable, so a single instance per size is cached and shared between threads.
+ */
+public final class FFTPlan {
+    private static final ConcurrentMap<Integer, FFTPlan> cache = new ConcurrentHashMap<>();
+
+    private final int size;
+    private final int bits;
+    private final int[] bitReversal;
+    private final double[] cosTable;    /** cos(-2 * pi * k / size) for k in [0, size / 2) */
+    private final double[] sinTable;    /** sin(-2 * pi * k / size) for k in [0, size / 2) */
+    private final float[] cosTableFloat;
+    private final float[] sinTableFloat;
+
+    private FFTPlan(int size) {
+        this.size = size;
+        this.bits = Integer.numberOfTrailingZeros(size);
+
+        this.bitReversal = new int[size];
+        for (int i = 0; i < size; i++) {
+            bitReversal[i] = bits == 0 ? 0 : Integer.reverse(i) >>> (Integer.SIZE - bits);
+        }
+
+        int half = size / 2;
+        this.cosTable = new double[half];
+        this.sinTable = new double[half];
+        this.cosTableFloat = new float[half];
+        this.sinTableFloat = new float[half];
+        double alpha = -(2 * Math.PI / size);
+        for (int k = 0; k < half; k++) {
+            cosTable[k] = Math.cos(alpha * k);
+            sinTable[k] = Math.sin(alpha * k);
+            cosTableFloat[k] = (float) cosTable[k];
+            sinTableFloat[k] = (float) sinTable[k];
+        }
+    }
+
+    /**
+     * Returns the shared plan for the given transform size.
+     * @param size amount of complex points, must be a power of two
+     */
+    public static FFTPlan forSize(int size) {
+        if (size < 1 || (size & (size - 1)) != 0) {
+            throw new IllegalArgumentException("The FFT size must be a power of two!");
+        }
+
+        FFTPlan plan = cache.get(size);
+        if (plan == null) {
+            FFTPlan created = new FFTPlan(size);
+            plan = cache.putIfAbsent(size, created);
+            if (plan == null) {
+                plan = created;
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Returns the transform size used for an input of the given length:
+     * the length itself if it is a power of two, the next power of two otherwise.
+     */
+    public static int sizeFor(int length) {
+        if (length <= 2) {
+            return 2;
+        }
+        int highest = Integer.highestOneBit(length);
+        return highest == length ? length : highest << 1;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int[] getBitReversal() {
+        return bitReversal;
+    }
+
+    /**
+     * Transforms interleaved complex data (re, im, re, im...) of length 2 * size in place.
+     */
+    public void transform(double[] data) {
+        for (int i = 0; i < size; i++) {
+            int j = bitReversal[i];
+            if (j > i) {
+                int a = i << 1;
+                int b = j << 1;
+                double tmp = data[a];
+                data[a] = data[b];
+                data[b] = tmp;
+                tmp = data[a + 1];
+                data[a + 1] = data[b + 1];
+                data[b + 1] = tmp;
+            }
+        }
+        butterflies(data);
+    }
+
+    /**
+     * Single precision variant of {@link #transform(double[])}.
+     */
+    public void transform(float[] data) {
+        for (int i = 0; i < size; i++) {
+            int j = bitReversal[i];
+            if (j > i) {
+                int a = i << 1;
+                int b = j << 1;
+                float tmp = data[a];
+                data[a] = data[b];
+                data[b] = tmp;
+                tmp = data[a + 1];
+                data[a + 1] = data[b + 1];
+                data[b + 1] = tmp;
+            }
+        }
+        butterflies(data);
+    }
+
+    /**
+     * Loads real input into a caller-supplied complex buffer of length 2 * size
+     * in bit-reversed order, zero-padding the rest, and transforms it in place.
+     */
+    public void transformReal(double[] input, int length, double[] data) {
+        for (int i = 0; i < size; i++) {
+            int j = bitReversal[i] << 1;
+            data[j] = i < length ? input[i] : 0;
+            data[j + 1] = 0;
+        }
+        butterflies(data);
+    }
+
+    /**
+     * Runs the butterfly passes over complex data that is already in bit-reversed order.
+     */
+    void butterflies(double[] data) {
+        for (int i = 0; i < bits; i++) {
+            int m = 1 << i;
+            int n = m << 1;
+            int tableStep = size / n;
+
+            for (int k = 0; k < m; k++) {
+                // e^(-2*pi/n*k) is taken from the table of the full size transform
+                double oddPartMultiplierReal = cosTable[k * tableStep];
+                double oddPartMultiplierImaginary = sinTable[k * tableStep];
+
+                for (int j = k; j < size; j += n) {
+                    int currentIndex = j << 1;
+                    int indexWithOffset = (j + m) << 1;
+
+                    double evenPartReal = data[currentIndex];
+                    double evenPartImaginary = data[currentIndex + 1];
+
+                    double oddPartReal = data[indexWithOffset] * oddPartMultiplierReal - data[indexWithOffset + 1] * oddPartMultiplierImaginary;
+                    double oddPartImaginary = data[indexWithOffset] * oddPartMultiplierImaginary + data[indexWithOffset + 1] * oddPartMultiplierReal;
+
+                    data[currentIndex] = evenPartReal + oddPartReal;
+                    data[currentIndex + 1] = evenPartImaginary + oddPartImaginary;
+
+                    data[indexWithOffset] = evenPartReal - oddPartReal;
+                    data[indexWithOffset + 1] = evenPartImaginary - oddPartImaginary;
+                }
+            }
+        }
+    }
+
+    /**
+     * Single precision variant of {@link #butterflies(double[])}.
+     */
+    void butterflies(float[] data) {
+        for (int i = 0; i < bits; i++) {
+            int m = 1 << i;
+            int n = m << 1;
+            int tableStep = size / n;
+
+            for (int k = 0; k < m; k++) {
+                float oddPartMultiplierReal = cosTableFloat[k * tableStep];
+                float oddPartMultiplierImaginary = sinTableFloat[k * tableStep];
+
+                for (int j = k; j < size; j += n) {
+                    int currentIndex = j << 1;
+                    int indexWithOffset = (j + m) << 1;
+
+                    float evenPartReal = data[currentIndex];
+                    float evenPartImaginary = data[currentIndex + 1];
+
+                    float oddPartReal = data[indexWithOffset] * oddPartMultiplierReal - data[indexWithOffset + 1] * oddPartMultiplierImaginary;
+                    float oddPartImaginary = data[indexWithOffset] * oddPartMultiplierImaginary + data[indexWithOffset + 1] * oddPartMultiplierReal;
+
+                    data[currentIndex] = evenPartReal + oddPartReal;
+                    data[currentIndex + 1] = evenPartImaginary + oddPartImaginary;
+
+                    data[indexWithOffset] = evenPartReal - oddPartReal;
+                    data[indexWithOffset + 1] = evenPartImaginary - oddPartImaginary;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.reactlibrary.fequency_tools.fft_utils;
+
+/**
+ * Cooley-Tukey FFT specialised for real input. It transforms N real samples with an N / 2 point
+ * complex FFT, so it needs half of the arithmetic and scratch memory of {@link FFTCooleyTukey}.
+ * The returned spectrogram has the same length as the one of {@link FFTCooleyTukey}; its upper half
+ * mirrors the lower one, as it does for any real signal.
+ */
+public class FFTRealCooleyTukey implements FastFourierTransform {
+    private double[] data = new double[0];
+
+    @Override
+    public double[] calculateSpectrogram(double[] inputData) {
+        double[] spectrogram = new double[getSpectrogramLength(inputData.length)];
+        calculateSpectrogram(inputData, inputData.length, spectrogram);
+        return spectrogram;
+    }
+
+    @Override
+    public int getSpectrogramLength(int inputLength) {
+        return FFTPlan.sizeFor(inputLength);
+    }
+
+    @Override
+    public void calculateSpectrogram(double[] inputData, int inputLength, double[] spectrogram) {
+        RealFFTPlan plan = RealFFTPlan.forSize(FFTPlan.sizeFor(inputLength));
+        int length = plan.getSize();
+        int half = length / 2;
+
+        if (data.length < length) {
+            data = new double[length];
+        }
+
+        plan.transform(inputData, inputLength, data);
+
+        spectrogram[0] = Math.abs(data[0]);
+        spectrogram[half] = Math.abs(data[1]);
+        for (int i = 1, j = 2; i < half; i++, j += 2) {
+            double magnitude = Math.sqrt(data[j] * data[j] + data[j + 1] * data[j + 1]);
+            spectrogram[i] = magnitude;
+            spectrogram[length - i] = magnitude;
+        }
+    }
+}
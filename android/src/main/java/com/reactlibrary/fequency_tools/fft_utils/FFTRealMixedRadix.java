@@ -0,0 +1,69 @@
+package com.reactlibrary.fequency_tools.fft_utils;
+
+import java.util.Arrays;
+
+/**
+ * FFT of real input at its own length, see {@link MixedRadixFFTPlan}. Unlike {@link FFTRealCooleyTukey},
+ * which zero-pads the input to the next power of two, the spectrogram has exactly one bin per input sample,
+ * so a frame of any length is transformed without up to twice the work. Lengths whose only prime factors
+ * are 2, 3 and 5 are the fast ones. The upper half of the spectrogram mirrors the lower one.
+ */
+public class FFTRealMixedRadix implements FastFourierTransform {
+    private double[] data = new double[0];
+    private double[] scratch = new double[0];
+    private RealMixedRadixFFTPlan[] plans = new RealMixedRadixFFTPlan[0];  /** Plans of every size transformed so far */
+    private int planCount = 0;
+
+    @Override
+    public double[] calculateSpectrogram(double[] inputData) {
+        double[] spectrogram = new double[getSpectrogramLength(inputData.length)];
+        calculateSpectrogram(inputData, inputData.length, spectrogram);
+        return spectrogram;
+    }
+
+    @Override
+    public int getSpectrogramLength(int inputLength) {
+        return Math.max(2, inputLength);
+    }
+
+    @Override
+    public void calculateSpectrogram(double[] inputData, int inputLength, double[] spectrogram) {
+        RealMixedRadixFFTPlan plan = planFor(getSpectrogramLength(inputLength));
+        int length = plan.getSize();
+        int half = length / 2;
+
+        if (data.length < plan.getDataLength()) {
+            data = new double[plan.getDataLength()];
+        }
+        if (scratch.length < plan.getScratchLength()) {
+            scratch = new double[plan.getScratchLength()];
+        }
+
+        plan.transform(inputData, inputLength, data, scratch);
+
+        spectrogram[0] = Math.abs(data[0]);
+        for (int i = 1, j = 2; i <= half; i++, j += 2) {
+            double magnitude = Math.sqrt(data[j] * data[j] + data[j + 1] * data[j + 1]);
+            spectrogram[i] = magnitude;
+            spectrogram[length - i] = magnitude;
+        }
+    }
+
+    /**
+     * Returns the plan of the size, kept once used: the shared cache only holds a few sizes, which frames of an
+     * adaptive length may go beyond.
+     */
+    private RealMixedRadixFFTPlan planFor(int size) {
+        for (int i = 0; i < planCount; i++) {
+            if (plans[i].getSize() == size) {
+                return plans[i];
+            }
+        }
+        if (planCount == plans.length) {
+            plans = Arrays.copyOf(plans, Math.max(4, planCount * 2));
+        }
+        RealMixedRadixFFTPlan plan = RealMixedRadixFFTPlan.forSize(size);
+        plans[planCount++] = plan;
+        return plan;
+    }
+}
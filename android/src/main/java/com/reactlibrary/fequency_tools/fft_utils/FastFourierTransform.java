@@ -2,4 +2,15 @@ package com.reactlibrary.fequency_tools.fft_utils;
 
 public interface FastFourierTransform {
     double[] calculateSpectrogram(double[] inputData);
+
+    /**
+     * Returns the amount of spectrogram bins produced for an input of the given length.
+     */
+    int getSpectrogramLength(int inputLength);
+
+    /**
+     * Calculates the spectrogram of the first length input values into a caller-supplied array,
+     * which must hold at least getSpectrogramLength(length) values.
+     */
+    void calculateSpectrogram(double[] inputData, int length, double[] spectrogram);
 }
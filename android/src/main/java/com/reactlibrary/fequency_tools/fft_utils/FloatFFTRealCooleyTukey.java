@@ -0,0 +1,34 @@
+package com.reactlibrary.fequency_tools.fft_utils;
+
+/**
+ * Single precision variant of {@link FFTRealCooleyTukey}.
+ */
+public class FloatFFTRealCooleyTukey implements FloatFastFourierTransform {
+    private float[] data = new float[0];
+
+    @Override
+    public int getSpectrogramLength(int inputLength) {
+        return FFTPlan.sizeFor(inputLength);
+    }
+
+    @Override
+    public void calculateSpectrogram(float[] inputData, int inputLength, float[] spectrogram) {
+        RealFFTPlan plan = RealFFTPlan.forSize(FFTPlan.sizeFor(inputLength));
+        int length = plan.getSize();
+        int half = length / 2;
+
+        if (data.length < length) {
+            data = new float[length];
+        }
+
+        plan.transform(inputData, inputLength, data);
+
+        spectrogram[0] = Math.abs(data[0]);
+        spectrogram[half] = Math.abs(data[1]);
+        for (int i = 1, j = 2; i < half; i++, j += 2) {
+            float magnitude = (float) Math.sqrt(data[j] * data[j] + data[j + 1] * data[j + 1]);
+            spectrogram[i] = magnitude;
+            spectrogram[length - i] = magnitude;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.reactlibrary.fequency_tools.fft_utils;
+
+import java.util.Arrays;
+
+/**
+ * Single precision variant of {@link FFTRealMixedRadix}.
+ */
+public class FloatFFTRealMixedRadix implements FloatFastFourierTransform {
+    private float[] data = new float[0];
+    private float[] scratch = new float[0];
+    private RealMixedRadixFFTPlan[] plans = new RealMixedRadixFFTPlan[0];  /** Plans of every size transformed so far */
+    private int planCount = 0;
+
+    @Override
+    public int getSpectrogramLength(int inputLength) {
+        return Math.max(2, inputLength);
+    }
+
+    @Override
+    public void calculateSpectrogram(float[] inputData, int inputLength, float[] spectrogram) {
+        RealMixedRadixFFTPlan plan = planFor(getSpectrogramLength(inputLength));
+        int length = plan.getSize();
+        int half = length / 2;
+
+        if (data.length < plan.getDataLength()) {
+            data = new float[plan.getDataLength()];
+        }
+        if (scratch.length < plan.getScratchLength()) {
+            scratch = new float[plan.getScratchLength()];
+        }
+
+        plan.transform(inputData, inputLength, data, scratch);
+
+        spectrogram[0] = Math.abs(data[0]);
+        for (int i = 1, j = 2; i <= half; i++, j += 2) {
+            float magnitude = (float) Math.sqrt(data[j] * data[j] + data[j + 1] * data[j + 1]);
+            spectrogram[i] = magnitude;
+            spectrogram[length - i] = magnitude;
+        }
+    }
+
+    /**
+     * Returns the plan of the size, kept once used: the shared cache only holds a few sizes, which frames of an
+     * adaptive length may go beyond.
+     */
+    private RealMixedRadixFFTPlan planFor(int size) {
+        for (int i = 0; i < planCount; i++) {
+            if (plans[i].getSize() == size) {
+                return plans[i];
+            }
+        }
+        if (planCount == plans.length) {
+            plans = Arrays.copyOf(plans, Math.max(4, planCount * 2));
+        }
+        RealMixedRadixFFTPlan plan = RealMixedRadixFFTPlan.forSize(size);
+        plans[planCount++] = plan;
+        return plan;
+    }
+}
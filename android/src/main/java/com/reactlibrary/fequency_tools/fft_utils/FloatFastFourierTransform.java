@@ -0,0 +1,17 @@
+package com.reactlibrary.fequency_tools.fft_utils;
+
+/**
+ * Single precision counterpart of {@link FastFourierTransform}.
+ */
+public interface FloatFastFourierTransform {
+    /**
+     * Returns the amount of spectrogram bins produced for an input of the given length.
+     */
+    int getSpectrogramLength(int inputLength);
+
+    /**
+     * Calculates the spectrogram of the first length input values into a caller-supplied array,
+     * which must hold at least getSpectrogramLength(length) values.
+     */
+    void calculateSpectrogram(float[] inputData, int length, float[] spectrogram);
+}
@@ -0,0 +1,685 @@
+package com.reactlibrary.fequency_tools.fft_utils;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Precomputed tables for a complex FFT of any size, so a frame can be transformed at its own length instead of
+ * being zero-padded to the next power of two.
+ * <p>
+ * Sizes whose only prime factors are 2, 3 and 5 are transformed by a Stockham FFT with radix 4, 2, 3 and 5 passes,
+ * which writes every pass into the other of two buffers and so needs no bit reversal. Any other size falls back
+ * to Bluestein's algorithm: the transform is rewritten as a convolution with a chirp, which is computed with
+ * power of two FFTs of at least twice the size, so such sizes cost several times more than a nearby fast one,
+ * see {@link #isFastSize(int)}.
+ * <p>
+ * Plans are immutable, so they are cached and shared between threads; the scratch memory is supplied by the
+ * caller. Only the plans of the last few sizes are kept, since any length can be asked for, e.g. by the window
+ * size of an offline analysis. Transforms that go through more sizes keep their own plans, see
+ * {@link FFTRealMixedRadix}.
+ */
+public final class MixedRadixFFTPlan {
+    private static final int CACHED_SIZES = 8;
+    private static final AtomicReferenceArray<MixedRadixFFTPlan> cache = new AtomicReferenceArray<>(CACHED_SIZES);
+    private static final AtomicInteger nextSlot = new AtomicInteger();     /** Slot of the next plan, round robin */
+    private static final int MAX_PASSES = 32;
+
+    private static final double SIN_60 = Math.sqrt(3) / 2;
+    private static final double COS_72 = Math.cos(2 * Math.PI / 5);
+    private static final double SIN_72 = Math.sin(2 * Math.PI / 5);
+    private static final double COS_144 = Math.cos(4 * Math.PI / 5);
+    private static final double SIN_144 = Math.sin(4 * Math.PI / 5);
+    private static final float SIN_60_FLOAT = (float) SIN_60;
+    private static final float COS_72_FLOAT = (float) COS_72;
+    private static final float SIN_72_FLOAT = (float) SIN_72;
+    private static final float COS_144_FLOAT = (float) COS_144;
+    private static final float SIN_144_FLOAT = (float) SIN_144;
+
+    private final int size;
+    private final int[] radices;                /** Radices of the passes in order, null for Bluestein's algorithm */
+    private final double[] cosTable;            /** cos(-2 * pi * k / size) for k in [0, size) */
+    private final double[] sinTable;            /** sin(-2 * pi * k / size) for k in [0, size) */
+    private final float[] cosTableFloat;
+    private final float[] sinTableFloat;
+
+    private final FFTPlan convolutionPlan;      /** Power of two plan of the convolution of Bluestein's algorithm */
+    private final double[] chirp;               /** e^(-pi * i * k^2 / size) for k in [0, size), interleaved */
+    private final double[] chirpSpectrum;       /** Transform of the conjugate chirp, scaled for the inverse transform */
+    private final float[] chirpFloat;
+    private final float[] chirpSpectrumFloat;
+
+    private MixedRadixFFTPlan(int size) {
+        this.size = size;
+        this.radices = factorise(size);
+
+        if (radices != null) {
+            this.cosTable = new double[size];
+            this.sinTable = new double[size];
+            this.cosTableFloat = new float[size];
+            this.sinTableFloat = new float[size];
+            double alpha = -(2 * Math.PI / size);
+            for (int k = 0; k < size; k++) {
+                cosTable[k] = Math.cos(alpha * k);
+                sinTable[k] = Math.sin(alpha * k);
+                cosTableFloat[k] = (float) cosTable[k];
+                sinTableFloat[k] = (float) sinTable[k];
+            }
+            this.convolutionPlan = null;
+            this.chirp = null;
+            this.chirpSpectrum = null;
+            this.chirpFloat = null;
+            this.chirpSpectrumFloat = null;
+            return;
+        }
+
+        this.cosTable = null;
+        this.sinTable = null;
+        this.cosTableFloat = null;
+        this.sinTableFloat = null;
+
+        int convolutionSize = FFTPlan.sizeFor(2 * size - 1);
+        this.convolutionPlan = FFTPlan.forSize(convolutionSize);
+        this.chirp = new double[2 * size];
+        this.chirpFloat = new float[2 * size];
+        for (int k = 0; k < size; k++) {
+            // k^2 is reduced modulo 2 * size, the period of the chirp, to keep the angle exact
+            double angle = -Math.PI * ((long) k * k % (2L * size)) / size;
+            chirp[2 * k] = Math.cos(angle);
+            chirp[2 * k + 1] = Math.sin(angle);
+            chirpFloat[2 * k] = (float) chirp[2 * k];
+            chirpFloat[2 * k + 1] = (float) chirp[2 * k + 1];
+        }
+
+        // the conjugate chirp wrapped around the convolution, so negative indices sit at the end
+        this.chirpSpectrum = new double[2 * convolutionSize];
+        chirpSpectrum[0] = chirp[0];
+        chirpSpectrum[1] = -chirp[1];
+        for (int k = 1; k < size; k++) {
+            int j = convolutionSize - k;
+            chirpSpectrum[2 * k] = chirpSpectrum[2 * j] = chirp[2 * k];
+            chirpSpectrum[2 * k + 1] = chirpSpectrum[2 * j + 1] = -chirp[2 * k + 1];
+        }
+        convolutionPlan.transform(chirpSpectrum);
+        this.chirpSpectrumFloat = new float[2 * convolutionSize];
+        for (int i = 0; i < chirpSpectrum.length; i++) {
+            chirpSpectrum[i] /= convolutionSize;
+            chirpSpectrumFloat[i] = (float) chirpSpectrum[i];
+        }
+    }
+
+    /**
+     * Returns the shared plan for the given transform size.
+     * @param size amount of complex points, at least 1
+     */
+    public static MixedRadixFFTPlan forSize(int size) {
+        if (size < 1 || size > (1 << 29)) {
+            throw new IllegalArgumentException("The value of size is invalid!");
+        }
+
+        for (int i = 0; i < CACHED_SIZES; i++) {
+            MixedRadixFFTPlan plan = cache.get(i);
+            if (plan != null && plan.size == size) {
+                return plan;
+            }
+        }
+        // a plan created twice by racing threads is only kept twice, which does no harm
+        MixedRadixFFTPlan created = new MixedRadixFFTPlan(size);
+        cache.set((nextSlot.getAndIncrement() & Integer.MAX_VALUE) % CACHED_SIZES, created);
+        return created;
+    }
+
+    /**
+     * Returns whether the size is transformed by radix passes alone, i.e. its only prime factors are 2, 3 and 5.
+     */
+    public static boolean isFastSize(int size) {
+        return size >= 1 && factorise(size) != null;
+    }
+
+    /**
+     * Returns the largest fast size not above the length, at least 1.
+     */
+    public static int fastSizeAtMost(int length) {
+        int size = Math.max(1, length);
+        while (!isFastSize(size)) {
+            size--;
+        }
+        return size;
+    }
+
+    /**
+     * Returns the smallest fast size not below the length.
+     */
+    public static int fastSizeAtLeast(int length) {
+        int size = Math.max(1, length);
+        while (!isFastSize(size)) {
+            size++;
+        }
+        return size;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the length of the scratch buffer the transforms need.
+     */
+    public int getScratchLength() {
+        return radices != null ? 2 * size : 2 * convolutionPlan.getSize();
+    }
+
+    /**
+     * Transforms interleaved complex data (re, im, re, im...) of length 2 * size in place.
+     * @param scratch buffer of at least {@link #getScratchLength()} values, overwritten
+     */
+    public void transform(double[] data, double[] scratch) {
+        if (radices == null) {
+            bluestein(data, scratch);
+            return;
+        }
+
+        double[] source = data;
+        double[] destination = scratch;
+        int length = size;
+        int stride = 1;
+        for (int radix : radices) {
+            int m = length / radix;
+            int tableStep = size / length;
+            switch (radix) {
+                case 2:
+                    pass2(source, destination, m, stride, tableStep);
+                    break;
+                case 3:
+                    pass3(source, destination, m, stride, tableStep);
+                    break;
+                case 4:
+                    pass4(source, destination, m, stride, tableStep);
+                    break;
+                default:
+                    pass5(source, destination, m, stride, tableStep);
+                    break;
+            }
+            double[] swap = source;
+            source = destination;
+            destination = swap;
+            length = m;
+            stride *= radix;
+        }
+        if (source != data) {
+            System.arraycopy(source, 0, data, 0, 2 * size);
+        }
+    }
+
+    /**
+     * Single precision variant of {@link #transform(double[], double[])}.
+     */
+    public void transform(float[] data, float[] scratch) {
+        if (radices == null) {
+            bluestein(data, scratch);
+            return;
+        }
+
+        float[] source = data;
+        float[] destination = scratch;
+        int length = size;
+        int stride = 1;
+        for (int radix : radices) {
+            int m = length / radix;
+            int tableStep = size / length;
+            switch (radix) {
+                case 2:
+                    pass2(source, destination, m, stride, tableStep);
+                    break;
+                case 3:
+                    pass3(source, destination, m, stride, tableStep);
+                    break;
+                case 4:
+                    pass4(source, destination, m, stride, tableStep);
+                    break;
+                default:
+                    pass5(source, destination, m, stride, tableStep);
+                    break;
+            }
+            float[] swap = source;
+            source = destination;
+            destination = swap;
+            length = m;
+            stride *= radix;
+        }
+        if (source != data) {
+            System.arraycopy(source, 0, data, 0, 2 * size);
+        }
+    }
+
+    /**
+     * Splits the size into radix passes, fours first, or returns null if it has another prime factor.
+     */
+    private static int[] factorise(int size) {
+        int[] passes = new int[MAX_PASSES];
+        int count = 0;
+        int rest = size;
+        while (rest % 4 == 0) {
+            passes[count++] = 4;
+            rest /= 4;
+        }
+        while (rest % 2 == 0) {
+            passes[count++] = 2;
+            rest /= 2;
+        }
+        while (rest % 3 == 0) {
+            passes[count++] = 3;
+            rest /= 3;
+        }
+        while (rest % 5 == 0) {
+            passes[count++] = 5;
+            rest /= 5;
+        }
+        return rest == 1 ? Arrays.copyOf(passes, count) : null;
+    }
+
+    // Every pass splits the transforms of the given length into m = length / radix transforms: the inputs
+    // x[q + stride * (p + j * m)] of a butterfly are combined by a radix point DFT and its outputs k are multiplied
+    // by e^(-2*pi*i*p*k/length) and written to y[q + stride * (radix * p + k)].
+
+    private void pass2(double[] x, double[] y, int m, int stride, int tableStep) {
+        int inputStep = 2 * stride * m;
+        int outputStep = 2 * stride;
+        for (int p = 0; p < m; p++) {
+            double w1Real = cosTable[p * tableStep];
+            double w1Imaginary = sinTable[p * tableStep];
+            for (int q = 0; q < stride; q++) {
+                int a = 2 * (q + stride * p);
+                int b = 2 * (q + stride * 2 * p);
+
+                double x0Real = x[a];
+                double x0Imaginary = x[a + 1];
+                double x1Real = x[a + inputStep];
+                double x1Imaginary = x[a + inputStep + 1];
+
+                y[b] = x0Real + x1Real;
+                y[b + 1] = x0Imaginary + x1Imaginary;
+                double differenceReal = x0Real - x1Real;
+                double differenceImaginary = x0Imaginary - x1Imaginary;
+                y[b + outputStep] = differenceReal * w1Real - differenceImaginary * w1Imaginary;
+                y[b + outputStep + 1] = differenceReal * w1Imaginary + differenceImaginary * w1Real;
+            }
+        }
+    }
+
+    private void pass3(double[] x, double[] y, int m, int stride, int tableStep) {
+        int inputStep = 2 * stride * m;
+        int outputStep = 2 * stride;
+        for (int p = 0; p < m; p++) {
+            double w1Real = cosTable[p * tableStep];
+            double w1Imaginary = sinTable[p * tableStep];
+            double w2Real = cosTable[2 * p * tableStep];
+            double w2Imaginary = sinTable[2 * p * tableStep];
+            for (int q = 0; q < stride; q++) {
+                int a = 2 * (q + stride * p);
+                int b = 2 * (q + stride * 3 * p);
+
+                double x0Real = x[a];
+                double x0Imaginary = x[a + 1];
+                double x1Real = x[a + inputStep];
+                double x1Imaginary = x[a + inputStep + 1];
+                double x2Real = x[a + 2 * inputStep];
+                double x2Imaginary = x[a + 2 * inputStep + 1];
+
+                double sumReal = x1Real + x2Real;
+                double sumImaginary = x1Imaginary + x2Imaginary;
+                double middleReal = x0Real - 0.5 * sumReal;
+                double middleImaginary = x0Imaginary - 0.5 * sumImaginary;
+                // -i * sin(2 * pi / 3) * (x1 - x2)
+                double rotatedReal = SIN_60 * (x1Imaginary - x2Imaginary);
+                double rotatedImaginary = -SIN_60 * (x1Real - x2Real);
+
+                y[b] = x0Real + sumReal;
+                y[b + 1] = x0Imaginary + sumImaginary;
+                store(y, b + outputStep, middleReal + rotatedReal, middleImaginary + rotatedImaginary,
+                        w1Real, w1Imaginary);
+                store(y, b + 2 * outputStep, middleReal - rotatedReal, middleImaginary - rotatedImaginary,
+                        w2Real, w2Imaginary);
+            }
+        }
+    }
+
+    private void pass4(double[] x, double[] y, int m, int stride, int tableStep) {
+        int inputStep = 2 * stride * m;
+        int outputStep = 2 * stride;
+        for (int p = 0; p < m; p++) {
+            double w1Real = cosTable[p * tableStep];
+            double w1Imaginary = sinTable[p * tableStep];
+            double w2Real = cosTable[2 * p * tableStep];
+            double w2Imaginary = sinTable[2 * p * tableStep];
+            double w3Real = cosTable[3 * p * tableStep];
+            double w3Imaginary = sinTable[3 * p * tableStep];
+            for (int q = 0; q < stride; q++) {
+                int a = 2 * (q + stride * p);
+                int b = 2 * (q + stride * 4 * p);
+
+                double x0Real = x[a];
+                double x0Imaginary = x[a + 1];
+                double x1Real = x[a + inputStep];
+                double x1Imaginary = x[a + inputStep + 1];
+                double x2Real = x[a + 2 * inputStep];
+                double x2Imaginary = x[a + 2 * inputStep + 1];
+                double x3Real = x[a + 3 * inputStep];
+                double x3Imaginary = x[a + 3 * inputStep + 1];
+
+                double sum02Real = x0Real + x2Real;
+                double sum02Imaginary = x0Imaginary + x2Imaginary;
+                double difference02Real = x0Real - x2Real;
+                double difference02Imaginary = x0Imaginary - x2Imaginary;
+                double sum13Real = x1Real + x3Real;
+                double sum13Imaginary = x1Imaginary + x3Imaginary;
+                // -i * (x1 - x3)
+                double rotatedReal = x1Imaginary - x3Imaginary;
+                double rotatedImaginary = x3Real - x1Real;
+
+                y[b] = sum02Real + sum13Real;
+                y[b + 1] = sum02Imaginary + sum13Imaginary;
+                store(y, b + outputStep, difference02Real + rotatedReal, difference02Imaginary + rotatedImaginary,
+                        w1Real, w1Imaginary);
+                store(y, b + 2 * outputStep, sum02Real - sum13Real, sum02Imaginary - sum13Imaginary,
+                        w2Real, w2Imaginary);
+                store(y, b + 3 * outputStep, difference02Real - rotatedReal, difference02Imaginary - rotatedImaginary,
+                        w3Real, w3Imaginary);
+            }
+        }
+    }
+
+    private void pass5(double[] x, double[] y, int m, int stride, int tableStep) {
+        int inputStep = 2 * stride * m;
+        int outputStep = 2 * stride;
+        for (int p = 0; p < m; p++) {
+            double w1Real = cosTable[p * tableStep];
+            double w1Imaginary = sinTable[p * tableStep];
+            double w2Real = cosTable[2 * p * tableStep];
+            double w2Imaginary = sinTable[2 * p * tableStep];
+            double w3Real = cosTable[3 * p * tableStep];
+            double w3Imaginary = sinTable[3 * p * tableStep];
+            double w4Real = cosTable[4 * p * tableStep];
+            double w4Imaginary = sinTable[4 * p * tableStep];
+            for (int q = 0; q < stride; q++) {
+                int a = 2 * (q + stride * p);
+                int b = 2 * (q + stride * 5 * p);
+
+                double x0Real = x[a];
+                double x0Imaginary = x[a + 1];
+                double x1Real = x[a + inputStep];
+                double x1Imaginary = x[a + inputStep + 1];
+                double x2Real = x[a + 2 * inputStep];
+                double x2Imaginary = x[a + 2 * inputStep + 1];
+                double x3Real = x[a + 3 * inputStep];
+                double x3Imaginary = x[a + 3 * inputStep + 1];
+                double x4Real = x[a + 4 * inputStep];
+                double x4Imaginary = x[a + 4 * inputStep + 1];
+
+                double sum14Real = x1Real + x4Real;
+                double sum14Imaginary = x1Imaginary + x4Imaginary;
+                double sum23Real = x2Real + x3Real;
+                double sum23Imaginary = x2Imaginary + x3Imaginary;
+                double difference14Real = x1Real - x4Real;
+                double difference14Imaginary = x1Imaginary - x4Imaginary;
+                double difference23Real = x2Real - x3Real;
+                double difference23Imaginary = x2Imaginary - x3Imaginary;
+
+                double middle1Real = x0Real + COS_72 * sum14Real + COS_144 * sum23Real;
+                double middle1Imaginary = x0Imaginary + COS_72 * sum14Imaginary + COS_144 * sum23Imaginary;
+                double middle2Real = x0Real + COS_144 * sum14Real + COS_72 * sum23Real;
+                double middle2Imaginary = x0Imaginary + COS_144 * sum14Imaginary + COS_72 * sum23Imaginary;
+                // -i * (sin(2 * pi / 5) * (x1 - x4) + sin(4 * pi / 5) * (x2 - x3)) and its counterpart
+                double rotated1Real = SIN_72 * difference14Imaginary + SIN_144 * difference23Imaginary;
+                double rotated1Imaginary = -(SIN_72 * difference14Real + SIN_144 * difference23Real);
+                double rotated2Real = SIN_144 * difference14Imaginary - SIN_72 * difference23Imaginary;
+                double rotated2Imaginary = -(SIN_144 * difference14Real - SIN_72 * difference23Real);
+
+                y[b] = x0Real + sum14Real + sum23Real;
+                y[b + 1] = x0Imaginary + sum14Imaginary + sum23Imaginary;
+                store(y, b + outputStep, middle1Real + rotated1Real, middle1Imaginary + rotated1Imaginary,
+                        w1Real, w1Imaginary);
+                store(y, b + 2 * outputStep, middle2Real + rotated2Real, middle2Imaginary + rotated2Imaginary,
+                        w2Real, w2Imaginary);
+                store(y, b + 3 * outputStep, middle2Real - rotated2Real, middle2Imaginary - rotated2Imaginary,
+                        w3Real, w3Imaginary);
+                store(y, b + 4 * outputStep, middle1Real - rotated1Real, middle1Imaginary - rotated1Imaginary,
+                        w4Real, w4Imaginary);
+            }
+        }
+    }
+
+    /**
+     * Stores the product of a butterfly output and its twiddle factor.
+     */
+    private static void store(double[] y, int index, double real, double imaginary,
+                              double twiddleReal, double twiddleImaginary) {
+        y[index] = real * twiddleReal - imaginary * twiddleImaginary;
+        y[index + 1] = real * twiddleImaginary + imaginary * twiddleReal;
+    }
+
+    /**
+     * X[k] = chirp[k] * sum(x[n] * chirp[n] * conj(chirp[k - n])), where the sum is a circular convolution
+     * computed with the power of two plan.
+     */
+    private void bluestein(double[] data, double[] scratch) {
+        int length = 2 * convolutionPlan.getSize();
+        for (int i = 0; i < 2 * size; i += 2) {
+            scratch[i] = data[i] * chirp[i] - data[i + 1] * chirp[i + 1];
+            scratch[i + 1] = data[i] * chirp[i + 1] + data[i + 1] * chirp[i];
+        }
+        Arrays.fill(scratch, 2 * size, length, 0);
+        convolutionPlan.transform(scratch);
+
+        // the product is conjugated, so the forward transform computes the conjugate of the inverse one
+        for (int i = 0; i < length; i += 2) {
+            double real = scratch[i] * chirpSpectrum[i] - scratch[i + 1] * chirpSpectrum[i + 1];
+            double imaginary = scratch[i] * chirpSpectrum[i + 1] + scratch[i + 1] * chirpSpectrum[i];
+            scratch[i] = real;
+            scratch[i + 1] = -imaginary;
+        }
+        convolutionPlan.transform(scratch);
+
+        for (int i = 0; i < 2 * size; i += 2) {
+            double real = scratch[i];
+            double imaginary = -scratch[i + 1];
+            data[i] = real * chirp[i] - imaginary * chirp[i + 1];
+            data[i + 1] = real * chirp[i + 1] + imaginary * chirp[i];
+        }
+    }
+
+    private void pass2(float[] x, float[] y, int m, int stride, int tableStep) {
+        int inputStep = 2 * stride * m;
+        int outputStep = 2 * stride;
+        for (int p = 0; p < m; p++) {
+            float w1Real = cosTableFloat[p * tableStep];
+            float w1Imaginary = sinTableFloat[p * tableStep];
+            for (int q = 0; q < stride; q++) {
+                int a = 2 * (q + stride * p);
+                int b = 2 * (q + stride * 2 * p);
+
+                float x0Real = x[a];
+                float x0Imaginary = x[a + 1];
+                float x1Real = x[a + inputStep];
+                float x1Imaginary = x[a + inputStep + 1];
+
+                y[b] = x0Real + x1Real;
+                y[b + 1] = x0Imaginary + x1Imaginary;
+                float differenceReal = x0Real - x1Real;
+                float differenceImaginary = x0Imaginary - x1Imaginary;
+                y[b + outputStep] = differenceReal * w1Real - differenceImaginary * w1Imaginary;
+                y[b + outputStep + 1] = differenceReal * w1Imaginary + differenceImaginary * w1Real;
+            }
+        }
+    }
+
+    private void pass3(float[] x, float[] y, int m, int stride, int tableStep) {
+        int inputStep = 2 * stride * m;
+        int outputStep = 2 * stride;
+        for (int p = 0; p < m; p++) {
+            float w1Real = cosTableFloat[p * tableStep];
+            float w1Imaginary = sinTableFloat[p * tableStep];
+            float w2Real = cosTableFloat[2 * p * tableStep];
+            float w2Imaginary = sinTableFloat[2 * p * tableStep];
+            for (int q = 0; q < stride; q++) {
+                int a = 2 * (q + stride * p);
+                int b = 2 * (q + stride * 3 * p);
+
+                float x0Real = x[a];
+                float x0Imaginary = x[a + 1];
+                float x1Real = x[a + inputStep];
+                float x1Imaginary = x[a + inputStep + 1];
+                float x2Real = x[a + 2 * inputStep];
+                float x2Imaginary = x[a + 2 * inputStep + 1];
+
+                float sumReal = x1Real + x2Real;
+                float sumImaginary = x1Imaginary + x2Imaginary;
+                float middleReal = x0Real - 0.5F * sumReal;
+                float middleImaginary = x0Imaginary - 0.5F * sumImaginary;
+                float rotatedReal = SIN_60_FLOAT * (x1Imaginary - x2Imaginary);
+                float rotatedImaginary = -SIN_60_FLOAT * (x1Real - x2Real);
+
+                y[b] = x0Real + sumReal;
+                y[b + 1] = x0Imaginary + sumImaginary;
+                store(y, b + outputStep, middleReal + rotatedReal, middleImaginary + rotatedImaginary,
+                        w1Real, w1Imaginary);
+                store(y, b + 2 * outputStep, middleReal - rotatedReal, middleImaginary - rotatedImaginary,
+                        w2Real, w2Imaginary);
+            }
+        }
+    }
+
+    private void pass4(float[] x, float[] y, int m, int stride, int tableStep) {
+        int inputStep = 2 * stride * m;
+        int outputStep = 2 * stride;
+        for (int p = 0; p < m; p++) {
+            float w1Real = cosTableFloat[p * tableStep];
+            float w1Imaginary = sinTableFloat[p * tableStep];
+            float w2Real = cosTableFloat[2 * p * tableStep];
+            float w2Imaginary = sinTableFloat[2 * p * tableStep];
+            float w3Real = cosTableFloat[3 * p * tableStep];
+            float w3Imaginary = sinTableFloat[3 * p * tableStep];
+            for (int q = 0; q < stride; q++) {
+                int a = 2 * (q + stride * p);
+                int b = 2 * (q + stride * 4 * p);
+
+                float x0Real = x[a];
+                float x0Imaginary = x[a + 1];
+                float x1Real = x[a + inputStep];
+                float x1Imaginary = x[a + inputStep + 1];
+                float x2Real = x[a + 2 * inputStep];
+                float x2Imaginary = x[a + 2 * inputStep + 1];
+                float x3Real = x[a + 3 * inputStep];
+                float x3Imaginary = x[a + 3 * inputStep + 1];
+
+                float sum02Real = x0Real + x2Real;
+                float sum02Imaginary = x0Imaginary + x2Imaginary;
+                float difference02Real = x0Real - x2Real;
+                float difference02Imaginary = x0Imaginary - x2Imaginary;
+                float sum13Real = x1Real + x3Real;
+                float sum13Imaginary = x1Imaginary + x3Imaginary;
+                float rotatedReal = x1Imaginary - x3Imaginary;
+                float rotatedImaginary = x3Real - x1Real;
+
+                y[b] = sum02Real + sum13Real;
+                y[b + 1] = sum02Imaginary + sum13Imaginary;
+                store(y, b + outputStep, difference02Real + rotatedReal, difference02Imaginary + rotatedImaginary,
+                        w1Real, w1Imaginary);
+                store(y, b + 2 * outputStep, sum02Real - sum13Real, sum02Imaginary - sum13Imaginary,
+                        w2Real, w2Imaginary);
+                store(y, b + 3 * outputStep, difference02Real - rotatedReal, difference02Imaginary - rotatedImaginary,
+                        w3Real, w3Imaginary);
+            }
+        }
+    }
+
+    private void pass5(float[] x, float[] y, int m, int stride, int tableStep) {
+        int inputStep = 2 * stride * m;
+        int outputStep = 2 * stride;
+        for (int p = 0; p < m; p++) {
+            float w1Real = cosTableFloat[p * tableStep];
+            float w1Imaginary = sinTableFloat[p * tableStep];
+            float w2Real = cosTableFloat[2 * p * tableStep];
+            float w2Imaginary = sinTableFloat[2 * p * tableStep];
+            float w3Real = cosTableFloat[3 * p * tableStep];
+            float w3Imaginary = sinTableFloat[3 * p * tableStep];
+            float w4Real = cosTableFloat[4 * p * tableStep];
+            float w4Imaginary = sinTableFloat[4 * p * tableStep];
+            for (int q = 0; q < stride; q++) {
+                int a = 2 * (q + stride * p);
+                int b = 2 * (q + stride * 5 * p);
+
+                float x0Real = x[a];
+                float x0Imaginary = x[a + 1];
+                float x1Real = x[a + inputStep];
+                float x1Imaginary = x[a + inputStep + 1];
+                float x2Real = x[a + 2 * inputStep];
+                float x2Imaginary = x[a + 2 * inputStep + 1];
+                float x3Real = x[a + 3 * inputStep];
+                float x3Imaginary = x[a + 3 * inputStep + 1];
+                float x4Real = x[a + 4 * inputStep];
+                float x4Imaginary = x[a + 4 * inputStep + 1];
+
+                float sum14Real = x1Real + x4Real;
+                float sum14Imaginary = x1Imaginary + x4Imaginary;
+                float sum23Real = x2Real + x3Real;
+                float sum23Imaginary = x2Imaginary + x3Imaginary;
+                float difference14Real = x1Real - x4Real;
+                float difference14Imaginary = x1Imaginary - x4Imaginary;
+                float difference23Real = x2Real - x3Real;
+                float difference23Imaginary = x2Imaginary - x3Imaginary;
+
+                float middle1Real = x0Real + COS_72_FLOAT * sum14Real + COS_144_FLOAT * sum23Real;
+                float middle1Imaginary = x0Imaginary + COS_72_FLOAT * sum14Imaginary + COS_144_FLOAT * sum23Imaginary;
+                float middle2Real = x0Real + COS_144_FLOAT * sum14Real + COS_72_FLOAT * sum23Real;
+                float middle2Imaginary = x0Imaginary + COS_144_FLOAT * sum14Imaginary + COS_72_FLOAT * sum23Imaginary;
+                float rotated1Real = SIN_72_FLOAT * difference14Imaginary + SIN_144_FLOAT * difference23Imaginary;
+                float rotated1Imaginary = -(SIN_72_FLOAT * difference14Real + SIN_144_FLOAT * difference23Real);
+                float rotated2Real = SIN_144_FLOAT * difference14Imaginary - SIN_72_FLOAT * difference23Imaginary;
+                float rotated2Imaginary = -(SIN_144_FLOAT * difference14Real - SIN_72_FLOAT * difference23Real);
+
+                y[b] = x0Real + sum14Real + sum23Real;
+                y[b + 1] = x0Imaginary + sum14Imaginary + sum23Imaginary;
+                store(y, b + outputStep, middle1Real + rotated1Real, middle1Imaginary + rotated1Imaginary,
+                        w1Real, w1Imaginary);
+                store(y, b + 2 * outputStep, middle2Real + rotated2Real, middle2Imaginary + rotated2Imaginary,
+                        w2Real, w2Imaginary);
+                store(y, b + 3 * outputStep, middle2Real - rotated2Real, middle2Imaginary - rotated2Imaginary,
+                        w3Real, w3Imaginary);
+                store(y, b + 4 * outputStep, middle1Real - rotated1Real, middle1Imaginary - rotated1Imaginary,
+                        w4Real, w4Imaginary);
+            }
+        }
+    }
+
+    private static void store(float[] y, int index, float real, float imaginary,
+                              float twiddleReal, float twiddleImaginary) {
+        y[index] = real * twiddleReal - imaginary * twiddleImaginary;
+        y[index + 1] = real * twiddleImaginary + imaginary * twiddleReal;
+    }
+
+    private void bluestein(float[] data, float[] scratch) {
+        int length = 2 * convolutionPlan.getSize();
+        for (int i = 0; i < 2 * size; i += 2) {
+            scratch[i] = data[i] * chirpFloat[i] - data[i + 1] * chirpFloat[i + 1];
+            scratch[i + 1] = data[i] * chirpFloat[i + 1] + data[i + 1] * chirpFloat[i];
+        }
+        Arrays.fill(scratch, 2 * size, length, 0);
+        convolutionPlan.transform(scratch);
+
+        for (int i = 0; i < length; i += 2) {
+            float real = scratch[i] * chirpSpectrumFloat[i] - scratch[i + 1] * chirpSpectrumFloat[i + 1];
+            float imaginary = scratch[i] * chirpSpectrumFloat[i + 1] + scratch[i + 1] * chirpSpectrumFloat[i];
+            scratch[i] = real;
+            scratch[i + 1] = -imaginary;
+        }
+        convolutionPlan.transform(scratch);
+
+        for (int i = 0; i < 2 * size; i += 2) {
+            float real = scratch[i];
+            float imaginary = -scratch[i + 1];
+            data[i] = real * chirpFloat[i] - imaginary * chirpFloat[i + 1];
+            data[i + 1] = real * chirpFloat[i + 1] + imaginary * chirpFloat[i];
+        }
+    }
+}
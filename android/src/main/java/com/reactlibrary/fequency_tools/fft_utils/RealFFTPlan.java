@@ -0,0 +1,159 @@
+package com.reactlibrary.fequency_tools.fft_utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Plan for a transform of real input: N real samples are packed into N / 2 complex points,
+ * transformed with a half size complex FFT and split into the first half of the real spectrum.
+ */
+public final class RealFFTPlan {
+    private static final ConcurrentMap<Integer, RealFFTPlan> cache = new ConcurrentHashMap<>();
+
+    private final int size;
+    private final FFTPlan halfPlan;
+    private final double[] cosTable;    /** cos(-2 * pi * k / size) for k in [0, size / 4) */
+    private final double[] sinTable;    /** sin(-2 * pi * k / size) for k in [0, size / 4) */
+    private final float[] cosTableFloat;
+    private final float[] sinTableFloat;
+
+    private RealFFTPlan(int size) {
+        this.size = size;
+        this.halfPlan = FFTPlan.forSize(size / 2);
+
+        int quarter = Math.max(1, size / 4);
+        this.cosTable = new double[quarter];
+        this.sinTable = new double[quarter];
+        this.cosTableFloat = new float[quarter];
+        this.sinTableFloat = new float[quarter];
+        double alpha = -(2 * Math.PI / size);
+        for (int k = 0; k < quarter; k++) {
+            cosTable[k] = Math.cos(alpha * k);
+            sinTable[k] = Math.sin(alpha * k);
+            cosTableFloat[k] = (float) cosTable[k];
+            sinTableFloat[k] = (float) sinTable[k];
+        }
+    }
+
+    /**
+     * Returns the shared plan for the given amount of real samples.
+     * @param size amount of real samples, must be a power of two and at least 2
+     */
+    public static RealFFTPlan forSize(int size) {
+        if (size < 2 || (size & (size - 1)) != 0) {
+            throw new IllegalArgumentException("The real FFT size must be a power of two, not less than 2!");
+        }
+
+        RealFFTPlan plan = cache.get(size);
+        if (plan == null) {
+            RealFFTPlan created = new RealFFTPlan(size);
+            plan = cache.putIfAbsent(size, created);
+            if (plan == null) {
+                plan = created;
+            }
+        }
+        return plan;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Transforms real input into a caller-supplied buffer of length size, zero-padding the input.
+     * The result is packed: data[0] holds X[0], data[1] holds X[size / 2] (both are real),
+     * and data[2k], data[2k + 1] hold the real and imaginary parts of X[k] for 0 < k < size / 2.
+     */
+    public void transform(double[] input, int length, double[] data) {
+        int half = size / 2;
+        int[] bitReversal = halfPlan.getBitReversal();
+
+        // pack even samples as real and odd samples as imaginary parts
+        for (int n = 0; n < half; n++) {
+            int j = bitReversal[n] << 1;
+            int even = n << 1;
+            data[j] = even < length ? input[even] : 0;
+            data[j + 1] = even + 1 < length ? input[even + 1] : 0;
+        }
+        halfPlan.butterflies(data);
+
+        // split the packed spectrum: X[k] = E[k] + e^(-2*pi*i*k/size) * O[k]
+        double z0Real = data[0];
+        double z0Imaginary = data[1];
+        data[0] = z0Real + z0Imaginary;
+        data[1] = z0Real - z0Imaginary;
+
+        for (int k = 1, j = half - 1; k < j; k++, j--) {
+            int a = k << 1;
+            int b = j << 1;
+
+            double evenReal = (data[a] + data[b]) * 0.5;
+            double evenImaginary = (data[a + 1] - data[b + 1]) * 0.5;
+            double oddReal = (data[a + 1] + data[b + 1]) * 0.5;
+            double oddImaginary = (data[b] - data[a]) * 0.5;
+
+            double twiddleReal = cosTable[k];
+            double twiddleImaginary = sinTable[k];
+            double productReal = twiddleReal * oddReal - twiddleImaginary * oddImaginary;
+            double productImaginary = twiddleReal * oddImaginary + twiddleImaginary * oddReal;
+
+            data[a] = evenReal + productReal;
+            data[a + 1] = evenImaginary + productImaginary;
+
+            // X[size / 2 - k] = conj(E[k] - e^(-2*pi*i*k/size) * O[k])
+            data[b] = evenReal - productReal;
+            data[b + 1] = productImaginary - evenImaginary;
+        }
+
+        if (half >= 2) {
+            // X[size / 4] = conj(Z[size / 4])
+            data[half + 1] = -data[half + 1];
+        }
+    }
+
+    /**
+     * Single precision variant of {@link #transform(double[], int, double[])}, with the same packed output layout.
+     */
+    public void transform(float[] input, int length, float[] data) {
+        int half = size / 2;
+        int[] bitReversal = halfPlan.getBitReversal();
+
+        for (int n = 0; n < half; n++) {
+            int j = bitReversal[n] << 1;
+            int even = n << 1;
+            data[j] = even < length ? input[even] : 0;
+            data[j + 1] = even + 1 < length ? input[even + 1] : 0;
+        }
+        halfPlan.butterflies(data);
+
+        float z0Real = data[0];
+        float z0Imaginary = data[1];
+        data[0] = z0Real + z0Imaginary;
+        data[1] = z0Real - z0Imaginary;
+
+        for (int k = 1, j = half - 1; k < j; k++, j--) {
+            int a = k << 1;
+            int b = j << 1;
+
+            float evenReal = (data[a] + data[b]) * 0.5F;
+            float evenImaginary = (data[a + 1] - data[b + 1]) * 0.5F;
+            float oddReal = (data[a + 1] + data[b + 1]) * 0.5F;
+            float oddImaginary = (data[b] - data[a]) * 0.5F;
+
+            float twiddleReal = cosTableFloat[k];
+            float twiddleImaginary = sinTableFloat[k];
+            float productReal = twiddleReal * oddReal - twiddleImaginary * oddImaginary;
+            float productImaginary = twiddleReal * oddImaginary + twiddleImaginary * oddReal;
+
+            data[a] = evenReal + productReal;
+            data[a + 1] = evenImaginary + productImaginary;
+
+            data[b] = evenReal - productReal;
+            data[b + 1] = productImaginary - evenImaginary;
+        }
+
+        if (half >= 2) {
+            data[half + 1] = -data[half + 1];
+        }
+    }
+}
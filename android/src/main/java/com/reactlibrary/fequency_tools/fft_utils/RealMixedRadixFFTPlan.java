@@ -0,0 +1,195 @@
+package com.reactlibrary.fequency_tools.fft_utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Plan for a transform of real input of any size, see {@link MixedRadixFFTPlan}. An even amount of N real samples
+ * is packed into N / 2 complex points, transformed with a half size complex FFT and split into the first half
+ * of the real spectrum, as in {@link RealFFTPlan}; an odd amount is transformed as complex points.
+ * Like complex plans, only the plans of the last few sizes are cached.
+ */
+public final class RealMixedRadixFFTPlan {
+    private static final int CACHED_SIZES = 8;
+    private static final AtomicReferenceArray<RealMixedRadixFFTPlan> cache = new AtomicReferenceArray<>(CACHED_SIZES);
+    private static final AtomicInteger nextSlot = new AtomicInteger();     /** Slot of the next plan, round robin */
+
+    private final int size;
+    private final MixedRadixFFTPlan complexPlan;    /** Of size / 2 points for an even size, of size points otherwise */
+    private final double[] cosTable;                /** cos(-2 * pi * k / size) for k in [0, size / 4] */
+    private final double[] sinTable;                /** sin(-2 * pi * k / size) for k in [0, size / 4] */
+    private final float[] cosTableFloat;
+    private final float[] sinTableFloat;
+
+    private RealMixedRadixFFTPlan(int size) {
+        this.size = size;
+        boolean even = size % 2 == 0;
+        this.complexPlan = MixedRadixFFTPlan.forSize(even ? size / 2 : size);
+
+        int quarter = even ? size / 4 + 1 : 0;
+        this.cosTable = new double[quarter];
+        this.sinTable = new double[quarter];
+        this.cosTableFloat = new float[quarter];
+        this.sinTableFloat = new float[quarter];
+        double alpha = -(2 * Math.PI / size);
+        for (int k = 0; k < quarter; k++) {
+            cosTable[k] = Math.cos(alpha * k);
+            sinTable[k] = Math.sin(alpha * k);
+            cosTableFloat[k] = (float) cosTable[k];
+            sinTableFloat[k] = (float) sinTable[k];
+        }
+    }
+
+    /**
+     * Returns the shared plan for the given amount of real samples.
+     * @param size amount of real samples, at least 2
+     */
+    public static RealMixedRadixFFTPlan forSize(int size) {
+        if (size < 2 || size > (1 << 29)) {
+            throw new IllegalArgumentException("The value of size is invalid!");
+        }
+
+        for (int i = 0; i < CACHED_SIZES; i++) {
+            RealMixedRadixFFTPlan plan = cache.get(i);
+            if (plan != null && plan.size == size) {
+                return plan;
+            }
+        }
+        // a plan created twice by racing threads is only kept twice, which does no harm
+        RealMixedRadixFFTPlan created = new RealMixedRadixFFTPlan(size);
+        cache.set((nextSlot.getAndIncrement() & Integer.MAX_VALUE) % CACHED_SIZES, created);
+        return created;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the length of the output buffer the transforms need.
+     */
+    public int getDataLength() {
+        return size % 2 == 0 ? size + 2 : 2 * size;
+    }
+
+    /**
+     * Returns the length of the scratch buffer the transforms need.
+     */
+    public int getScratchLength() {
+        return complexPlan.getScratchLength();
+    }
+
+    /**
+     * Transforms real input into a caller-supplied buffer of {@link #getDataLength()} values, zero-padding the input.
+     * data[2k], data[2k + 1] hold the real and imaginary parts of X[k] for 0 <= k <= size / 2.
+     * @param scratch buffer of at least {@link #getScratchLength()} values, overwritten
+     */
+    public void transform(double[] input, int length, double[] data, double[] scratch) {
+        if (size % 2 != 0) {
+            for (int n = 0; n < size; n++) {
+                data[2 * n] = n < length ? input[n] : 0;
+                data[2 * n + 1] = 0;
+            }
+            complexPlan.transform(data, scratch);
+            return;
+        }
+
+        // pack even samples as real and odd samples as imaginary parts
+        int half = size / 2;
+        for (int n = 0; n < half; n++) {
+            int even = n << 1;
+            data[even] = even < length ? input[even] : 0;
+            data[even + 1] = even + 1 < length ? input[even + 1] : 0;
+        }
+        complexPlan.transform(data, scratch);
+
+        // split the packed spectrum: X[k] = E[k] + e^(-2*pi*i*k/size) * O[k]
+        double z0Real = data[0];
+        double z0Imaginary = data[1];
+        data[0] = z0Real + z0Imaginary;
+        data[1] = 0;
+        data[size] = z0Real - z0Imaginary;
+        data[size + 1] = 0;
+
+        for (int k = 1, j = half - 1; k < j; k++, j--) {
+            int a = k << 1;
+            int b = j << 1;
+
+            double evenReal = (data[a] + data[b]) * 0.5;
+            double evenImaginary = (data[a + 1] - data[b + 1]) * 0.5;
+            double oddReal = (data[a + 1] + data[b + 1]) * 0.5;
+            double oddImaginary = (data[b] - data[a]) * 0.5;
+
+            double twiddleReal = cosTable[k];
+            double twiddleImaginary = sinTable[k];
+            double productReal = twiddleReal * oddReal - twiddleImaginary * oddImaginary;
+            double productImaginary = twiddleReal * oddImaginary + twiddleImaginary * oddReal;
+
+            data[a] = evenReal + productReal;
+            data[a + 1] = evenImaginary + productImaginary;
+
+            // X[size / 2 - k] = conj(E[k] - e^(-2*pi*i*k/size) * O[k])
+            data[b] = evenReal - productReal;
+            data[b + 1] = productImaginary - evenImaginary;
+        }
+
+        if (half % 2 == 0 && half >= 2) {
+            // X[size / 4] = conj(Z[size / 4])
+            data[half + 1] = -data[half + 1];
+        }
+    }
+
+    /**
+     * Single precision variant of {@link #transform(double[], int, double[], double[])}, with the same output layout.
+     */
+    public void transform(float[] input, int length, float[] data, float[] scratch) {
+        if (size % 2 != 0) {
+            for (int n = 0; n < size; n++) {
+                data[2 * n] = n < length ? input[n] : 0;
+                data[2 * n + 1] = 0;
+            }
+            complexPlan.transform(data, scratch);
+            return;
+        }
+
+        int half = size / 2;
+        for (int n = 0; n < half; n++) {
+            int even = n << 1;
+            data[even] = even < length ? input[even] : 0;
+            data[even + 1] = even + 1 < length ? input[even + 1] : 0;
+        }
+        complexPlan.transform(data, scratch);
+
+        float z0Real = data[0];
+        float z0Imaginary = data[1];
+        data[0] = z0Real + z0Imaginary;
+        data[1] = 0;
+        data[size] = z0Real - z0Imaginary;
+        data[size + 1] = 0;
+
+        for (int k = 1, j = half - 1; k < j; k++, j--) {
+            int a = k << 1;
+            int b = j << 1;
+
+            float evenReal = (data[a] + data[b]) * 0.5F;
+            float evenImaginary = (data[a + 1] - data[b + 1]) * 0.5F;
+            float oddReal = (data[a + 1] + data[b + 1]) * 0.5F;
+            float oddImaginary = (data[b] - data[a]) * 0.5F;
+
+            float twiddleReal = cosTableFloat[k];
+            float twiddleImaginary = sinTableFloat[k];
+            float productReal = twiddleReal * oddReal - twiddleImaginary * oddImaginary;
+            float productImaginary = twiddleReal * oddImaginary + twiddleImaginary * oddReal;
+
+            data[a] = evenReal + productReal;
+            data[a + 1] = evenImaginary + productImaginary;
+
+            data[b] = evenReal - productReal;
+            data[b + 1] = productImaginary - evenImaginary;
+        }
+
+        if (half % 2 == 0 && half >= 2) {
+            data[half + 1] = -data[half + 1];
+        }
+    }
+}
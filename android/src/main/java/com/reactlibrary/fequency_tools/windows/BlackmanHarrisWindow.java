@@ -0,0 +1,18 @@
+package com.reactlibrary.fequency_tools.windows;
+
+/**
+ * Four-term Blackman-Harris window, with side lobes below -92 dB at the price of a main lobe twice as wide as
+ * the one of {@link HammingWindow}, so it needs longer frames to separate close partials.
+ */
+public class BlackmanHarrisWindow extends CoefficientWindow {
+    private static final double A0 = 0.35875;
+    private static final double A1 = 0.48829;
+    private static final double A2 = 0.14128;
+    private static final double A3 = 0.01168;
+
+    @Override
+    protected double coefficient(int n, int length) {
+        double phase = 2 * Math.PI * n / (double) length;
+        return A0 - A1 * Math.cos(phase) + A2 * Math.cos(2 * phase) - A3 * Math.cos(3 * phase);
+    }
+}
@@ -0,0 +1,103 @@
+package com.reactlibrary.fequency_tools.windows;
+
+import com.reactlibrary.fequency_tools.SampleBuffer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Base of windows defined by one coefficient per sample. The coefficients of a length are computed once, in double
+ * precision, and kept in a table together with their single precision copy, so applying the window is a single
+ * multiplication per sample. Only the tables of the last few lengths are kept, which covers the one or two lengths
+ * of a fixed analysis; the detectors keep the tables of adaptive frames of more lengths in their workspace.
+ * <p>
+ * The windows are periodic, i.e. the coefficients of a length are the first length of a symmetric window of
+ * length + 1 samples, which is what a window in front of a DFT has to be. A window can be shared between threads.
+ */
+public abstract class CoefficientWindow implements Window, FloatWindow {
+    private static final int CACHED_LENGTHS = 8;
+
+    private final AtomicReferenceArray<Coefficients> cache = new AtomicReferenceArray<>(CACHED_LENGTHS);
+    private final AtomicInteger nextSlot = new AtomicInteger();     /** Slot replaced by the next table, round robin */
+
+    private static final class Coefficients {
+        final int length;
+        final double[] values;
+        final float[] floatValues;
+
+        Coefficients(double[] values) {
+            this.length = values.length;
+            this.values = values;
+            this.floatValues = new float[values.length];
+            for (int i = 0; i < values.length; i++) {
+                floatValues[i] = (float) values[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the coefficient of sample n of a window of the given length.
+     */
+    protected abstract double coefficient(int n, int length);
+
+    @Override
+    public double[] getCoefficients(int length) {
+        return coefficientsOf(length).values.clone();
+    }
+
+    @Override
+    public float[] getFloatCoefficients(int length) {
+        return coefficientsOf(length).floatValues.clone();
+    }
+
+    @Override
+    public double[] applyWindow(double[] data) {
+        double[] newData = new double[data.length];
+        applyWindow(data, newData, data.length);
+        return newData;
+    }
+
+    @Override
+    public void applyWindow(double[] inputData, double[] outputData, int length) {
+        double[] coefficients = coefficientsOf(length).values;
+        for (int i = 0; i < length; i++) {
+            outputData[i] = inputData[i] * coefficients[i];
+        }
+    }
+
+    @Override
+    public void applyWindow(float[] inputData, float[] outputData, int length) {
+        float[] coefficients = coefficientsOf(length).floatValues;
+        for (int i = 0; i < length; i++) {
+            outputData[i] = inputData[i] * coefficients[i];
+        }
+    }
+
+    @Override
+    public void applyWindow(short[] pcmData, float[] outputData, int length) {
+        float[] coefficients = coefficientsOf(length).floatValues;
+        for (int i = 0; i < length; i++) {
+            outputData[i] = pcmData[i] * SampleBuffer.PCM_16BIT_SCALE * coefficients[i];
+        }
+    }
+
+    private Coefficients coefficientsOf(int length) {
+        for (int i = 0; i < CACHED_LENGTHS; i++) {
+            Coefficients coefficients = cache.get(i);
+            if (coefficients != null && coefficients.length == length) {
+                return coefficients;
+            }
+        }
+        if (length < 0) {
+            throw new IllegalArgumentException("The value of length is invalid!");
+        }
+        double[] values = new double[length];
+        for (int n = 0; n < length; n++) {
+            values[n] = coefficient(n, length);
+        }
+        // a table computed twice by racing threads is only kept twice, which does no harm
+        Coefficients created = new Coefficients(values);
+        cache.set((nextSlot.getAndIncrement() & Integer.MAX_VALUE) % CACHED_LENGTHS, created);
+        return created;
+    }
+}
@@ -0,0 +1,23 @@
+package com.reactlibrary.fequency_tools.windows;
+
+/**
+ * Single precision counterpart of {@link Window}, which can also take 16-bit PCM samples directly.
+ */
+public interface FloatWindow {
+    /**
+     * Applies the window of the given length to the first length input values,
+     * writing the result into a caller-supplied array, which may be the input array itself.
+     */
+    void applyWindow(float[] inputData, float[] outputData, int length);
+
+    /**
+     * Converts the first length 16-bit PCM samples to [-1.0, 1.0) and applies the window of the given length
+     * in the same pass, writing the result into a caller-supplied array.
+     */
+    void applyWindow(short[] pcmData, float[] outputData, int length);
+
+    /**
+     * Returns a copy of the coefficients of the window of the given length.
+     */
+    float[] getFloatCoefficients(int length);
+}
@@ -0,0 +1,37 @@
+package com.reactlibrary.fequency_tools.windows;
+
+/**
+ * Gaussian window, whose width is set by its standard deviation relative to half of the frame: a smaller sigma
+ * gives lower side lobes and a wider main lobe. Its spectral peaks are parabolas on a log scale, so interpolating
+ * a peak over its log magnitudes finds the frequency of a partial almost exactly.
+ */
+public class GaussianWindow extends CoefficientWindow {
+    public static final double DEFAULT_SIGMA = 0.4;
+
+    private final double sigma;
+
+    public GaussianWindow() {
+        this(DEFAULT_SIGMA);
+    }
+
+    /**
+     * @param sigma standard deviation relative to half of the frame, in (0, 0.5]
+     */
+    public GaussianWindow(double sigma) {
+        if (sigma <= 0 || sigma > 0.5) {
+            throw new IllegalArgumentException("The value of sigma is invalid!");
+        }
+        this.sigma = sigma;
+    }
+
+    public double getSigma() {
+        return sigma;
+    }
+
+    @Override
+    protected double coefficient(int n, int length) {
+        double half = length / 2.0;
+        double x = (n - half) / (sigma * half);
+        return Math.exp(-0.5 * x * x);
+    }
+}
@@ -1,16 +1,12 @@
 package com.reactlibrary.fequency_tools.windows;
 
-public class HammingWindow implements Window {
+/**
+ * Raised cosine whose first side lobe is cancelled, leaving side lobes at about -43 dB. The default window
+ * of the analysis.
+ */
+public class HammingWindow extends CoefficientWindow {
     @Override
-    public double[] applyWindow(double[] data) {
-        double[] newData = new double[data.length];
-        for(int i = 0; i < data.length; i++) {
-            newData[i] = data[i] * iterationHamming(i, data.length);
-        }
-        return newData;
+    protected double coefficient(int n, int length) {
+        return 0.54 - 0.46 * Math.cos(2 * Math.PI * n / (double) length);
     }
-
-    private double iterationHamming(double n, int size) {
-        return 0.54 - 0.46 * Math.cos(2 * Math.PI * n / (double)size);
-    }
-}
\ No newline at end of file
+}
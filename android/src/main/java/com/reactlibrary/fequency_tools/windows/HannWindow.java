@@ -0,0 +1,12 @@
+package com.reactlibrary.fequency_tools.windows;
+
+/**
+ * Raised cosine reaching zero at both ends. Its main lobe is as wide as the one of {@link HammingWindow}, but its
+ * side lobes fall off much faster, so distant strong partials leak less into the bins of a weak fundamental.
+ */
+public class HannWindow extends CoefficientWindow {
+    @Override
+    protected double coefficient(int n, int length) {
+        return 0.5 - 0.5 * Math.cos(2 * Math.PI * n / (double) length);
+    }
+}
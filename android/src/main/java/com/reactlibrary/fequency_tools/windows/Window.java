@@ -2,4 +2,15 @@ package com.reactlibrary.fequency_tools.windows;
 
 public interface Window {
     double[] applyWindow(double[] inputData);
-}
\ No newline at end of file
+
+    /**
+     * Applies the window of the given length to the first length input values,
+     * writing the result into a caller-supplied array, which may be the input array itself.
+     */
+    void applyWindow(double[] inputData, double[] outputData, int length);
+
+    /**
+     * Returns a copy of the coefficients of the window of the given length.
+     */
+    double[] getCoefficients(int length);
+}
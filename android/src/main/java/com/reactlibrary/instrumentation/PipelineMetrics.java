@@ -0,0 +1,109 @@
+package com.reactlibrary.instrumentation;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histograms of the stages of the analysis pipeline and counters of what happened to the frames.
+ * Recording does not allocate nor lock: every slot is written by a single thread with lazySet and may be read
+ * at any time from another one, so a snapshot is consistent per value but not across values.
+ * <p>
+ * Components take an optional instance and skip all timing when it is null, so disabled metrics cost nothing.
+ */
+public class PipelineMetrics {
+    public static final int BUCKET_COUNT = 24;      /** Bucket i counts durations below 2^i microseconds, the last one the rest */
+
+    public enum Stage {
+        CAPTURE_READ,
+        DECIMATION,
+        WINDOW,
+        FFT,
+        PEAK_PICKING,
+        INTERVAL_SCAN,
+        FEATURES,
+        EMISSION
+    }
+
+    public enum Counter {
+        FRAMES_ANALYSED,
+        FRAMES_DROPPED,
+        FRAMES_REJECTED,
+        FRAMES_FILTERED,
+        FRAMES_GATED,
+        EVENTS_EMITTED
+    }
+
+    private static final int STAGE_COUNT = Stage.values().length;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(STAGE_COUNT * BUCKET_COUNT);
+    private final AtomicLongArray stageCounts = new AtomicLongArray(STAGE_COUNT);
+    private final AtomicLongArray stageTotalNanos = new AtomicLongArray(STAGE_COUNT);
+    private final AtomicLongArray stageMaxNanos = new AtomicLongArray(STAGE_COUNT);
+    private final AtomicLongArray counters = new AtomicLongArray(Counter.values().length);
+
+    /**
+     * Records a stage which started at startNanos and ended now.
+     * @return the current time, to be used as the start of the next stage
+     */
+    public long record(Stage stage, long startNanos) {
+        long now = System.nanoTime();
+        recordDuration(stage, now - startNanos);
+        return now;
+    }
+
+    public void recordDuration(Stage stage, long nanos) {
+        int index = stage.ordinal();
+        int bucket = Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(nanos / 1000));
+        increment(buckets, index * BUCKET_COUNT + bucket, 1);
+        increment(stageCounts, index, 1);
+        increment(stageTotalNanos, index, nanos);
+        if (nanos > stageMaxNanos.get(index)) {
+            stageMaxNanos.lazySet(index, nanos);
+        }
+    }
+
+    public void increment(Counter counter) {
+        increment(counters, counter.ordinal(), 1);
+    }
+
+    public void add(Counter counter, long amount) {
+        increment(counters, counter.ordinal(), amount);
+    }
+
+    // a slot has a single writer, so a plain read-modify-write published by lazySet is enough
+    private static void increment(AtomicLongArray array, int index, long amount) {
+        array.lazySet(index, array.get(index) + amount);
+    }
+
+    public long getCount(Counter counter) {
+        return counters.get(counter.ordinal());
+    }
+
+    public long getCount(Stage stage) {
+        return stageCounts.get(stage.ordinal());
+    }
+
+    public long getTotalNanos(Stage stage) {
+        return stageTotalNanos.get(stage.ordinal());
+    }
+
+    public long getMaxNanos(Stage stage) {
+        return stageMaxNanos.get(stage.ordinal());
+    }
+
+    public long getBucketCount(Stage stage, int bucket) {
+        if (bucket < 0 || bucket >= BUCKET_COUNT) {
+            throw new IllegalArgumentException("The value of bucket is invalid!");
+        }
+        return buckets.get(stage.ordinal() * BUCKET_COUNT + bucket);
+    }
+
+    /**
+     * Returns the exclusive upper bound of a bucket in microseconds, Long.MAX_VALUE for the last one.
+     */
+    public static long getBucketUpperBoundMicros(int bucket) {
+        if (bucket < 0 || bucket >= BUCKET_COUNT) {
+            throw new IllegalArgumentException("The value of bucket is invalid!");
+        }
+        return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+}
@@ -0,0 +1,156 @@
+package com.reactlibrary.offline_analysis;
+
+import com.reactlibrary.audio_sources.AudioSource;
+import com.reactlibrary.fequency_tools.DetectorWorkspace;
+import com.reactlibrary.fequency_tools.FFTFrequencyDetector;
+import com.reactlibrary.fequency_tools.SampleBuffer;
+import com.reactlibrary.fequency_tools.fft_utils.FloatFFTRealCooleyTukey;
+import com.reactlibrary.fequency_tools.windows.HammingWindow;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs {@link FFTFrequencyDetector} over all frames of a recorded take. Frames are independent,
+ * so they are split into ranges analysed in parallel with fork-join, one detector workspace per range.
+ */
+public class OfflinePitchAnalyzer {
+    private static final int FRAMES_PER_TASK = 8;
+    private static final int FRAMES_PER_BLOCK = 256;
+    private static final int READ_CHUNK = 8192;
+
+    private final ForkJoinPool pool;
+    private final int windowSize;
+    private final int hopSize;
+    private final double minFreq;
+    private final double maxFreq;
+    private final HammingWindow window = new HammingWindow();  /** Shared by all tasks, so they share its tables */
+
+    public OfflinePitchAnalyzer(ForkJoinPool pool, int windowSize, int hopSize, double minFreq, double maxFreq) {
+        if (pool == null) {
+            throw new IllegalArgumentException("The value of pool can not be null!");
+        }
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("The value of windowSize is invalid!");
+        }
+        if (hopSize <= 0) {
+            throw new IllegalArgumentException("The value of hopSize is invalid!");
+        }
+        this.pool = pool;
+        this.windowSize = windowSize;
+        this.hopSize = hopSize;
+        this.minFreq = minFreq;
+        this.maxFreq = maxFreq;
+    }
+
+    /**
+     * Reads the whole source and analyses it. The take is read in blocks of FRAMES_PER_BLOCK frames, each analysed
+     * as soon as it is full, so only one block of samples is held at a time; the samples of the last frames of
+     * a block that the next frames overlap are moved to the start of the next block.
+     * The source is started but neither stopped nor released.
+     */
+    public PitchTrack analyse(AudioSource source) throws IOException {
+        int sampleRate = source.getSampleRate();
+        short[] block = new short[windowSize + (FRAMES_PER_BLOCK - 1) * hopSize];
+        double[] frequencies = new double[FRAMES_PER_BLOCK];
+        int frameCount = 0;
+        int length = 0;
+        int skip = 0;                       /** Samples still to drop when the hop is longer than the window */
+        boolean ended = false;
+
+        source.start();
+        while (!ended) {
+            int read = source.read(block, length, Math.min(READ_CHUNK, block.length - length));
+            if (read == AudioSource.END_OF_STREAM) {
+                ended = true;
+            } else {
+                int dropped = Math.min(skip, read);
+                if (dropped > 0) {
+                    System.arraycopy(block, length + dropped, block, length, read - dropped);
+                    skip -= dropped;
+                }
+                length += read - dropped;
+            }
+            if (length < block.length && !ended) {
+                continue;
+            }
+
+            int frames = countFrames(length);
+            if (frames == 0) {
+                continue;
+            }
+            if (frequencies.length < frameCount + frames) {
+                frequencies = Arrays.copyOf(frequencies, Math.max(frequencies.length * 2, frameCount + frames));
+            }
+            pool.invoke(new FramesTask(block, sampleRate, frequencies, frameCount, 0, frames));
+            frameCount += frames;
+
+            int consumed = frames * hopSize;
+            if (consumed < length) {
+                System.arraycopy(block, consumed, block, 0, length - consumed);
+                length -= consumed;
+            } else {
+                skip = consumed - length;
+                length = 0;
+            }
+        }
+
+        return new PitchTrack(Arrays.copyOf(frequencies, frameCount), hopSize, sampleRate);
+    }
+
+    public PitchTrack analyse(short[] samples, int length, int sampleRate) {
+        int frameCount = countFrames(length);
+        double[] frequencies = new double[frameCount];
+        if (frameCount > 0) {
+            pool.invoke(new FramesTask(samples, sampleRate, frequencies, 0, 0, frameCount));
+        }
+        return new PitchTrack(frequencies, hopSize, sampleRate);
+    }
+
+    private int countFrames(int length) {
+        return length < windowSize ? 0 : (length - windowSize) / hopSize + 1;
+    }
+
+    private final class FramesTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final short[] samples;
+        private final int sampleRate;
+        private final double[] frequencies;
+        private final int firstIndex;                   /** Index in frequencies of frame 0 of the samples */
+        private final int fromFrame;
+        private final int toFrame;
+
+        FramesTask(short[] samples, int sampleRate, double[] frequencies, int firstIndex, int fromFrame,
+                   int toFrame) {
+            this.samples = samples;
+            this.sampleRate = sampleRate;
+            this.frequencies = frequencies;
+            this.firstIndex = firstIndex;
+            this.fromFrame = fromFrame;
+            this.toFrame = toFrame;
+        }
+
+        @Override
+        protected void compute() {
+            if (toFrame - fromFrame > FRAMES_PER_TASK) {
+                int middle = (fromFrame + toFrame) >>> 1;
+                invokeAll(new FramesTask(samples, sampleRate, frequencies, firstIndex, fromFrame, middle),
+                        new FramesTask(samples, sampleRate, frequencies, firstIndex, middle, toFrame));
+                return;
+            }
+
+            FFTFrequencyDetector detector = new FFTFrequencyDetector();
+            FloatFFTRealCooleyTukey fft = new FloatFFTRealCooleyTukey();
+            DetectorWorkspace workspace = new DetectorWorkspace(windowSize, fft);
+            SampleBuffer frame = new SampleBuffer(windowSize, sampleRate);
+
+            for (int i = fromFrame; i < toFrame; i++) {
+                frame.setFromPcm16(samples, i * hopSize, windowSize);
+                frequencies[firstIndex + i] = detector.findFrequency(frame, minFreq, maxFreq, fft, window, workspace);
+            }
+        }
+    }
+}
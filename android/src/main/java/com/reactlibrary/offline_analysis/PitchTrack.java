@@ -0,0 +1,44 @@
+package com.reactlibrary.offline_analysis;
+
+/**
+ * Frequencies detected for consecutive frames of a recording.
+ * Frame i starts at sample i * hopSize, a frequency of 0 means no detectable sound.
+ */
+public class PitchTrack {
+    private final double[] frequencies;
+    private final int hopSize;
+    private final int sampleRate;
+
+    public PitchTrack(double[] frequencies, int hopSize, int sampleRate) {
+        this.frequencies = frequencies;
+        this.hopSize = hopSize;
+        this.sampleRate = sampleRate;
+    }
+
+    public int getFrameCount() {
+        return frequencies.length;
+    }
+
+    public double getFrequency(int frame) {
+        return frequencies[frame];
+    }
+
+    /**
+     * Returns the start time of the frame, in seconds.
+     */
+    public double getTime(int frame) {
+        return (double) frame * hopSize / sampleRate;
+    }
+
+    public double[] getFrequencies() {
+        return frequencies;
+    }
+
+    public int getHopSize() {
+        return hopSize;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+}
@@ -0,0 +1,122 @@
+package com.reactlibrary;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class FrequencyBatcherTest {
+    @Test
+    public void sendsTheFirstDetectionAtOnceAndQueuesTheNextOnesForTheInterval() {
+        RecordingListener listener = new RecordingListener();
+        FrequencyBatcher batcher = new FrequencyBatcher(listener, 100, 32, 0);
+
+        batcher.add(1000, 220);
+        batcher.add(1040, 221);
+        batcher.add(1080, 222);
+        batcher.flushIfDue(1099);
+        assertEquals(1, listener.batches.size());
+
+        batcher.flushIfDue(1100);
+        assertEquals(2, listener.batches.size());
+        assertEquals(2, listener.batches.get(1).length);
+        assertEquals(1040, listener.timestamps.get(1)[0]);
+        assertEquals(222, listener.batches.get(1)[1], 0);
+    }
+
+    @Test
+    public void flushesAFullBatchBeforeTheInterval() {
+        RecordingListener listener = new RecordingListener();
+        FrequencyBatcher batcher = new FrequencyBatcher(listener, 1000, 3, 0);
+
+        for (int i = 0; i < 4; i++) {
+            batcher.add(i, 200 + i);
+        }
+        assertEquals(2, listener.batches.size());
+        assertEquals(3, listener.batches.get(1).length);
+    }
+
+    @Test
+    public void dropsDetectionsCloserThanTheMinimalChange() {
+        RecordingListener listener = new RecordingListener();
+        FrequencyBatcher batcher = new FrequencyBatcher(listener, 0, 32, 1);
+
+        double[] frequencies = {220, 220.5, 220.9, 221.1, 221.5, 223};
+        for (int i = 0; i < frequencies.length; i++) {
+            batcher.add(i, frequencies[i]);
+        }
+        assertEquals(3, listener.batches.size());
+        assertEquals(220, listener.batches.get(0)[0], 0);
+        assertEquals(221.1, listener.batches.get(1)[0], 0);
+        assertEquals(223, listener.batches.get(2)[0], 0);
+    }
+
+    @Test
+    public void ignoresDetectionsOnceClosed() {
+        RecordingListener listener = new RecordingListener();
+        FrequencyBatcher batcher = new FrequencyBatcher(listener, 100, 32, 0);
+        batcher.add(0, 220);
+        batcher.add(10, 221);
+
+        batcher.close();
+        batcher.add(200, 222);
+        batcher.flush(300);
+        assertEquals(1, listener.batches.size());
+    }
+
+    @Test
+    public void deliversEveryDetectionOnceWhileATimerFlushes() throws InterruptedException {
+        final RecordingListener listener = new RecordingListener();
+        final FrequencyBatcher batcher = new FrequencyBatcher(listener, 1, 16, 0);
+        final int total = 100000;
+
+        Thread timer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (!Thread.currentThread().isInterrupted()) {
+                    batcher.flushIfDue(System.nanoTime() / 1000);
+                }
+            }
+        });
+        timer.start();
+        for (int i = 0; i < total; i++) {
+            batcher.add(i, i);
+        }
+        timer.interrupt();
+        timer.join();
+        batcher.flush(Long.MAX_VALUE);
+
+        int expected = 0;
+        for (double[] batch : listener.batches) {
+            for (double frequency : batch) {
+                assertEquals(expected++, frequency, 0);
+            }
+        }
+        assertEquals(total, expected);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnEmptyBatch() {
+        new FrequencyBatcher(new RecordingListener(), 100, 0, 0);
+    }
+
+    /**
+     * Copies every batch, since the batcher reuses its arrays.
+     */
+    private static class RecordingListener implements FrequencyBatcher.BatchListener {
+        final List<long[]> timestamps = new ArrayList<>();
+        final List<double[]> batches = new ArrayList<>();
+
+        @Override
+        public void onBatch(long[] timestamps, double[] frequencies, int count) {
+            long[] timestampCopy = new long[count];
+            double[] frequencyCopy = new double[count];
+            System.arraycopy(timestamps, 0, timestampCopy, 0, count);
+            System.arraycopy(frequencies, 0, frequencyCopy, 0, count);
+            this.timestamps.add(timestampCopy);
+            this.batches.add(frequencyCopy);
+        }
+    }
+}
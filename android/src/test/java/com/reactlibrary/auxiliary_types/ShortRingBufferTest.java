@@ -0,0 +1,130 @@
+package com.reactlibrary.auxiliary_types;
+
+import org.junit.Test;
+
+import java.nio.ShortBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ShortRingBufferTest {
+    @Test
+    public void roundsTheCapacityUpToAPowerOfTwo() {
+        assertEquals(1, new ShortRingBuffer(1).getCapacity());
+        assertEquals(1024, new ShortRingBuffer(1000).getCapacity());
+        assertEquals(1024, new ShortRingBuffer(1024).getCapacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnEmptyCapacity() {
+        new ShortRingBuffer(0);
+    }
+
+    @Test
+    public void writesOnlyAsMuchAsFits() {
+        ShortRingBuffer buffer = new ShortRingBuffer(8);
+
+        assertEquals(6, buffer.write(sequence(0, 6), 0, 6));
+        assertEquals(2, buffer.write(sequence(6, 6), 0, 6));
+        assertEquals(0, buffer.write(sequence(8, 1), 0, 1));
+        assertEquals(8, buffer.available());
+    }
+
+    @Test
+    public void readsSamplesInOrderAcrossTheEnd() {
+        ShortRingBuffer buffer = new ShortRingBuffer(8);
+        short[] destination = new short[8];
+
+        buffer.write(sequence(0, 6), 0, 6);
+        assertEquals(5, buffer.read(destination, 0, 5));
+        // the next samples wrap around the end of the storage
+        buffer.write(sequence(6, 7), 0, 7);
+        assertEquals(8, buffer.available());
+
+        assertEquals(8, buffer.read(destination, 0, 8));
+        assertArrayEquals(sequence(5, 8), destination);
+        assertEquals(0, buffer.available());
+        assertEquals(0, buffer.read(destination, 0, 8));
+    }
+
+    @Test
+    public void peeksWithoutConsuming() {
+        ShortRingBuffer buffer = new ShortRingBuffer(16);
+        buffer.write(sequence(0, 10), 0, 10);
+        short[] destination = new short[4];
+
+        assertEquals(4, buffer.peek(destination, 0, 4));
+        assertArrayEquals(sequence(0, 4), destination);
+        assertEquals(4, buffer.peek(3, destination, 0, 4));
+        assertArrayEquals(sequence(3, 4), destination);
+        assertEquals(2, buffer.peek(8, destination, 0, 4));
+        assertEquals(10, buffer.available());
+
+        assertEquals(7, buffer.skip(7));
+        assertEquals(3, buffer.peek(destination, 0, 4));
+        assertEquals(3, buffer.skip(7));
+    }
+
+    @Test
+    public void writesFromAShortBuffer() {
+        ShortRingBuffer buffer = new ShortRingBuffer(8);
+        ShortBuffer source = ShortBuffer.wrap(sequence(0, 12));
+
+        assertEquals(5, buffer.write(source, 5));
+        assertEquals(5, source.position());
+        assertEquals(3, buffer.write(source, 5));
+        assertEquals(8, source.position());
+
+        short[] destination = new short[8];
+        buffer.read(destination, 0, 8);
+        assertArrayEquals(sequence(0, 8), destination);
+    }
+
+    @Test
+    public void passesEverySampleFromOneThreadToAnother() throws InterruptedException {
+        final ShortRingBuffer buffer = new ShortRingBuffer(256);
+        final int total = 1 << 20;
+
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                short[] chunk = new short[100];
+                for (int written = 0; written < total; ) {
+                    int length = Math.min(chunk.length, total - written);
+                    for (int i = 0; i < length; i++) {
+                        chunk[i] = (short) (written + i);
+                    }
+                    int offset = 0;
+                    while (offset < length) {
+                        offset += buffer.write(chunk, offset, length - offset);
+                        Thread.yield();
+                    }
+                    written += length;
+                }
+            }
+        });
+        producer.start();
+
+        short[] chunk = new short[77];
+        for (int read = 0; read < total; ) {
+            int count = buffer.read(chunk, 0, chunk.length);
+            for (int i = 0; i < count; i++) {
+                assertEquals((short) (read + i), chunk[i]);
+            }
+            read += count;
+            if (count == 0) {
+                Thread.yield();
+            }
+        }
+        producer.join();
+        assertEquals(0, buffer.available());
+    }
+
+    private static short[] sequence(int first, int length) {
+        short[] samples = new short[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = (short) (first + i);
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,45 @@
+package com.reactlibrary.fequency_tools;
+
+import com.reactlibrary.fequency_tools.fft_utils.MixedRadixFFTPlan;
+import com.reactlibrary.fequency_tools.windows.HammingWindow;
+import com.reactlibrary.fequency_tools.windows.HannWindow;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class DetectorWorkspaceTest {
+    @Test
+    public void keepsTheWindowOfEveryFrameLengthOfTheSession() {
+        DetectorWorkspace workspace = new DetectorWorkspace();
+        HammingWindow window = new HammingWindow();
+
+        // more lengths than the window itself keeps tables for, as adaptive frames may go through
+        int[] lengths = new int[16];
+        for (int i = 0, length = 1024; i < lengths.length; i++) {
+            lengths[i] = length;
+            length = MixedRadixFFTPlan.fastSizeAtLeast(length + 1);
+        }
+        float[][] tables = new float[lengths.length][];
+        for (int i = 0; i < lengths.length; i++) {
+            tables[i] = workspace.windowCoefficients(window, lengths[i]);
+            assertArrayEquals(window.getFloatCoefficients(lengths[i]), tables[i], 0);
+        }
+        for (int i = 0; i < lengths.length; i++) {
+            assertSame(tables[i], workspace.windowCoefficients(window, lengths[i]));
+        }
+    }
+
+    @Test
+    public void replacesTheTablesOfAnotherWindow() {
+        DetectorWorkspace workspace = new DetectorWorkspace();
+        float[] hamming = workspace.windowCoefficients(new HammingWindow(), 2048);
+        HannWindow hann = new HannWindow();
+        float[] coefficients = workspace.windowCoefficients(hann, 2048);
+
+        assertNotSame(hamming, coefficients);
+        assertArrayEquals(hann.getFloatCoefficients(2048), coefficients, 0);
+    }
+}
@@ -0,0 +1,66 @@
+package com.reactlibrary.fequency_tools;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EnergyGateTest {
+    private static final double FRAME_SECONDS = 2048 / 22050.0;
+
+    @Test
+    public void staysOpenOnAHeldTone() {
+        for (double toneDb : new double[] {-40, -20}) {
+            EnergyGate gate = new EnergyGate();
+            feed(gate, -60, 5);
+            assertFalse(gate.isOpen());
+
+            for (double seconds = 0; seconds < 60; seconds += FRAME_SECONDS) {
+                assertTrue(toneDb + " dBFS tone after " + seconds + " s",
+                        gate.update(meanSquare(toneDb), FRAME_SECONDS));
+            }
+
+            feed(gate, -60, FRAME_SECONDS);
+            assertFalse(gate.isOpen());
+        }
+    }
+
+    @Test
+    public void closesOnRoomNoiseAfterAStreamStartingWithSound() {
+        EnergyGate gate = new EnergyGate();
+        assertTrue(gate.update(meanSquare(-30), FRAME_SECONDS));
+        feed(gate, -30, 2);
+
+        // the floor never saw the room, which is only 10 dB above minLevel
+        feed(gate, -60, 10);
+        assertFalse(gate.isOpen());
+    }
+
+    @Test
+    public void adaptsToALouderRoom() {
+        EnergyGate gate = new EnergyGate();
+        feed(gate, -60, 5);
+        feed(gate, -50, 10);
+        assertFalse(gate.isOpen());
+
+        assertTrue(gate.update(meanSquare(-35), FRAME_SECONDS));
+    }
+
+    @Test
+    public void neverOpensBelowMinLevel() {
+        EnergyGate gate = new EnergyGate();
+        feed(gate, -120, 5);
+
+        assertFalse(gate.update(meanSquare(EnergyGate.DEFAULT_MIN_LEVEL_DB - 1), FRAME_SECONDS));
+    }
+
+    private static void feed(EnergyGate gate, double levelDb, double seconds) {
+        for (double time = 0; time < seconds; time += FRAME_SECONDS) {
+            gate.update(meanSquare(levelDb), FRAME_SECONDS);
+        }
+    }
+
+    private static double meanSquare(double levelDb) {
+        return Math.pow(10, levelDb / 10);
+    }
+}
@@ -0,0 +1,115 @@
+package com.reactlibrary.fequency_tools;
+
+import com.reactlibrary.fequency_tools.fft_utils.FFTRealCooleyTukey;
+import com.reactlibrary.fequency_tools.fft_utils.FloatFFTRealCooleyTukey;
+import com.reactlibrary.fequency_tools.windows.BlackmanHarrisWindow;
+import com.reactlibrary.fequency_tools.windows.FloatWindow;
+import com.reactlibrary.fequency_tools.windows.GaussianWindow;
+import com.reactlibrary.fequency_tools.windows.HammingWindow;
+import com.reactlibrary.fequency_tools.windows.HannWindow;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FFTFrequencyDetectorTest {
+    private static final int SAMPLE_RATE = 22050;
+    private static final int FRAME_LENGTH = 16384;
+    private static final int PHASES = 8;
+
+    @Test
+    public void findsPureTones() {
+        assertFindsTones(1, new HammingWindow());
+    }
+
+    @Test
+    public void findsTheFundamentalOfHarmonicTones() {
+        assertFindsTones(4, new HammingWindow());
+    }
+
+    @Test
+    public void findsTonesThroughWindowsClosingToZero() {
+        for (FloatWindow window : new FloatWindow[] {new HannWindow(), new BlackmanHarrisWindow(),
+                new GaussianWindow()}) {
+            assertFindsTones(1, window);
+            assertFindsTones(4, window);
+        }
+    }
+
+    @Test
+    public void findsATonePastTheMiddleOfTheBinOfMaxFrequency() {
+        FFTFrequencyDetector detector = new FFTFrequencyDetector();
+        FloatFFTRealCooleyTukey fft = new FloatFFTRealCooleyTukey();
+        DetectorWorkspace workspace = new DetectorWorkspace(FRAME_LENGTH, fft);
+        HammingWindow window = new HammingWindow();
+        double maxFrequency = FFTFrequencyDetector.MAX_FREQUENCY;
+
+        // 500 Hz is at bin 371.5 of the frame and its period is 44.1 samples long
+        for (int phase = 0; phase < PHASES; phase++) {
+            short[] frame = tone(maxFrequency, 1, 2 * Math.PI * phase / PHASES);
+            double found = detector.findFrequency(frame, FRAME_LENGTH, SAMPLE_RATE,
+                    FFTFrequencyDetector.MIN_FREQUENCY, maxFrequency, fft, window, workspace);
+            assertEquals("phase " + phase, maxFrequency, found, 0.01 * maxFrequency);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void doublePrecisionFramesYieldTheFrequencyOfPcmFrames() {
+        FFTFrequencyDetector detector = new FFTFrequencyDetector();
+        FloatFFTRealCooleyTukey floatFFT = new FloatFFTRealCooleyTukey();
+        FFTRealCooleyTukey fft = new FFTRealCooleyTukey();
+        DetectorWorkspace floatWorkspace = new DetectorWorkspace(FRAME_LENGTH, floatFFT);
+        DetectorWorkspace workspace = new DetectorWorkspace(FRAME_LENGTH, fft);
+        HammingWindow window = new HammingWindow();
+
+        for (int frequency = 100; frequency <= FFTFrequencyDetector.MAX_FREQUENCY; frequency += 50) {
+            short[] frame = tone(frequency, 4, 1);
+            double[] samples = new double[FRAME_LENGTH];
+            for (int i = 0; i < FRAME_LENGTH; i++) {
+                samples[i] = frame[i] * SampleBuffer.PCM_16BIT_SCALE;
+            }
+            double pcm = detector.findFrequency(frame, FRAME_LENGTH, SAMPLE_RATE, FFTFrequencyDetector.MIN_FREQUENCY,
+                    FFTFrequencyDetector.MAX_FREQUENCY, floatFFT, window, floatWorkspace);
+            double found = detector.findFrequency(samples, FRAME_LENGTH, SAMPLE_RATE,
+                    FFTFrequencyDetector.MIN_FREQUENCY, FFTFrequencyDetector.MAX_FREQUENCY, fft, window, workspace);
+            assertEquals(frequency + " Hz", pcm, found, 1e-3 * frequency);
+        }
+    }
+
+    /**
+     * Tones from MIN_FREQUENCY + 5 Hz up to MAX_FREQUENCY; a peak in the lowest useful bin is taken for no sound.
+     */
+    private static void assertFindsTones(int harmonics, FloatWindow window) {
+        FFTFrequencyDetector detector = new FFTFrequencyDetector();
+        FloatFFTRealCooleyTukey fft = new FloatFFTRealCooleyTukey();
+        DetectorWorkspace workspace = new DetectorWorkspace(FRAME_LENGTH, fft);
+
+        for (int frequency = FFTFrequencyDetector.MIN_FREQUENCY + 5; frequency <= FFTFrequencyDetector.MAX_FREQUENCY;
+             frequency += 5) {
+            for (int phase = 0; phase < PHASES; phase++) {
+                short[] frame = tone(frequency, harmonics, 2 * Math.PI * phase / PHASES);
+                double found = detector.findFrequency(frame, FRAME_LENGTH, SAMPLE_RATE,
+                        FFTFrequencyDetector.MIN_FREQUENCY, FFTFrequencyDetector.MAX_FREQUENCY,
+                        fft, window, workspace);
+                assertEquals(window.getClass().getSimpleName() + ", " + frequency + " Hz, phase " + phase,
+                        frequency, found, 0.01 * frequency);
+            }
+        }
+    }
+
+    /**
+     * Returns a frame of a tone of equally strong harmonics at half the full scale, in 16-bit PCM.
+     */
+    private static short[] tone(double frequency, int harmonics, double phase) {
+        short[] frame = new short[FRAME_LENGTH];
+        for (int i = 0; i < FRAME_LENGTH; i++) {
+            double value = 0;
+            for (int harmonic = 1; harmonic <= harmonics; harmonic++) {
+                value += Math.sin(2 * Math.PI * frequency * harmonic * i / SAMPLE_RATE + phase * harmonic);
+            }
+            frame[i] = (short) Math.round(0.5 * value / harmonics * Short.MAX_VALUE);
+        }
+        return frame;
+    }
+}
@@ -0,0 +1,74 @@
+package com.reactlibrary.fequency_tools;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GoertzelFrequencyDetectorTest {
+    private static final double[] NOTES = GoertzelFrequencyDetector.equalTemperedNotes(
+            FFTFrequencyDetector.MIN_FREQUENCY, FFTFrequencyDetector.MAX_FREQUENCY,
+            GoertzelFrequencyDetector.DEFAULT_A4_FREQUENCY);
+
+    @Test
+    public void resolvesEveryOffsetWithinAQuarterToneOfTheTargets() {
+        for (int sampleRate : new int[] {22050, 44100}) {
+            GoertzelFrequencyDetector detector = new GoertzelFrequencyDetector(NOTES, sampleRate);
+            for (int target = 0; target < NOTES.length; target++) {
+                for (int cents = -50; cents <= 50; cents += 5) {
+                    double frequency = NOTES[target] * Math.pow(2, cents / 1200.0);
+                    detector.reset();
+                    feedSine(detector, frequency, 0.02, target + cents);
+
+                    String tone = frequency + " Hz at " + sampleRate + " Hz";
+                    assertTrue(tone, detector.isResultReady());
+                    int found = detector.getStrongestTarget();
+                    // a tone half way between two notes may go to either of them
+                    assertTrue(tone, found == target || (Math.abs(cents) == 50 && Math.abs(found - target) == 1));
+                    double expectedCents = 1200 * Math.log(frequency / NOTES[found]) / Math.log(2);
+                    assertEquals(tone, expectedCents, detector.getCentsOffset(), 1);
+                    assertEquals(tone, 0.02, detector.getAmplitude(), 0.001);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void reportsNothingBelowTheMinAmplitude() {
+        GoertzelFrequencyDetector detector = new GoertzelFrequencyDetector(NOTES, 22050);
+        feedSine(detector, 440, GoertzelFrequencyDetector.DEFAULT_MIN_AMPLITUDE / 2, 0);
+
+        assertTrue(detector.isResultReady());
+        assertEquals(-1, detector.getStrongestTarget());
+        assertEquals(0, detector.getEstimatedFrequency(), 0);
+    }
+
+    @Test
+    public void defaultBlockIsTheLongestResolvingTheTopNote() {
+        int blockSize = GoertzelFrequencyDetector.maxBlockSize(NOTES, 22050);
+        double topNote = NOTES[NOTES.length - 1];
+
+        assertEquals((int) (22050 / (topNote * Math.pow(2, 1 / 24.0) - topNote)), blockSize);
+        assertEquals(blockSize, new GoertzelFrequencyDetector(NOTES, 22050).getBlockSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBlocksTooLongToResolveTheTargets() {
+        new GoertzelFrequencyDetector(NOTES, 22050, GoertzelFrequencyDetector.maxBlockSize(NOTES, 22050) + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTargetsWhoseSideFiltersLeaveTheSpectrum() {
+        new GoertzelFrequencyDetector(new double[] {20, 1000}, 22050);
+    }
+
+    private static void feedSine(GoertzelFrequencyDetector detector, double frequency, double amplitude,
+                                 double phase) {
+        int sampleRate = detector.getSampleRate();
+        float[] samples = new float[detector.getBlockSize()];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (float) (amplitude * Math.sin(2 * Math.PI * frequency * i / sampleRate + phase));
+        }
+        detector.process(samples, 0, samples.length);
+    }
+}
@@ -0,0 +1,86 @@
+package com.reactlibrary.fequency_tools;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class PeriodVerifierTest {
+    private static final int LENGTH = 1024;
+
+    @Test
+    public void findsTheIntervalOfTheSmallestDifferenceInARange() {
+        Random random = new Random(1);
+        PeriodVerifier verifier = new PeriodVerifier();
+
+        for (int round = 0; round < 100; round++) {
+            double period = 20 + 80 * random.nextDouble();
+            float[] x = tone(period, random.nextDouble() * 2 * Math.PI, 0.05, random);
+            // a range of less than half a period around it, so it holds a single valley
+            int intervalMin = (int) (period * (0.8 + 0.15 * random.nextDouble()));
+            int intervalMax = (int) Math.ceil(period * (1.05 + 0.15 * random.nextDouble()));
+
+            verifier.begin(intervalMax);
+            int found = verifier.verify(x, 0, LENGTH, intervalMin, intervalMax);
+
+            assertEquals("period " + period, bruteForceBest(x, intervalMin, intervalMax), found);
+            assertEquals(found, verifier.getBestInterval());
+        }
+    }
+
+    @Test
+    public void abandonsRangesWorseThanTheBestOne() {
+        PeriodVerifier verifier = new PeriodVerifier();
+        float[] x = tone(50, 0, 0, null);
+
+        verifier.begin(200);
+        assertEquals(47, verifier.verify(x, 0, LENGTH, 40, 48));
+        // half a period, where the difference is largest
+        assertEquals(0, verifier.verify(x, 0, LENGTH, 22, 28));
+        assertEquals(47, verifier.getBestInterval());
+        assertEquals(50, verifier.verify(x, 0, LENGTH, 45, 56));
+        assertEquals(50, verifier.getBestInterval());
+    }
+
+    @Test
+    public void forgetsThePreviousFrame() {
+        PeriodVerifier verifier = new PeriodVerifier();
+
+        verifier.begin(100);
+        verifier.verify(tone(50, 0, 0, null), 0, LENGTH, 45, 56);
+        verifier.begin(100);
+        assertEquals(0, verifier.getBestInterval());
+        assertEquals(40, verifier.verify(tone(40, 0, 0, null), 0, LENGTH, 35, 46));
+    }
+
+    private static int bruteForceBest(float[] x, int intervalMin, int intervalMax) {
+        int best = 0;
+        double bestSum = Double.MAX_VALUE;
+        for (int interval = Math.max(1, intervalMin); interval < intervalMax; interval++) {
+            double sum = 0;
+            for (int j = 0; j < LENGTH; j++) {
+                float diff = x[j] - x[j + interval];
+                sum += diff * diff;
+            }
+            if (sum < bestSum) {
+                bestSum = sum;
+                best = interval;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns LENGTH samples plus room for the longest shift of a tone with a second harmonic and white noise.
+     */
+    private static float[] tone(double period, double phase, double noise, Random random) {
+        float[] x = new float[LENGTH + 256];
+        for (int i = 0; i < x.length; i++) {
+            double angle = 2 * Math.PI * i / period + phase;
+            double value = Math.sin(angle) + 0.5 * Math.sin(2 * angle);
+            x[i] = (float) (value + (noise > 0 ? noise * random.nextGaussian() : 0));
+        }
+        return x;
+    }
+}
@@ -0,0 +1,79 @@
+package com.reactlibrary.fequency_tools;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PitchTrackerTest {
+    @Test
+    public void followsASteadyPitch() {
+        PitchTracker tracker = new PitchTracker(1);
+
+        for (int frame = 0; frame < 10; frame++) {
+            double frequency = 220 + frame;
+            assertEquals(frequency, update(tracker, new double[] {frequency}, new double[] {0.95}), 0);
+            assertEquals(0.95, tracker.getConfidence(), 0);
+        }
+    }
+
+    @Test
+    public void reportsFramesWithoutCandidatesAsUnvoiced() {
+        PitchTracker tracker = new PitchTracker();
+        update(tracker, new double[] {220}, new double[] {0.95});
+
+        assertEquals(0, update(tracker, new double[0], new double[0]), 0);
+        assertEquals(0, tracker.getConfidence(), 0);
+        // a weak candidate is not worth switching back to voiced
+        assertEquals(0, update(tracker, new double[] {220}, new double[] {0.3}), 0);
+    }
+
+    @Test
+    public void prefersTheFundamentalToTheOctaveBelowIt() {
+        PitchTracker tracker = new PitchTracker(1);
+
+        // a periodic signal repeats after two periods as well, so the octave below is always almost as confident
+        assertEquals(220, update(tracker, new double[] {110, 220}, new double[] {0.97, 0.95}), 0);
+    }
+
+    @Test
+    public void staysOnThePitchThroughAnOctaveJumpOfOneFrame() {
+        PitchTracker tracker = new PitchTracker(1);
+        for (int frame = 0; frame < 5; frame++) {
+            update(tracker, new double[] {220, 440}, new double[] {0.95, 0.8});
+        }
+
+        // not confident enough for 220 Hz to be taken for its subharmonic
+        assertEquals(220, update(tracker, new double[] {440, 220}, new double[] {0.88, 0.85}), 0);
+        assertEquals(0.85, tracker.getConfidence(), 0);
+    }
+
+    @Test
+    public void removesSingleOutliersWithTheMedian() {
+        PitchTracker tracker = new PitchTracker(3);
+        update(tracker, new double[] {220}, new double[] {0.95});
+        update(tracker, new double[] {221}, new double[] {0.95});
+
+        assertEquals(221, update(tracker, new double[] {300}, new double[] {0.99}), 0);
+        assertEquals(222, update(tracker, new double[] {222}, new double[] {0.95}), 0);
+    }
+
+    @Test
+    public void startsOverAfterReset() {
+        PitchTracker tracker = new PitchTracker(3);
+        update(tracker, new double[] {220}, new double[] {0.95});
+        update(tracker, new double[] {220}, new double[] {0.95});
+
+        tracker.reset();
+        assertEquals(0, tracker.getFrequency(), 0);
+        assertEquals(330, update(tracker, new double[] {330}, new double[] {0.95}), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnEmptyMedian() {
+        new PitchTracker(0);
+    }
+
+    private static double update(PitchTracker tracker, double[] frequencies, double[] confidences) {
+        return tracker.update(frequencies, confidences, frequencies.length);
+    }
+}
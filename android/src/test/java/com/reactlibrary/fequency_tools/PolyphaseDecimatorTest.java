@@ -0,0 +1,99 @@
+package com.reactlibrary.fequency_tools;
+
+import com.reactlibrary.fequency_tools.fft_utils.FloatFFTRealMixedRadix;
+import com.reactlibrary.fequency_tools.fft_utils.MixedRadixFFTPlan;
+import com.reactlibrary.fequency_tools.windows.HammingWindow;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PolyphaseDecimatorTest {
+    private static final int SAMPLE_RATE = 22050;
+    private static final double MAX_FREQUENCY = FFTFrequencyDetector.MAX_FREQUENCY;
+
+    @Test
+    public void keepsEightSamplesPerPeriodAtMaxFrequency() {
+        int factor = PolyphaseDecimator.factorFor(SAMPLE_RATE, MAX_FREQUENCY);
+
+        assertEquals(5, factor);
+        assertTrue(SAMPLE_RATE / factor >= 8 * MAX_FREQUENCY);
+        assertEquals(1, PolyphaseDecimator.factorFor(SAMPLE_RATE, 2000));
+    }
+
+    @Test
+    public void passesTheDetectedBandAndStopsEverythingAboveTheOutputNyquistFrequency() {
+        PolyphaseDecimator decimator = new PolyphaseDecimator(SAMPLE_RATE, MAX_FREQUENCY);
+        double nyquist = decimator.getOutputSampleRate() / 2.0;
+
+        for (double frequency = 50; frequency <= MAX_FREQUENCY; frequency += 50) {
+            assertEquals(frequency + " Hz", 0, gainDb(decimator, frequency), 0.01);
+        }
+        for (double frequency = nyquist; frequency < SAMPLE_RATE / 2.0; frequency += 250) {
+            assertTrue(frequency + " Hz", gainDb(decimator, frequency) < -70);
+        }
+    }
+
+    @Test
+    public void decimatedFramesYieldTheFrequencyOfFullRateFrames() {
+        int factor = PolyphaseDecimator.factorFor(SAMPLE_RATE, MAX_FREQUENCY);
+        PolyphaseDecimator decimator = new PolyphaseDecimator(SAMPLE_RATE, factor, MAX_FREQUENCY);
+        int frameLength = 16384;
+        int decimatedLength = MixedRadixFFTPlan.fastSizeAtMost(frameLength / factor);
+        int inputLength = frameLength + decimator.getTaps();
+
+        FFTFrequencyDetector detector = new FFTFrequencyDetector();
+        FloatFFTRealMixedRadix fft = new FloatFFTRealMixedRadix();
+        DetectorWorkspace workspace = new DetectorWorkspace(frameLength, fft);
+        HammingWindow window = new HammingWindow();
+        SampleBuffer frame = new SampleBuffer(frameLength, SAMPLE_RATE);
+        SampleBuffer decimatedFrame = new SampleBuffer(decimatedLength, decimator.getOutputSampleRate());
+        float[] input = new float[inputLength];
+        float[] output = new float[decimator.getMaxOutputLength(inputLength)];
+
+        for (int harmonics : new int[] {1, 4}) {
+            for (int frequency = 55; frequency <= MAX_FREQUENCY; frequency += 5) {
+                // harmonics up to 4 * maxFrequency, in the transition band and up to the output Nyquist frequency
+                for (int i = 0; i < inputLength; i++) {
+                    double value = 0;
+                    for (int harmonic = 1; harmonic <= harmonics; harmonic++) {
+                        value += Math.sin(2 * Math.PI * frequency * harmonic * i / SAMPLE_RATE + harmonic);
+                    }
+                    input[i] = (float) (0.5 * value / harmonics);
+                }
+                frame.setFromFloat(input, inputLength - frameLength, frameLength);
+                double fullRate = detector.findFrequency(frame, FFTFrequencyDetector.MIN_FREQUENCY, MAX_FREQUENCY,
+                        fft, window, workspace);
+
+                decimator.reset();
+                int count = decimator.process(input, 0, inputLength, output, 0);
+                decimatedFrame.setFromFloat(output, count - decimatedLength, decimatedLength);
+                double decimated = detector.findFrequency(decimatedFrame, FFTFrequencyDetector.MIN_FREQUENCY,
+                        MAX_FREQUENCY, fft, window, workspace);
+
+                String tone = frequency + " Hz with " + harmonics + " harmonics";
+                assertEquals(tone, frequency, fullRate, 0.01 * frequency);
+                assertEquals(tone, fullRate, decimated, 0.01 * frequency);
+            }
+        }
+    }
+
+    private static double gainDb(PolyphaseDecimator decimator, double frequency) {
+        decimator.reset();
+        int length = SAMPLE_RATE;
+        float[] input = new float[length];
+        for (int i = 0; i < length; i++) {
+            input[i] = (float) Math.sin(2 * Math.PI * frequency * i / SAMPLE_RATE);
+        }
+        float[] output = new float[decimator.getMaxOutputLength(length)];
+        int count = decimator.process(input, 0, length, output, 0);
+
+        // the first half holds the response to the start of the tone
+        double energy = 0;
+        for (int i = count / 2; i < count; i++) {
+            energy += output[i] * output[i];
+        }
+        return 10 * Math.log10(2 * energy / (count - count / 2));
+    }
+}
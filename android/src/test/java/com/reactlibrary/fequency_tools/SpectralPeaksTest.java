@@ -0,0 +1,77 @@
+package com.reactlibrary.fequency_tools;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SpectralPeaksTest {
+    @Test
+    public void selectsTheStrongestLocalMaximaStrongestFirst() {
+        Random random = new Random(1);
+        SpectralPeaks peaks = new SpectralPeaks(15);
+
+        for (int round = 0; round < 50; round++) {
+            float[] spectrum = new float[512];
+            for (int i = 0; i < spectrum.length; i++) {
+                spectrum[i] = random.nextFloat();
+            }
+            int from = random.nextInt(100);
+            int to = 200 + random.nextInt(312);
+
+            List<Float> expected = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                boolean risesFromTheLeft = i == 0 || spectrum[i - 1] < spectrum[i];
+                if (risesFromTheLeft && (i + 1 == spectrum.length || spectrum[i + 1] <= spectrum[i])) {
+                    expected.add(spectrum[i]);
+                }
+            }
+            Collections.sort(expected, Collections.<Float>reverseOrder());
+
+            int count = peaks.select(spectrum, spectrum.length, from, to);
+            assertEquals(Math.min(15, expected.size()), count);
+            assertEquals(count, peaks.getCount());
+            for (int i = 0; i < count; i++) {
+                assertEquals(expected.get(i), peaks.magnitudes[i], 0);
+                assertEquals(spectrum[peaks.indices[i]], peaks.magnitudes[i], 0);
+                assertTrue(peaks.indices[i] >= from && peaks.indices[i] < to);
+            }
+        }
+    }
+
+    @Test
+    public void comparesTheEdgesOfTheRangeWithTheirNeighbours() {
+        SpectralPeaks peaks = new SpectralPeaks(4);
+        float[] spectrum = {0, 1, 2, 3, 2, 1, 5, 1};
+
+        // bin 2 is not a maximum although it is the first of the range, bin 3 is outside of it
+        assertEquals(0, peaks.select(spectrum, spectrum.length, 1, 3));
+        assertEquals(2, peaks.select(spectrum, spectrum.length, 1, 8));
+        assertEquals(6, peaks.indices[0]);
+        assertEquals(3, peaks.indices[1]);
+    }
+
+    @Test
+    public void refinesPositionsToTheVertexOfAParabola() {
+        SpectralPeaks peaks = new SpectralPeaks(2);
+        float[] spectrum = new float[32];
+        double vertex = 10.3;
+        for (int i = 0; i < spectrum.length; i++) {
+            spectrum[i] = (float) (100 - (i - vertex) * (i - vertex));
+        }
+
+        assertEquals(1, peaks.select(spectrum, spectrum.length, 0, spectrum.length));
+        assertEquals(10, peaks.indices[0]);
+        assertEquals(vertex, peaks.positions[0], 1e-4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnEmptyCapacity() {
+        new SpectralPeaks(0);
+    }
+}
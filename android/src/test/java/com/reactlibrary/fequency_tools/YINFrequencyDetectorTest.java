@@ -0,0 +1,77 @@
+package com.reactlibrary.fequency_tools;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class YINFrequencyDetectorTest {
+    private static final int SAMPLE_RATE = 22050;
+    private static final int FRAME_LENGTH = 2048;
+
+    @Test
+    public void findsTheFundamentalOfTones() {
+        YINFrequencyDetector detector = createDetector(YINFrequencyDetector.DifferenceFunction.FFT);
+
+        for (int frequency = 60; frequency <= 1000; frequency += 20) {
+            float found = detector.findFrequency(tone(frequency, 3, 0));
+            assertEquals(frequency + " Hz", frequency, found, 0.01 * frequency);
+        }
+    }
+
+    @Test
+    public void fftDifferenceFunctionYieldsTheEstimatesOfTheBruteForceOne() {
+        YINFrequencyDetector bruteForce = createDetector(YINFrequencyDetector.DifferenceFunction.BRUTE_FORCE);
+        YINFrequencyDetector fft = createDetector(YINFrequencyDetector.DifferenceFunction.FFT);
+
+        for (double noise : new double[] {0, 0.05, 0.3}) {
+            for (int frequency = 70; frequency <= 900; frequency += 70) {
+                float[] frame = tone(frequency, 4, noise);
+                float expected = bruteForce.findFrequency(frame);
+                float found = fft.findFrequency(frame);
+
+                String message = frequency + " Hz with noise " + noise;
+                assertEquals(message, expected, found, 1e-3 * Math.abs(expected));
+                assertEquals(message, bruteForce.getProbability(), fft.getProbability(), 1e-3);
+            }
+        }
+    }
+
+    @Test
+    public void findsNoPitchInNoise() {
+        Random random = new Random(1);
+        float[] frame = new float[FRAME_LENGTH];
+        for (int i = 0; i < FRAME_LENGTH; i++) {
+            frame[i] = (float) random.nextGaussian() * 0.3f;
+        }
+        for (YINFrequencyDetector.DifferenceFunction function : YINFrequencyDetector.DifferenceFunction.values()) {
+            YINFrequencyDetector detector = createDetector(function);
+            assertEquals(function.name(), -1, detector.findFrequency(frame), 0);
+            assertEquals(function.name(), 0, detector.getProbability(), 0);
+        }
+    }
+
+    private static YINFrequencyDetector createDetector(YINFrequencyDetector.DifferenceFunction function) {
+        YINFrequencyDetector detector = new YINFrequencyDetector();
+        detector.setSampleRate(SAMPLE_RATE);
+        detector.setDifferenceFunction(function);
+        return detector;
+    }
+
+    /**
+     * Returns a frame of a tone of harmonics fading as 1 / h, with white noise of the given deviation.
+     */
+    private static float[] tone(double frequency, int harmonics, double noise) {
+        Random random = new Random((long) frequency);
+        float[] frame = new float[FRAME_LENGTH];
+        for (int i = 0; i < FRAME_LENGTH; i++) {
+            double value = 0;
+            for (int harmonic = 1; harmonic <= harmonics; harmonic++) {
+                value += Math.sin(2 * Math.PI * frequency * harmonic * i / SAMPLE_RATE + harmonic) / harmonic;
+            }
+            frame[i] = (float) (0.5 * value + noise * random.nextGaussian());
+        }
+        return frame;
+    }
+}
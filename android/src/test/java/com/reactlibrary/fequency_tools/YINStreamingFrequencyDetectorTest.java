@@ -0,0 +1,85 @@
+package com.reactlibrary.fequency_tools;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class YINStreamingFrequencyDetectorTest {
+    private static final int SAMPLE_RATE = 22050;
+
+    @Test
+    public void yieldsTheEstimatesOfTheWholeWindowDetector() {
+        assertMatchesWholeWindows(2048, 256, 37);
+        assertMatchesWholeWindows(2048, 1024, 1000);
+        assertMatchesWholeWindows(4096, 128, 300);
+    }
+
+    @Test
+    public void waitsForAWholeWindowAfterReset() {
+        YINStreamingFrequencyDetector streaming = new YINStreamingFrequencyDetector(2048, 256);
+        streaming.setSampleRate(SAMPLE_RATE);
+        float[] samples = signal(4096);
+
+        float pitch = streaming.addSamples(samples, 0, 2048);
+        assertTrue(streaming.isPrimed());
+        assertTrue(pitch > 0);
+
+        streaming.reset();
+        assertFalse(streaming.isPrimed());
+        assertEquals(-1, streaming.addSamples(samples, 0, 2047), 0);
+        assertFalse(streaming.isPrimed());
+        assertEquals(pitch, streaming.addSamples(samples, 2047, 1), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAHopThatIsNotAPowerOfTwo() {
+        new YINStreamingFrequencyDetector(2400, 300);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAWindowThatIsNotAMultipleOfTwoHops() {
+        new YINStreamingFrequencyDetector(2048 + 256, 256);
+    }
+
+    /**
+     * Feeds a noisy gliding tone in chunks of the given length and compares every window with a fresh analysis.
+     */
+    private static void assertMatchesWholeWindows(int windowSize, int hopSize, int chunk) {
+        YINStreamingFrequencyDetector streaming = new YINStreamingFrequencyDetector(windowSize, hopSize);
+        streaming.setSampleRate(SAMPLE_RATE);
+        YINFrequencyDetector detector = new YINFrequencyDetector();
+        detector.setSampleRate(SAMPLE_RATE);
+        float[] samples = signal(windowSize * 8);
+
+        int windows = 0;
+        for (int position = 0; position + chunk <= samples.length; position += chunk) {
+            float pitch = streaming.addSamples(samples, position, chunk);
+            if (!streaming.isPrimed()) {
+                continue;
+            }
+            int end = (position + chunk) / hopSize * hopSize;
+            float expected = detector.findFrequency(Arrays.copyOfRange(samples, end - windowSize, end));
+
+            String message = windowSize + "/" + hopSize + ", window ending at " + end;
+            assertEquals(message, expected, pitch, 1e-3 * expected);
+            assertEquals(message, detector.getProbability(), streaming.getProbability(), 1e-4);
+            windows++;
+        }
+        assertTrue(windows > 0);
+    }
+
+    private static float[] signal(int length) {
+        Random random = new Random(1);
+        float[] samples = new float[length];
+        for (int i = 0; i < length; i++) {
+            double phase = 2 * Math.PI * (220 + 0.002 * i) * i / SAMPLE_RATE;
+            samples[i] = (float) (0.5 * Math.sin(phase) + 0.3 * Math.sin(2 * phase) + 0.02 * random.nextGaussian());
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,93 @@
+package com.reactlibrary.fequency_tools.fft_utils;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MixedRadixFFTPlanTest {
+    private static final int[] FAST_SIZES = {1, 2, 3, 4, 5, 6, 8, 9, 12, 15, 16, 25, 27, 60, 64, 120, 360, 1000};
+    private static final int[] BLUESTEIN_SIZES = {7, 11, 13, 97, 127, 1009};
+
+    @Test
+    public void transformsFastSizesLikeADirectDFT() {
+        for (int size : FAST_SIZES) {
+            assertTransformsLikeADirectDFT(size);
+        }
+    }
+
+    @Test
+    public void transformsOtherSizesLikeADirectDFT() {
+        for (int size : BLUESTEIN_SIZES) {
+            assertTransformsLikeADirectDFT(size);
+        }
+    }
+
+    @Test
+    public void keepsOnlyTheLatestSizes() {
+        MixedRadixFFTPlan plan = MixedRadixFFTPlan.forSize(1234);
+        assertSame(plan, MixedRadixFFTPlan.forSize(1234));
+
+        for (int size = 2000; size < 2016; size++) {
+            MixedRadixFFTPlan.forSize(size);
+        }
+        MixedRadixFFTPlan created = MixedRadixFFTPlan.forSize(1234);
+        assertNotSame(plan, created);
+        assertEquals(1234, created.getSize());
+    }
+
+    @Test
+    public void findsTheNearestFastSizes() {
+        assertEquals(1000, MixedRadixFFTPlan.fastSizeAtMost(1023));
+        assertEquals(1024, MixedRadixFFTPlan.fastSizeAtLeast(1021));
+        assertTrue(MixedRadixFFTPlan.isFastSize(2 * 3 * 5 * 64));
+        assertFalse(MixedRadixFFTPlan.isFastSize(7 * 64));
+    }
+
+    private static void assertTransformsLikeADirectDFT(int size) {
+        Random random = new Random(size);
+        double[] input = new double[2 * size];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = random.nextDouble() * 2 - 1;
+        }
+        double[] expected = dft(input, size);
+
+        MixedRadixFFTPlan plan = MixedRadixFFTPlan.forSize(size);
+        double[] data = input.clone();
+        plan.transform(data, new double[plan.getScratchLength()]);
+        float[] floatData = new float[2 * size];
+        for (int i = 0; i < floatData.length; i++) {
+            floatData[i] = (float) input[i];
+        }
+        plan.transform(floatData, new float[plan.getScratchLength()]);
+
+        for (int i = 0; i < 2 * size; i++) {
+            assertEquals("size " + size + ", value " + i, expected[i], data[i], 1e-9 * size);
+            assertEquals("size " + size + ", value " + i, expected[i], floatData[i], 1e-5 * size);
+        }
+    }
+
+    /**
+     * Direct O(N^2) transform of interleaved complex data.
+     */
+    static double[] dft(double[] input, int size) {
+        double[] output = new double[2 * size];
+        for (int k = 0; k < size; k++) {
+            double real = 0;
+            double imaginary = 0;
+            for (int n = 0; n < size; n++) {
+                double angle = -2 * Math.PI * ((long) k * n % size) / size;
+                real += input[2 * n] * Math.cos(angle) - input[2 * n + 1] * Math.sin(angle);
+                imaginary += input[2 * n] * Math.sin(angle) + input[2 * n + 1] * Math.cos(angle);
+            }
+            output[2 * k] = real;
+            output[2 * k + 1] = imaginary;
+        }
+        return output;
+    }
+}
@@ -0,0 +1,75 @@
+package com.reactlibrary.fequency_tools.fft_utils;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks every spectrogram implementation against the magnitudes of a direct DFT of the zero-padded input.
+ */
+public class SpectrogramTest {
+    // the same instances go through all lengths, as frames of an adaptive length do
+    private static final int[] LENGTHS = {16, 100, 1000, 1024, 997, 2048, 1500, 16, 100, 1000};
+
+    @Test
+    public void doublePrecisionTransformsYieldTheDFTMagnitudes() {
+        for (FastFourierTransform fft : new FastFourierTransform[] {new FFTCooleyTukey(), new FFTRealCooleyTukey(),
+                new FFTRealMixedRadix()}) {
+            for (int length : LENGTHS) {
+                double[] input = signal(length);
+                double[] spectrogram = new double[fft.getSpectrogramLength(length)];
+                fft.calculateSpectrogram(input, length, spectrogram);
+
+                assertMagnitudes(fft.getClass().getSimpleName(), input, spectrogram, 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void singlePrecisionTransformsYieldTheDFTMagnitudes() {
+        for (FloatFastFourierTransform fft : new FloatFastFourierTransform[] {new FloatFFTRealCooleyTukey(),
+                new FloatFFTRealMixedRadix()}) {
+            for (int length : LENGTHS) {
+                double[] input = signal(length);
+                float[] floatInput = new float[length];
+                for (int i = 0; i < length; i++) {
+                    floatInput[i] = (float) input[i];
+                }
+                float[] spectrogram = new float[fft.getSpectrogramLength(length)];
+                fft.calculateSpectrogram(floatInput, length, spectrogram);
+
+                double[] magnitudes = new double[spectrogram.length];
+                for (int i = 0; i < spectrogram.length; i++) {
+                    magnitudes[i] = spectrogram[i];
+                }
+                assertMagnitudes(fft.getClass().getSimpleName(), input, magnitudes, 1e-4);
+            }
+        }
+    }
+
+    private static void assertMagnitudes(String name, double[] input, double[] spectrogram, double tolerance) {
+        int size = spectrogram.length;
+        double[] complex = new double[2 * size];
+        for (int i = 0; i < input.length; i++) {
+            complex[2 * i] = input[i];
+        }
+        double[] expected = MixedRadixFFTPlanTest.dft(complex, size);
+
+        for (int k = 0; k < size; k++) {
+            double magnitude = Math.hypot(expected[2 * k], expected[2 * k + 1]);
+            assertEquals(name + ", length " + input.length + ", bin " + k, magnitude, spectrogram[k],
+                    tolerance * input.length);
+        }
+    }
+
+    private static double[] signal(int length) {
+        Random random = new Random(length);
+        double[] samples = new double[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = Math.sin(2 * Math.PI * 0.1 * i) + random.nextDouble() - 0.5;
+        }
+        return samples;
+    }
+}
@@ -1,6 +1,10 @@
-
 import { NativeModules } from 'react-native';
 
 const { RNAudioProcessingModule } = NativeModules;
 
-export default RNAudioProcessingModule;
+export default {
+  ...RNAudioProcessingModule,
+  // options: { windowSize, hopSize } in samples, all optional; resolves once processing has started and rejects
+  // with E_INVALID_OPTIONS or E_CAPTURE_FAILED, starting nothing
+  start: (options = {}) => RNAudioProcessingModule.start(options),
+};